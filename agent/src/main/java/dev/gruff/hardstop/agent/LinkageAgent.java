@@ -0,0 +1,337 @@
+package dev.gruff.hardstop.agent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.Instrumentation;
+import java.lang.instrument.UnmodifiableClassException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarFile;
+
+/**
+ * Java agent that records every LinkageError the JVM constructs.
+ *
+ * <pre>
+ * java -javaagent:agent/target/agent-1.0.0-SNAPSHOT.jar[=linkage-errors.log[,4096]] ...
+ * </pre>
+ *
+ * The argument is the log file, appended to, and how many errors the
+ * ring buffer holds before the oldest are dropped (1024 by default).
+ *
+ * NoSuchMethodError, NoSuchFieldError, AbstractMethodError,
+ * IncompatibleClassChangeError, IllegalAccessError, InstantiationError
+ * and NoClassDefFoundError all come from the constructors of
+ * java.lang.LinkageError, whichever of the JVM or library code throws
+ * them, so those constructors are the one place to catch them all, even
+ * when the application swallows the error. The other linkage errors,
+ * such as ExceptionInInitializerError and VerifyError, pass through the
+ * same constructors and are ignored by the recorder. The agent retransforms
+ * LinkageError so that each constructor, before it returns, passes the
+ * new error to {@link LinkageRecorder}; no other class is touched, so a
+ * JVM that throws no linkage errors runs the same code it would without
+ * the agent. The recorder is put on the bootstrap class path first,
+ * that being the only loader LinkageError resolves against.
+ *
+ * The patch is made on the class file bytes directly, this module having
+ * no bytecode library: a constant for the recorder method is appended to
+ * the pool, and {@code aload_0; invokestatic} is inserted before each
+ * {@code return} of each constructor. A constructor with branches would
+ * need its stack map rewritten, so one that has a StackMapTable is left
+ * alone; LinkageError's have none.
+ */
+public final class LinkageAgent implements ClassFileTransformer {
+
+    private static final String TARGET = "java/lang/LinkageError";
+    private static final String RECORDER = "dev/gruff/hardstop/agent/LinkageRecorder";
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private static final int ALOAD_0 = 0x2A;
+    private static final int RETURN = 0xB1;
+    private static final int INVOKESTATIC = 0xB8;
+    /** aload_0 and invokestatic with its two byte index. */
+    private static final int INSERTED = 4;
+
+    private LinkageAgent() {
+    }
+
+    public static void premain(String args, Instrumentation inst) throws Exception {
+        agentmain(args, inst);
+    }
+
+    public static void agentmain(String args, Instrumentation inst) throws Exception {
+        String[] parts = args == null || args.isEmpty() ? new String[0] : args.split(",");
+        Path log = Path.of(parts.length > 0 ? parts[0] : "linkage-errors.log");
+        int capacity = parts.length > 1 ? Integer.parseInt(parts[1]) : DEFAULT_CAPACITY;
+
+        // before the recorder is first named, so that the bootstrap loader defines it
+        Path jar = Path.of(LinkageAgent.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        inst.appendToBootstrapClassLoaderSearch(new JarFile(jar.toFile()));
+        LinkageRecorder.start(log.toAbsolutePath(), capacity);
+        if (LinkageRecorder.class.getClassLoader() != null) {
+            throw new IllegalStateException(RECORDER + " was loaded by " + LinkageRecorder.class.getClassLoader()
+                    + ", not the bootstrap loader");
+        }
+
+        LinkageAgent agent = new LinkageAgent();
+        inst.addTransformer(agent, true);
+        try {
+            inst.retransformClasses(LinkageError.class);
+        } catch (UnmodifiableClassException e) {
+            throw new IllegalStateException("cannot retransform " + TARGET, e);
+        } finally {
+            inst.removeTransformer(agent);
+        }
+    }
+
+    @Override
+    public byte[] transform(Module module, ClassLoader loader, String className, Class<?> redefined,
+                            ProtectionDomain domain, byte[] bytes) {
+        if (!TARGET.equals(className)) {
+            return null;
+        }
+        try {
+            byte[] patched = patch(bytes);
+            if (patched == null) {
+                System.err.println("hardstop: cannot patch " + TARGET + ": a constructor has a stack map, a switch or a wide"
+                        + " instruction, so no linkage errors are recorded");
+            }
+            return patched;
+        } catch (IOException | RuntimeException e) {
+            // a transformer's exceptions are swallowed by the JVM, so say why nothing is recorded
+            System.err.println("hardstop: cannot patch " + TARGET + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * The class with a call to LinkageRecorder.record(this) before each
+     * return of each constructor, or null if a constructor has a stack map.
+     */
+    static byte[] patch(byte[] bytes) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length + 128);
+        DataOutputStream out = new DataOutputStream(buffer);
+
+        in.position(8);
+        int count = in.getShort() & 0xFFFF;
+        List<String> utf8 = new ArrayList<>();
+        for (int i = 1; i < count; i++) {
+            int tag = in.get() & 0xFF;
+            utf8.add(null);
+            switch (tag) {
+                case 1 -> {
+                    byte[] s = new byte[in.getShort() & 0xFFFF];
+                    in.get(s);
+                    // modified UTF-8, but the names compared here are ASCII
+                    utf8.set(i - 1, new String(s, StandardCharsets.UTF_8));
+                }
+                case 3, 4, 9, 10, 11, 12, 17, 18 -> in.position(in.position() + 4);
+                case 5, 6 -> {
+                    in.position(in.position() + 8);
+                    utf8.add(null);
+                    i++;
+                }
+                case 7, 8, 16, 19, 20 -> in.position(in.position() + 2);
+                case 15 -> in.position(in.position() + 3);
+                default -> throw new IOException("unknown constant pool tag " + tag);
+            }
+        }
+        int poolEnd = in.position();
+
+        // Utf8 class, Class, Utf8 name, Utf8 descriptor, NameAndType, Methodref
+        out.write(bytes, 0, 8);
+        out.writeShort(count + 6);
+        out.write(bytes, 10, poolEnd - 10);
+        out.writeByte(1);
+        out.writeUTF(RECORDER);
+        out.writeByte(7);
+        out.writeShort(count);
+        out.writeByte(1);
+        out.writeUTF("record");
+        out.writeByte(1);
+        out.writeUTF("(L" + TARGET + ";)V");
+        out.writeByte(12);
+        out.writeShort(count + 2);
+        out.writeShort(count + 3);
+        out.writeByte(10);
+        out.writeShort(count + 1);
+        out.writeShort(count + 4);
+        int record = count + 5;
+
+        // access, this, super, interfaces, fields: copied as they are
+        int from = in.position();
+        in.position(in.position() + 6);
+        int interfaces = in.getShort() & 0xFFFF;
+        in.position(in.position() + 2 * interfaces);
+        int fields = in.getShort() & 0xFFFF;
+        for (int i = 0; i < fields; i++) {
+            in.position(in.position() + 6);
+            skipAttributes(in);
+        }
+        int methods = in.getShort() & 0xFFFF;
+        out.write(bytes, from, in.position() - from);
+
+        for (int i = 0; i < methods; i++) {
+            int start = in.position();
+            in.position(start + 2);
+            boolean constructor = "<init>".equals(utf8.get((in.getShort() & 0xFFFF) - 1));
+            in.position(start + 6);
+            int attributes = in.getShort() & 0xFFFF;
+            out.write(bytes, start, 8);
+            for (int a = 0; a < attributes; a++) {
+                int name = in.getShort() & 0xFFFF;
+                int length = in.getInt();
+                int body = in.position();
+                in.position(body + length);
+                if (constructor && "Code".equals(utf8.get(name - 1))) {
+                    byte[] code = patchCode(bytes, body, utf8, record);
+                    if (code == null) {
+                        return null;
+                    }
+                    out.writeShort(name);
+                    out.writeInt(code.length);
+                    out.write(code);
+                } else {
+                    out.write(bytes, body - 6, length + 6);
+                }
+            }
+        }
+        out.write(bytes, in.position(), bytes.length - in.position());
+        return buffer.toByteArray();
+    }
+
+    /** A constructor's Code attribute body with the call inserted before each return, or null if it has a stack map. */
+    private static byte[] patchCode(byte[] bytes, int body, List<String> utf8, int record) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        in.position(body);
+        int maxStack = in.getShort() & 0xFFFF;
+        int maxLocals = in.getShort() & 0xFFFF;
+        int length = in.getInt();
+        int code = in.position();
+
+        List<Integer> returns = new ArrayList<>();
+        for (int pc = 0; pc < length; pc += length(bytes[code + pc] & 0xFF)) {
+            int op = bytes[code + pc] & 0xFF;
+            if (op == 0xAA || op == 0xAB || op == 0xC4) {
+                // switches and wide are not in any constructor this is for
+                return null;
+            }
+            if (op == RETURN) {
+                returns.add(pc);
+            }
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeShort(Math.max(maxStack, 1));
+        out.writeShort(maxLocals);
+        out.writeInt(length + INSERTED * returns.size());
+        int copied = 0;
+        for (int pc : returns) {
+            out.write(bytes, code + copied, pc - copied);
+            out.writeByte(ALOAD_0);
+            out.writeByte(INVOKESTATIC);
+            out.writeShort(record);
+            copied = pc;
+        }
+        out.write(bytes, code + copied, length - copied);
+        in.position(code + length);
+
+        int handlers = in.getShort() & 0xFFFF;
+        out.writeShort(handlers);
+        for (int i = 0; i < handlers; i++) {
+            out.writeShort(moved(in.getShort() & 0xFFFF, returns));
+            out.writeShort(moved(in.getShort() & 0xFFFF, returns));
+            out.writeShort(moved(in.getShort() & 0xFFFF, returns));
+            out.writeShort(in.getShort());
+        }
+
+        int attributes = in.getShort() & 0xFFFF;
+        out.writeShort(attributes);
+        for (int a = 0; a < attributes; a++) {
+            int name = in.getShort() & 0xFFFF;
+            int size = in.getInt();
+            String kind = utf8.get(name - 1);
+            out.writeShort(name);
+            out.writeInt(size);
+            switch (kind) {
+                case "StackMapTable" -> {
+                    return null;
+                }
+                case "LineNumberTable" -> {
+                    int n = in.getShort() & 0xFFFF;
+                    out.writeShort(n);
+                    for (int i = 0; i < n; i++) {
+                        out.writeShort(moved(in.getShort() & 0xFFFF, returns));
+                        out.writeShort(in.getShort());
+                    }
+                }
+                case "LocalVariableTable", "LocalVariableTypeTable" -> {
+                    int n = in.getShort() & 0xFFFF;
+                    out.writeShort(n);
+                    for (int i = 0; i < n; i++) {
+                        int start = in.getShort() & 0xFFFF;
+                        int span = in.getShort() & 0xFFFF;
+                        out.writeShort(moved(start, returns));
+                        out.writeShort(moved(start + span, returns) - moved(start, returns));
+                        out.writeInt(in.getInt());
+                        out.writeShort(in.getShort());
+                    }
+                }
+                default -> {
+                    out.write(bytes, in.position(), size);
+                    in.position(in.position() + size);
+                }
+            }
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Where an offset of the original code is once the calls are
+     * inserted; one at a return stays at the start of the inserted call,
+     * so a line or handler covering the return covers the call too.
+     */
+    private static int moved(int pc, List<Integer> returns) {
+        int shift = 0;
+        for (int r : returns) {
+            if (r < pc) {
+                shift += INSERTED;
+            }
+        }
+        return pc + shift;
+    }
+
+    /** Length of an instruction other than tableswitch, lookupswitch and wide. */
+    private static int length(int op) {
+        if (op == 0x10 || op == 0x12 || op >= 0x15 && op <= 0x19 || op >= 0x36 && op <= 0x3A || op == 0xA9 || op == 0xBC) {
+            return 2;
+        }
+        if (op == 0x11 || op == 0x13 || op == 0x14 || op == 0x84 || op >= 0x99 && op <= 0xA8
+                || op >= 0xB2 && op <= 0xB8 || op == 0xBB || op == 0xBD || op == 0xC0 || op == 0xC1 || op == 0xC6 || op == 0xC7) {
+            return 3;
+        }
+        if (op == 0xC5) {
+            return 4;
+        }
+        if (op == 0xB9 || op == 0xBA || op == 0xC8 || op == 0xC9) {
+            return 5;
+        }
+        return 1;
+    }
+
+    private static void skipAttributes(ByteBuffer in) {
+        int n = in.getShort() & 0xFFFF;
+        for (int i = 0; i < n; i++) {
+            in.position(in.position() + 2);
+            int length = in.getInt();
+            in.position(in.position() + length);
+        }
+    }
+}
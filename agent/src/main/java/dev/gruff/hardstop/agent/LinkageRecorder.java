@@ -0,0 +1,176 @@
+package dev.gruff.hardstop.agent;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ring buffer the patched constructors of java.lang.LinkageError hand
+ * every new error to, and the thread that drains it to the log.
+ *
+ * This class is loaded by the bootstrap loader, since that is the only
+ * loader LinkageError can see, and so touches nothing outside java.base.
+ * Recording is lock-free: a writer claims a sequence number with one
+ * atomic increment and publishes the error into the slot it maps to, and
+ * nothing else happens on the thread that hit the error. Reading the
+ * stack trace and message and writing the log line are left to the
+ * drain thread, which wakes every {@link #INTERVAL_MS} ms. If errors
+ * come faster than it drains, the oldest are overwritten and counted as
+ * dropped rather than making writers wait.
+ *
+ * Each log line is the time, the error, the method whose instruction
+ * failed and the message, which for an error the JVM throws names the
+ * class, method or field it could not link, for example
+ * <pre>
+ * 1729252335120 NoSuchMethodError TestMethodRemoved.testMethodRemoved(TestMethodRemoved.java:14) 'void dev.gruff.hardstop.testcases.apicheck.MethodRemoved.removedMethod()'
+ * </pre>
+ */
+public final class LinkageRecorder {
+
+    /** How often the drain thread empties the ring. */
+    static final long INTERVAL_MS = 200;
+
+    /** One recorded error, when it was made and the sequence number it was published under. */
+    private record Entry(long seq, long millis, LinkageError error) {
+    }
+
+    private static final String INVOKE = "java.lang.invoke.";
+
+    private static final AtomicLong NEXT = new AtomicLong();
+
+    private static volatile AtomicReferenceArray<Entry> slots;
+    private static int mask;
+    private static BufferedWriter log;
+    private static Path file;
+    private static long read;
+    private static long written;
+    private static long dropped;
+
+    private LinkageRecorder() {
+    }
+
+    /**
+     * Records an error; called from every constructor of LinkageError,
+     * once the message and stack trace are set. Only an
+     * IncompatibleClassChangeError, which covers the missing and changed
+     * members, or a NoClassDefFoundError is kept: those are what a
+     * library changed under its client raises, while the other linkage
+     * errors, such as an ExceptionInInitializerError an application
+     * catches, are not about linking against the wrong version. Does
+     * nothing until the agent has started the recorder.
+     */
+    public static void record(LinkageError error) {
+        AtomicReferenceArray<Entry> ring = slots;
+        if (ring == null || !(error instanceof IncompatibleClassChangeError || error instanceof NoClassDefFoundError)) {
+            return;
+        }
+        long seq = NEXT.getAndIncrement();
+        ring.lazySet((int) seq & mask, new Entry(seq, System.currentTimeMillis(), error));
+    }
+
+    /**
+     * Opens the log for appending and starts the drain thread, which
+     * also drains once more when the JVM shuts down.
+     *
+     * @param capacity errors held before the oldest are overwritten, rounded up to a power of two
+     */
+    public static synchronized void start(Path logFile, int capacity) throws IOException {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        file = logFile;
+        log = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        mask = size - 1;
+        slots = new AtomicReferenceArray<>(size);
+
+        // the entry class is loaded here rather than while some class is failing to link
+        new Entry(-1, 0, null).seq();
+        Thread drainer = new Thread(() -> {
+            while (true) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(INTERVAL_MS));
+                drain();
+            }
+        }, "hardstop-linkage-recorder");
+        drainer.setDaemon(true);
+        drainer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(LinkageRecorder::close, "hardstop-linkage-recorder-close"));
+    }
+
+    /** Writes out every error published since the last drain. */
+    static synchronized void drain() {
+        if (log == null) {
+            return;
+        }
+        long head = NEXT.get();
+        if (head - read > slots.length()) {
+            dropped += head - read - slots.length();
+            read = head - slots.length();
+        }
+        try {
+            for (; read < head; read++) {
+                Entry entry = slots.get((int) read & mask);
+                if (entry == null || entry.seq() < read) {
+                    // claimed but not published yet; pick it up next time
+                    break;
+                }
+                if (entry.seq() > read) {
+                    // overwritten by a writer that lapped the drain
+                    dropped++;
+                    continue;
+                }
+                String line = line(entry.error());
+                if (line != null) {
+                    log.write(entry.millis() + " " + line);
+                    log.newLine();
+                    written++;
+                }
+            }
+            log.flush();
+        } catch (IOException e) {
+            System.err.println("hardstop: cannot write " + file + ": " + e);
+            log = null;
+        }
+    }
+
+    private static synchronized void close() {
+        drain();
+        if (log == null) {
+            return;
+        }
+        try {
+            if (dropped > 0) {
+                log.write(System.currentTimeMillis() + " dropped " + dropped);
+                log.newLine();
+            }
+            log.close();
+        } catch (IOException e) {
+            System.err.println("hardstop: cannot write " + file + ": " + e);
+        }
+        log = null;
+        System.err.println("hardstop: " + written + " linkage errors recorded in " + file
+                + (dropped > 0 ? ", " + dropped + " dropped" : ""));
+    }
+
+    /**
+     * The error, the method that failed and the message, space separated;
+     * null for an error raised while java.lang.invoke resolves a method
+     * handle. Those it handles itself, falling back or turning them into
+     * the ReflectiveOperationException the caller sees, and it raises
+     * them routinely while looking for its own pregenerated forms.
+     */
+    private static String line(LinkageError error) {
+        StackTraceElement[] trace = error.getStackTrace();
+        if (trace.length > 0 && trace[0].getClassName().startsWith(INVOKE)) {
+            return null;
+        }
+        String message = error.getMessage() == null ? "" : " " + error.getMessage().replace('\n', ' ');
+        String where = trace.length == 0 ? "?" : trace[0].getClassName() + "." + trace[0].getMethodName()
+                + "(" + trace[0].getFileName() + ":" + trace[0].getLineNumber() + ")";
+        return error.getClass().getSimpleName() + " " + where + message;
+    }
+}
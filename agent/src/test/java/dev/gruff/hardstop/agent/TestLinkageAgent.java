@@ -0,0 +1,126 @@
+package dev.gruff.hardstop.agent;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The patch made to java.lang.LinkageError, and what the recorder keeps.
+ *
+ * A class of java.lang cannot be defined outside the bootstrap loader,
+ * so the patched bytes are defined under another name, with the call to
+ * the recorder pointed at {@link Probe}. The verifier still checks every
+ * patched constructor, and each one must reach the probe once.
+ */
+public class TestLinkageAgent {
+
+    private static final String PATCHED = "dev.gruff.hardstop.agent.PatchedLinkageError";
+
+    /** Stands in for {@link LinkageRecorder#record} in the renamed class. */
+    public static final class Probe {
+
+        static final List<Object> RECORDED = new ArrayList<>();
+
+        public static void record(Object error) {
+            RECORDED.add(error);
+        }
+    }
+
+    @Test
+    public void testEveryConstructorOfThePatchedClassReachesTheRecorder() throws Exception {
+        byte[] bytes = Files.readAllBytes(Path.of(URI.create("jrt:/java.base/java/lang/LinkageError.class")));
+        byte[] patched = LinkageAgent.patch(bytes);
+        assertNotNull(patched, "LinkageError left unpatched");
+        byte[] renamed = rename(patched, Map.of(
+                "java/lang/LinkageError", PATCHED.replace('.', '/'),
+                "dev/gruff/hardstop/agent/LinkageRecorder", Probe.class.getName().replace('.', '/'),
+                "(Ljava/lang/LinkageError;)V", "(Ljava/lang/Object;)V"));
+        ClassLoader loader = new ClassLoader(getClass().getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                if (!name.equals(PATCHED)) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, renamed, 0, renamed.length);
+            }
+        };
+        Class<?> type = loader.loadClass(PATCHED);
+
+        Probe.RECORDED.clear();
+        Object none = type.getConstructor().newInstance();
+        Object message = type.getConstructor(String.class).newInstance("gone");
+        Object cause = type.getConstructor(String.class, Throwable.class).newInstance("gone", new RuntimeException());
+        assertEquals(3, Probe.RECORDED.size(), Probe.RECORDED.toString());
+        assertSame(none, Probe.RECORDED.get(0));
+        assertSame(message, Probe.RECORDED.get(1));
+        assertSame(cause, Probe.RECORDED.get(2));
+        assertEquals("gone", ((Throwable) Probe.RECORDED.get(1)).getMessage());
+    }
+
+    @Test
+    public void testOnlyErrorsOfLinkingAgainstAChangedClassAreLogged(@TempDir Path dir) throws IOException {
+        Path log = dir.resolve("linkage-errors.log");
+        LinkageRecorder.start(log, 16);
+        LinkageRecorder.record(new NoSuchMethodError("'void lib.Lib.gone()'"));
+        LinkageRecorder.record(new ExceptionInInitializerError("static init"));
+        LinkageRecorder.record(new NoClassDefFoundError("lib/Gone"));
+        LinkageRecorder.record(new UnsatisfiedLinkError("no native"));
+        LinkageRecorder.record(new AbstractMethodError("lib.Lib.run()"));
+        LinkageRecorder.drain();
+
+        List<String> lines = Files.readAllLines(log);
+        assertEquals(3, lines.size(), lines.toString());
+        assertTrue(lines.get(0).matches("\\d+ NoSuchMethodError .*TestLinkageAgent.* 'void lib.Lib.gone\\(\\)'"), lines.get(0));
+        assertTrue(lines.get(1).contains(" NoClassDefFoundError "), lines.get(1));
+        assertTrue(lines.get(2).contains(" AbstractMethodError "), lines.get(2));
+    }
+
+    /** The class file with every Utf8 constant that is a key of the map replaced by its value. */
+    private static byte[] rename(byte[] bytes, Map<String, String> names) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length);
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeLong(in.readLong());
+        int count = in.readUnsignedShort();
+        out.writeShort(count);
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            out.writeByte(tag);
+            switch (tag) {
+                case 1 -> {
+                    String s = in.readUTF();
+                    out.writeUTF(names.getOrDefault(s, s));
+                }
+                case 3, 4, 9, 10, 11, 12, 17, 18 -> out.writeInt(in.readInt());
+                case 5, 6 -> {
+                    out.writeLong(in.readLong());
+                    i++;
+                }
+                case 7, 8, 16, 19, 20 -> out.writeShort(in.readUnsignedShort());
+                case 15 -> {
+                    out.writeByte(in.readUnsignedByte());
+                    out.writeShort(in.readUnsignedShort());
+                }
+                default -> throw new IOException("unknown constant pool tag " + tag);
+            }
+        }
+        in.transferTo(out);
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,71 @@
+package dev.gruff.hardstop.analyser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses every class of a jar once per invocation, in each reader mode.
+ *
+ * The classes are inflated up front, so the numbers are the parser's
+ * alone: the difference between the two is what skipping method bodies
+ * by their length saves over copying them out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassReaderBenchmark {
+
+    /** The jar to parse, given with -p jar=... */
+    @Param("")
+    public String jar;
+
+    private List<byte[]> classes;
+
+    @Setup
+    public void inflate() throws IOException {
+        classes = new ArrayList<>();
+        try (JarReader reader = JarReader.open(Path.of(jar))) {
+            for (JarReader.Entry entry : reader.entries()) {
+                if (entry.name().endsWith(".class") && !entry.name().startsWith("META-INF/")) {
+                    classes.add(reader.bytes(entry));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void api(Blackhole blackhole) {
+        parse(ClassReader.Mode.API, blackhole);
+    }
+
+    @Benchmark
+    public void full(Blackhole blackhole) {
+        parse(ClassReader.Mode.FULL, blackhole);
+    }
+
+    private void parse(ClassReader.Mode mode, Blackhole blackhole) {
+        for (byte[] bytes : classes) {
+            blackhole.consume(ClassReader.read(ByteBuffer.wrap(bytes), mode));
+        }
+    }
+}
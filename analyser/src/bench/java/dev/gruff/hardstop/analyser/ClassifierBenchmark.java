@@ -0,0 +1,69 @@
+package dev.gruff.hardstop.analyser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classifies a jar against itself on a pool of each size.
+ *
+ * The jar is read twice, without the first as the base of the second,
+ * so no class is carried over and every detector looks at every pair:
+ * the work of a release that touched every class. A package of more than
+ * {@link Classifier#RUN} classes is cut into runs of that many, so one
+ * large package does not hold up the rest: Guava's 1018 API classes make
+ * 43 tasks of at most 32 classes, where com.google.common.collect alone
+ * used to be one task of 438.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassifierBenchmark {
+
+    /** The jar to classify, given with -p jar=... */
+    @Param("")
+    public String jar;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private ApiModel before;
+    private ApiModel after;
+    private ForkJoinPool pool;
+    private Classifier classifier;
+
+    @Setup
+    public void read() {
+        before = ApiModel.read(Path.of(jar));
+        after = ApiModel.read(Path.of(jar));
+        pool = new ForkJoinPool(threads);
+        classifier = new Classifier(pool);
+    }
+
+    @TearDown
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<Finding> classify() {
+        return classifier.classify(before, after);
+    }
+}
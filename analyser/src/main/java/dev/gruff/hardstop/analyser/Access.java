@@ -0,0 +1,58 @@
+package dev.gruff.hardstop.analyser;
+
+/**
+ * Access flags as they appear in class files, and the visibility order used to decide whether access was reduced.
+ */
+public final class Access {
+
+    public static final int PUBLIC = 0x0001;
+    public static final int PRIVATE = 0x0002;
+    public static final int PROTECTED = 0x0004;
+    public static final int STATIC = 0x0008;
+    public static final int FINAL = 0x0010;
+    public static final int SUPER = 0x0020;
+    public static final int SYNCHRONIZED = 0x0020;
+    public static final int BRIDGE = 0x0040;
+    public static final int VOLATILE = 0x0040;
+    public static final int TRANSIENT = 0x0080;
+    public static final int NATIVE = 0x0100;
+    public static final int INTERFACE = 0x0200;
+    public static final int ABSTRACT = 0x0400;
+    public static final int STRICT = 0x0800;
+    public static final int SYNTHETIC = 0x1000;
+    public static final int ANNOTATION = 0x2000;
+    public static final int ENUM = 0x4000;
+    public static final int MODULE = 0x8000;
+
+    private Access() {
+    }
+
+    /**
+     * 3 for public, 2 protected, 1 package, 0 private, so a smaller number after a change means access was reduced.
+     */
+    public static int visibility(int access) {
+        if ((access & PUBLIC) != 0) {
+            return 3;
+        }
+        if ((access & PROTECTED) != 0) {
+            return 2;
+        }
+        if ((access & PRIVATE) != 0) {
+            return 0;
+        }
+        return 1;
+    }
+
+    public static String describe(int visibility) {
+        return switch (visibility) {
+            case 3 -> "public";
+            case 2 -> "protected";
+            case 1 -> "package-private";
+            default -> "private";
+        };
+    }
+
+    public static boolean is(int access, int flag) {
+        return (access & flag) != 0;
+    }
+}
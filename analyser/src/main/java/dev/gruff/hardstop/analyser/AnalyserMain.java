@@ -0,0 +1,169 @@
+package dev.gruff.hardstop.analyser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Command line entry point for {@link Classifier}.
+ *
+ * <pre>
+ * java -cp analyser.jar dev.gruff.hardstop.analyser.AnalyserMain \
+ *     v1/target/v1-1.0.0.jar v2/target/v2-2.0.0.jar [-c tests/target/test-classes] [-o stored.ser] [-s DEI] [-q] [-j 16]
+ * </pre>
+ *
+ * One line is printed per finding: section, phase, certainty, shielding,
+ * the spec row, where it was found and what changed. The shielding is
+ * the one {@link ShieldingEvaluator} works out for that finding, which
+ * may be less than its row allows. Classes whose jar entry has the same
+ * CRC and size in both versions are read once and counted in the
+ * summary. The exit code is 1 if any always-fail row was found, which
+ * normative rule 1 makes incompatible.
+ *
+ * -c names a compiled client, a jar or class directory. The certainty D
+ * rows on classes and members it does not use are dropped, and what of
+ * the client breaks is listed: classes holding stale copies of constants
+ * that changed; switches that new, removed or reordered enum constants
+ * and permitted subclasses break; constructor calls, getter and setter
+ * calls and field accesses that a record's changed components or a bean
+ * turned record break; annotations that reflection no longer sees or
+ * cannot complete; and classes the new version's sealed types no longer
+ * let load.
+ *
+ * -o names a serialization stream the old version wrote, and may be
+ * given more than once. {@link StreamValidator} checks each against the
+ * new version's classes without deserializing it, and lists what would
+ * fail or lose data reading it.
+ *
+ * -s keeps only the given sections.
+ *
+ * -q prints the summary alone.
+ *
+ * -j sets how many threads classify packages in parallel, by default
+ * the common pool's.
+ */
+public class AnalyserMain {
+
+    public static void main(String[] args) {
+        Path before = null;
+        Path after = null;
+        Path client = null;
+        List<Path> streams = new ArrayList<>();
+        String sections = null;
+        boolean quiet = false;
+        int threads = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-c", "--client" -> client = Path.of(args[++i]);
+                case "-o", "--stream" -> streams.add(Path.of(args[++i]));
+                case "-s", "--sections" -> sections = args[++i].toUpperCase();
+                case "-q", "--quiet" -> quiet = true;
+                case "-j", "--threads" -> threads = Integer.parseInt(args[++i]);
+                default -> {
+                    if (args[i].startsWith("-")) {
+                        System.err.println("unknown argument " + args[i]);
+                        usage();
+                        return;
+                    }
+                    if (before == null) {
+                        before = Path.of(args[i]);
+                    } else if (after == null) {
+                        after = Path.of(args[i]);
+                    } else {
+                        usage();
+                        return;
+                    }
+                }
+            }
+        }
+        if (before == null || after == null) {
+            usage();
+            return;
+        }
+
+        long start = System.nanoTime();
+        ApiModel old = ApiModel.read(before);
+        ApiModel now = ApiModel.read(after, old);
+        ClientUsage usage = client == null ? null : ClientUsage.read(client);
+        long read = System.nanoTime();
+        ForkJoinPool pool = threads > 0 ? new ForkJoinPool(threads) : ForkJoinPool.commonPool();
+        List<Finding> findings = new Classifier(pool).classify(old, now);
+        int unused = 0;
+        if (usage != null) {
+            List<Finding> used = usage.filter(findings, old, now);
+            unused = findings.size() - used.size();
+            findings = used;
+        }
+        long classified = System.nanoTime();
+
+        String only = sections;
+        List<Finding> shown = findings.stream().filter(f -> only == null || only.indexOf(f.rule().section()) >= 0).toList();
+        ShieldingEvaluator shielding = new ShieldingEvaluator(old, now);
+        long shielded = 0;
+        for (Finding f : shown) {
+            Rule.Shielding actual = shielding.evaluate(f);
+            if (actual == Rule.Shielding.FULL) {
+                shielded++;
+            }
+            if (!quiet) {
+                System.out.println(f.toString(actual));
+            }
+        }
+        if (usage != null && !quiet) {
+            for (ClientUsage.StaleCopy copy : usage.staleCopies(old, now)) {
+                System.out.println("stale copy of " + copy.field() + " = " + quote(copy.value())
+                        + (copy.now() == null ? "" : " (now " + quote(copy.now()) + ")") + " in "
+                        + copy.classes().stream().sorted().map(Descriptors::binaryName).toList());
+            }
+            for (SwitchSites.Break broken : usage.switches().check(old, now)) {
+                System.out.println(broken);
+            }
+            for (RecordSites.Break broken : usage.records().check(old, now)) {
+                System.out.println(broken);
+            }
+            for (AnnotationIndex.Break broken : usage.annotations().check(old, now)) {
+                System.out.println(broken);
+            }
+            for (SealedChecker.Violation violation : new SealedChecker(List.of(client, after)).violations()) {
+                System.out.println(violation);
+            }
+        }
+        for (Path stream : streams) {
+            StreamValidator validator = new StreamValidator(now);
+            try (InputStream in = Files.newInputStream(stream)) {
+                List<StreamValidator.Problem> problems = validator.validate(in);
+                if (!quiet) {
+                    problems.forEach(System.out::println);
+                }
+                System.out.println(stream + ": " + problems.size() + " problems in " + validator.objects()
+                        + " objects of " + validator.classes() + " classes");
+            } catch (IOException e) {
+                System.out.println(stream + ": unreadable, " + e.getMessage());
+            }
+        }
+        long always = shown.stream().filter(f -> f.rule().alwaysFails()).count();
+        long runtime = shown.stream().filter(f -> f.rule().runtimeOnly()).count();
+        System.out.println(shown.size() + " findings, " + always + " always fail, " + runtime + " runtime only, "
+                + shielded + " fully shielded; "
+                + old + " -> " + now + ", " + now.reused() + " unchanged classes not parsed"
+                + (usage == null ? "" : ", " + unused + " rows the client does not use dropped") + "; read in "
+                + (read - start) / 1_000_000 + " ms, classified in "
+                + (classified - read) / 1_000_000 + " ms");
+        if (always > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static String quote(Object value) {
+        return value instanceof String ? '"' + value.toString() + '"' : String.valueOf(value);
+    }
+
+    private static void usage() {
+        System.err.println("usage: AnalyserMain <old jar or classes> <new jar or classes> [-c <client>] [-o <stream>] [-s <sections>] [-q] [-j <threads>]");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,29 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.Map;
+
+/**
+ * One annotation on a class, field or method.
+ *
+ * Element values are Integer, Long, Float, Double or String for constants
+ * (booleans, bytes, chars and shorts are stored as Integer, as in the class
+ * file), {@link EnumConstant} for enums, a descriptor String for class
+ * literals, a List for arrays and a nested Annotation for annotations.
+ *
+ * @param type    descriptor of the annotation type, e.g. Ljava/lang/annotation/Retention;
+ * @param visible true for RuntimeVisibleAnnotations, false for RuntimeInvisibleAnnotations
+ * @param values  element name to value, only the elements written in the class file
+ */
+public record Annotation(String type, boolean visible, Map<String, Object> values) {
+
+    public record EnumConstant(String type, String name) {
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    public Object value(String element) {
+        return values.get(element);
+    }
+}
@@ -0,0 +1,55 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.function.Consumer;
+
+/**
+ * Section K: annotation types whose instances stop working for code that reads them reflectively.
+ */
+final class AnnotationDetector implements Detector {
+
+    private static final String RETENTION = "Ljava/lang/annotation/Retention;";
+
+    @Override
+    public char section() {
+        return 'K';
+    }
+
+    @Override
+    public void detect(Comparison comparison, Consumer<Finding> findings) {
+        for (Comparison.Pair pair : comparison.common()) {
+            if (pair.unchanged()) {
+                continue;
+            }
+            ClassFile was = pair.before();
+            ClassFile now = pair.after();
+            if (!was.isAnnotation() || !now.isAnnotation()) {
+                continue;
+            }
+            for (Member m : now.methods()) {
+                if (!m.isAbstract() || m.hasDefault()) {
+                    continue;
+                }
+                Member old = was.method(m);
+                if (old == null) {
+                    findings.accept(Finding.of(Rule.ANNOTATION_ELEMENT_WITHOUT_DEFAULT, was, m,
+                            "existing uses have no value for it"));
+                } else if (old.hasDefault()) {
+                    findings.accept(Finding.of(Rule.ANNOTATION_ELEMENT_WITHOUT_DEFAULT, was, m,
+                            "default removed, uses that relied on it have no value for it"));
+                }
+            }
+            String old = retention(was);
+            String current = retention(now);
+            if (!old.equals(current)) {
+                findings.accept(Finding.of(Rule.RETENTION_CHANGED, was, old + " -> " + current));
+            }
+        }
+    }
+
+    /** The retention policy, CLASS when the annotation type does not declare one. */
+    static String retention(ClassFile annotation) {
+        Annotation retention = annotation.annotation(RETENTION);
+        Object value = retention == null ? null : retention.value("value");
+        return value == null ? "CLASS" : value.toString();
+    }
+}
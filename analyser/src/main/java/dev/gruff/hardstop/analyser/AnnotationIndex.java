@@ -0,0 +1,195 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every annotation on the classes, fields and methods of a set of class
+ * files, by annotation type, so that who uses a type is one map lookup.
+ *
+ * Whether an annotation still works is decided by its type's declaration
+ * at run time, not when the annotated code was compiled: reflection skips
+ * an annotation whose type is gone or no longer has RUNTIME retention,
+ * and an element the use gives no value for and the type gives no
+ * default throws IncompleteAnnotationException when read. Diffing the two
+ * versions' declarations tells which types changed; the index then lists
+ * the uses each change reaches without scanning anything again. Only
+ * RuntimeVisible annotations are checked, those being the ones
+ * reflection reads; parameter annotations are not indexed.
+ *
+ * The index is filled by {@link ClientUsage} in its one pass over a
+ * client, or from classes already read with {@link #of(Collection)}.
+ */
+public final class AnnotationIndex {
+
+    /**
+     * One annotation where it is used.
+     *
+     * @param owner  internal name of the annotated class, or of the class declaring the annotated member
+     * @param member the member as name(params) or name: type, null for the class itself
+     */
+    public record Use(String owner, String member, Annotation annotation) {
+
+        @Override
+        public String toString() {
+            return "@" + Descriptors.simpleName(type(annotation.type())) + " on " + Descriptors.binaryName(owner)
+                    + (member == null ? "" : "#" + member);
+        }
+    }
+
+    /**
+     * An annotation type's declaration as reflection reads it.
+     *
+     * @param retention RUNTIME, CLASS or SOURCE
+     * @param elements  element name to its return type descriptor
+     * @param defaults  names of the elements that declare a default
+     */
+    public record Declaration(String type, String retention, Map<String, String> elements, List<String> defaults) {
+
+        /** The declaration of an annotation type, or null if the class is not one. */
+        public static Declaration of(ClassFile type) {
+            if (!type.isAnnotation()) {
+                return null;
+            }
+            Map<String, String> elements = new LinkedHashMap<>();
+            List<String> defaults = new ArrayList<>();
+            for (Member m : type.methods()) {
+                if (m.isAbstract()) {
+                    elements.put(m.name(), m.descriptor().substring(2));
+                    if (m.hasDefault()) {
+                        defaults.add(m.name());
+                    }
+                }
+            }
+            return new Declaration(type.name(), AnnotationDetector.retention(type), elements, defaults);
+        }
+    }
+
+    /**
+     * A use the later version's declaration breaks.
+     *
+     * @param problem what reflection does with it now
+     */
+    public record Break(Use use, String problem) {
+
+        @Override
+        public String toString() {
+            return use + " " + problem;
+        }
+    }
+
+    private static final String RUNTIME = "RUNTIME";
+
+    private final Map<String, List<Use>> uses = new HashMap<>();
+    private int size;
+
+    AnnotationIndex() {
+    }
+
+    /** Indexes classes already read. */
+    public static AnnotationIndex of(Collection<ClassFile> classes) {
+        AnnotationIndex index = new AnnotationIndex();
+        classes.forEach(index::add);
+        return index;
+    }
+
+    /** The uses of an annotation type, given by internal or binary name; empty if it has none. */
+    public List<Use> uses(String type) {
+        return uses.getOrDefault(type.replace('.', '/'), List.of());
+    }
+
+    /** Internal names of the annotation types used. */
+    public Collection<String> types() {
+        return uses.keySet();
+    }
+
+    /** Number of uses indexed. */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The visible uses of every library annotation type whose declaration
+     * changed in a way reflection notices: the type removed, its retention
+     * no longer RUNTIME, an element added or stripped of its default where
+     * the use gives no value, or an element whose type changed or that
+     * was removed where the use gives one.
+     */
+    public List<Break> check(ApiModel before, ApiModel after) {
+        List<Break> broken = new ArrayList<>();
+        uses.forEach((type, found) -> {
+            ClassFile old = before.get(type);
+            Declaration was = old == null ? null : Declaration.of(old);
+            if (was == null || !was.retention().equals(RUNTIME)) {
+                return;
+            }
+            ClassFile current = after.get(type);
+            Declaration now = current == null ? null : Declaration.of(current);
+            for (Use use : found) {
+                if (use.annotation().visible()) {
+                    check(use, was, now, broken);
+                }
+            }
+        });
+        broken.sort((a, b) -> a.use().toString().compareTo(b.use().toString()));
+        return broken;
+    }
+
+    private static void check(Use use, Declaration was, Declaration now, List<Break> broken) {
+        if (now == null) {
+            broken.add(new Break(use, "is gone: reflection drops it, and naming the type throws NoClassDefFoundError"));
+            return;
+        }
+        if (!now.retention().equals(RUNTIME)) {
+            broken.add(new Break(use, "is no longer visible to reflection (retention " + now.retention() + ")"));
+            return;
+        }
+        Map<String, Object> values = use.annotation().values();
+        now.elements().forEach((element, descriptor) -> {
+            if (!values.containsKey(element) && !now.defaults().contains(element)) {
+                broken.add(new Break(use, "has no value for " + element + "(): IncompleteAnnotationException"
+                        + (was.elements().containsKey(element) ? ", whose default is gone" : "")));
+            } else if (values.containsKey(element) && was.elements().containsKey(element)
+                    && !was.elements().get(element).equals(descriptor)) {
+                broken.add(new Break(use, "gives " + element + "() a " + Descriptors.type(was.elements().get(element))
+                        + ", now " + Descriptors.type(descriptor) + ": AnnotationTypeMismatchException"));
+            }
+        });
+        for (String element : values.keySet()) {
+            if (was.elements().containsKey(element) && !now.elements().containsKey(element)) {
+                broken.add(new Break(use, "gives " + element + "() a value that is now ignored"));
+            }
+        }
+    }
+
+    /** Indexes the annotations of a class and its fields and methods. */
+    void add(ClassFile file) {
+        for (Annotation a : file.annotations()) {
+            add(new Use(file.name(), null, a));
+        }
+        for (Member f : file.fields()) {
+            for (Annotation a : f.annotations()) {
+                add(new Use(file.name(), Descriptors.member(f.name(), f.descriptor()), a));
+            }
+        }
+        for (Member m : file.methods()) {
+            for (Annotation a : m.annotations()) {
+                add(new Use(file.name(), Descriptors.member(m.name(), m.descriptor()), a));
+            }
+        }
+    }
+
+    private void add(Use use) {
+        uses.computeIfAbsent(type(use.annotation().type()), k -> new ArrayList<>()).add(use);
+        size++;
+    }
+
+    /** Internal name from an annotation's type descriptor. */
+    private static String type(String descriptor) {
+        return descriptor.substring(1, descriptor.length() - 1);
+    }
+}
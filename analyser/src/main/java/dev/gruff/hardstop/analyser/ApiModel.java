@@ -0,0 +1,274 @@
+package dev.gruff.hardstop.analyser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Every class of one library version, plus the lookups that follow the
+ * JVM's own resolution rules across them.
+ *
+ * Supertypes that are not part of the library are looked up in the
+ * running JDK, so a chain ending in java.lang.Exception or an interface
+ * such as java.lang.Runnable resolves as it would at link time. Anything
+ * found in neither ends the search. Each class's closure and member
+ * tables are worked out once and kept in its {@link Hierarchy}.
+ */
+public final class ApiModel {
+
+    /**
+     * A member together with the class that declares it.
+     */
+    public record Resolved(ClassFile owner, Member member) {
+    }
+
+    /**
+     * Where a class came from in its jar: the entry's CRC-32 and size, packed into one long.
+     */
+    private record Source(long checksum, ClassFile file) {
+    }
+
+    private final String label;
+    private final Map<String, ClassFile> classes;
+    private final ModuleInfo module;
+    private final Map<String, Source> sources;
+    private final int reused;
+    private final Hierarchy hierarchy;
+    private final Map<String, Long> defaultUids;
+
+    private ApiModel(String label, Map<String, ClassFile> classes, ModuleInfo module, Map<String, Source> sources, int reused,
+                     ApiModel base) {
+        this.label = label;
+        this.classes = classes;
+        this.module = module;
+        this.sources = sources;
+        this.reused = reused;
+        this.hierarchy = new Hierarchy(this, base == null ? null : base.hierarchy);
+        this.defaultUids = base == null ? new ConcurrentHashMap<>() : base.defaultUids;
+    }
+
+    /**
+     * Reads all class files of a jar or class directory. Jars are mapped
+     * and inflated through {@link JarReader}, so only the constant pools of
+     * their classes end up on the heap.
+     */
+    public static ApiModel read(Path path) {
+        return read(path, null);
+    }
+
+    /**
+     * Reads a jar or class directory, taking from the base every class
+     * whose jar entry has the same CRC-32 and size in both jars. Those
+     * entries are neither inflated nor parsed: between adjacent versions of
+     * a library most classes are byte for byte the same, and the base
+     * already holds them. A CRC collision between two entries of the same
+     * size would hide a change; for class files that differ this is about
+     * one chance in four billion.
+     *
+     * @param base an earlier version read from a jar, or null to read everything
+     */
+    public static ApiModel read(Path path, ApiModel base) {
+        List<ClassFile> files = new ArrayList<>();
+        Map<String, Source> sources = new HashMap<>();
+        int reused = 0;
+        try {
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> walk = Files.walk(path)) {
+                    for (Path file : (Iterable<Path>) walk.filter(p -> p.toString().endsWith(".class"))::iterator) {
+                        byte[] bytes = Files.readAllBytes(file);
+                        CRC32 crc = new CRC32();
+                        crc.update(bytes);
+                        ClassFile type = ClassReader.read(bytes);
+                        files.add(type);
+                        sources.put(type.name() + ".class", new Source((long) (int) crc.getValue() << 32 | bytes.length, type));
+                    }
+                }
+            } else {
+                try (JarReader jar = JarReader.open(path)) {
+                    for (JarReader.Entry entry : jar.entries()) {
+                        if (entry.isDirectory() || !entry.name().endsWith(".class") || entry.name().startsWith("META-INF/")) {
+                            continue;
+                        }
+                        long checksum = (long) entry.crc() << 32 | entry.size();
+                        Source same = base == null ? null : base.sources.get(entry.name());
+                        ClassFile file;
+                        if (same != null && same.checksum() == checksum) {
+                            file = same.file();
+                            reused++;
+                        } else {
+                            file = jar.read(entry, ClassReader::readDetached);
+                        }
+                        files.add(file);
+                        sources.put(entry.name(), new Source(checksum, file));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot read " + path, e);
+        }
+        return of(path.getFileName().toString(), files, sources, reused, base);
+    }
+
+    public static ApiModel of(String label, Collection<ClassFile> files) {
+        return of(label, files, Map.of(), 0, null);
+    }
+
+    private static ApiModel of(String label, Collection<ClassFile> files, Map<String, Source> sources, int reused, ApiModel base) {
+        Map<String, ClassFile> classes = new TreeMap<>();
+        ModuleInfo module = null;
+        for (ClassFile file : files) {
+            if (file.isModule()) {
+                module = file.module();
+            } else {
+                classes.put(file.name(), file);
+            }
+        }
+        return new ApiModel(label, classes, module, sources, reused, base);
+    }
+
+    public String label() {
+        return label;
+    }
+
+    /** Classes taken unparsed from the base this model was read against, 0 if it had none. */
+    public int reused() {
+        return reused;
+    }
+
+    /** All classes, ordered by name. */
+    public Collection<ClassFile> classes() {
+        return classes.values();
+    }
+
+    public int size() {
+        return classes.size();
+    }
+
+    /** The class in this library, or null. */
+    public ClassFile get(String name) {
+        return classes.get(name);
+    }
+
+    /**
+     * The CRC-32 and size of the class's bytes packed into one long, as
+     * its jar entry or class file gave them; 0 if it was not read from either.
+     */
+    long checksum(ClassFile type) {
+        Source source = sources.get(type.name() + ".class");
+        return source != null && source.file() == type ? source.checksum() : 0;
+    }
+
+    /**
+     * Default serialVersionUIDs worked out so far, by class name and
+     * {@link #checksum}. Shared with the base this model was read against,
+     * whose carried-over classes need not be hashed again.
+     */
+    Map<String, Long> defaultUids() {
+        return defaultUids;
+    }
+
+    /** The supertype closures and member tables computed for this model so far. */
+    Hierarchy hierarchy() {
+        return hierarchy;
+    }
+
+    /** The module descriptor, null for a jar without module-info.class. */
+    public ModuleInfo module() {
+        return module;
+    }
+
+    /** The class in this library or, failing that, in the JDK; null if neither has it. */
+    public ClassFile resolve(String name) {
+        if (name == null) {
+            return null;
+        }
+        ClassFile file = classes.get(name);
+        return file != null ? file : PlatformClasses.get(name);
+    }
+
+    /** Superclasses from the direct one upwards, as far as they can be resolved. */
+    public List<ClassFile> superclasses(ClassFile type) {
+        return hierarchy.of(type).superclasses;
+    }
+
+    /** Names of the superclasses, including unresolved ones at the top of the chain. */
+    public List<String> superclassNames(ClassFile type) {
+        return hierarchy.of(type).superclassNames;
+    }
+
+    /** Every interface the type implements, directly, through other interfaces or through its superclasses. */
+    public Set<String> interfaces(ClassFile type) {
+        return hierarchy.of(type).interfaces;
+    }
+
+    /** True when the type is the ancestor or a subtype of it, by class or interface. */
+    public boolean isSubtype(String name, String ancestor) {
+        if (name.equals(ancestor)) {
+            return true;
+        }
+        ClassFile type = resolve(name);
+        return type != null && hierarchy.of(type).ancestors.contains(ancestor);
+    }
+
+    /**
+     * Resolves a method as invokevirtual would (JVMS 5.4.3.3): the class
+     * and its superclasses first, then the maximally specific
+     * superinterface method, preferring a default over an abstract one.
+     *
+     * @return the method and its declaring class, or null
+     */
+    public Resolved findMethod(ClassFile type, String name, String descriptor) {
+        return findMethod(type, Symbols.key(name, descriptor));
+    }
+
+    /** Resolves the method with the same name and descriptor as the given one. */
+    public Resolved findMethod(ClassFile type, Member like) {
+        return findMethod(type, like.id());
+    }
+
+    private Resolved findMethod(ClassFile type, long id) {
+        Hierarchy.Node node = hierarchy.of(type);
+        Resolved found = hierarchy.chainMethods(node).get(id);
+        return found != null ? found : hierarchy.interfaceMethods(node).get(id);
+    }
+
+    /**
+     * Resolves a field as getfield would (JVMS 5.4.3.2): the class, then its
+     * superinterfaces, then its superclass, recursively.
+     *
+     * @return the field and its declaring class, or null
+     */
+    public Resolved findField(ClassFile type, String name, String descriptor) {
+        return findField(type, Symbols.key(name, descriptor));
+    }
+
+    /** Resolves the field with the same name and descriptor as the given one. */
+    public Resolved findField(ClassFile type, Member like) {
+        return findField(type, like.id());
+    }
+
+    private Resolved findField(ClassFile type, long id) {
+        return hierarchy.fields(hierarchy.of(type)).get(id);
+    }
+
+    /** The classes of this library whose direct superclass is the given type. */
+    public List<ClassFile> subclasses(String name) {
+        return hierarchy.subclasses(name);
+    }
+
+    @Override
+    public String toString() {
+        return label + " (" + classes.size() + " classes)";
+    }
+}
@@ -0,0 +1,66 @@
+package dev.gruff.hardstop.analyser;
+
+/**
+ * A Bloom filter over 64-bit hashes: may say a hash was added when it
+ * was not, never the other way round.
+ *
+ * Sized at ten bits per expected entry and probed seven times, which
+ * gives about one false positive in a hundred. The seven positions come
+ * from the two halves of the one hash (Kirsch and Mitzenmacher), so a
+ * probe costs no more hashing than the caller already did.
+ */
+final class BloomFilter {
+
+    private static final int PROBES = 7;
+
+    private final long[] bits;
+    private final int mask;
+
+    BloomFilter(int expected) {
+        int size = Integer.highestOneBit(Math.max(expected, 7) * 10 - 1) << 1;
+        this.bits = new long[size >>> 6];
+        this.mask = size - 1;
+    }
+
+    void add(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < PROBES; i++) {
+            int bit = (h1 + i * h2) & mask;
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < PROBES; i++) {
+            int bit = (h1 + i * h2) & mask;
+            if ((bits[bit >>> 6] & 1L << bit) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Size of the filter in bytes. */
+    int bytes() {
+        return bits.length * Long.BYTES;
+    }
+
+    /** A 64-bit hash of the string, FNV-1a over its chars, different for each salt. */
+    static long hash(String s, long salt) {
+        long h = 0xCBF29CE484222325L ^ salt;
+        for (int i = 0; i < s.length(); i++) {
+            h = (h ^ s.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    /** The finaliser of SplitMix64, which spreads every input bit over the whole result. */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
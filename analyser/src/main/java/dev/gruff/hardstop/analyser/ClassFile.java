@@ -0,0 +1,381 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The API of one class as read from its class file by {@link ClassReader}.
+ *
+ * Names are internal names (dev/gruff/Outer$Inner). Everything a client
+ * can link against is kept: the type's kind, flags and supertypes, its
+ * fields and methods, and the attributes that carry the newer language
+ * rules (sealing, records, nesting, generic signatures and annotations).
+ * Method bodies are kept only when the class was read in
+ * {@link ClassReader.Mode#FULL}; otherwise a detector that needs to know
+ * what a class refers to uses {@link #referencedClasses()}.
+ */
+public final class ClassFile {
+
+    /**
+     * One entry of the Record attribute.
+     */
+    public record RecordComponent(String name, String descriptor, String signature) {
+    }
+
+    /**
+     * One entry of the InnerClasses attribute.
+     *
+     * @param inner      internal name of the nested class
+     * @param outer      internal name of the enclosing class, null for local and anonymous classes
+     * @param simpleName source name, null for anonymous classes
+     * @param access     the flags as written in source, including private, protected and static
+     */
+    public record InnerClass(String inner, String outer, String simpleName, int access) {
+    }
+
+    /**
+     * The Code attribute of one method, as read in {@link ClassReader.Mode#FULL}.
+     *
+     * @param instructions the bytecode, whose operands index this class's constant pool
+     * @param catchTypes   internal names of the exception handlers' catch types, finally blocks left out
+     */
+    public record Code(int maxStack, int maxLocals, byte[] instructions, List<String> catchTypes) {
+    }
+
+    /**
+     * One entry of the BootstrapMethods attribute, as read in {@link ClassReader.Mode#FULL}.
+     *
+     * @param method    constant pool index of the bootstrap method handle
+     * @param arguments constant pool indices of its static arguments
+     */
+    record BootstrapMethod(int method, int[] arguments) {
+    }
+
+    private final int version;
+    private final int access;
+    private final String name;
+    private final String superName;
+    private final List<String> interfaces;
+    private final List<Member> fields;
+    private final List<Member> methods;
+    private final LongMap<Member> fieldIndex;
+    private final LongMap<Member> methodIndex;
+    private final String signature;
+    private final List<String> permittedSubclasses;
+    private final List<RecordComponent> recordComponents;
+    private final List<InnerClass> innerClasses;
+    private final String nestHost;
+    private final String sourceFile;
+    private final List<Annotation> annotations;
+    private final ModuleInfo module;
+    private final LongMap<Code> code;
+    private final List<BootstrapMethod> bootstrapMethods;
+    private final ConstantPool pool;
+
+    ClassFile(int version, int access, String name, String superName, List<String> interfaces,
+              List<Member> fields, List<Member> methods, String signature, List<String> permittedSubclasses,
+              List<RecordComponent> recordComponents, List<InnerClass> innerClasses, String nestHost, String sourceFile,
+              List<Annotation> annotations, ModuleInfo module, List<Code> code, List<BootstrapMethod> bootstrapMethods,
+              ConstantPool pool) {
+        this.version = version;
+        this.access = access;
+        this.name = name;
+        this.superName = superName;
+        this.interfaces = interfaces;
+        this.fields = List.copyOf(fields);
+        this.methods = List.copyOf(methods);
+        this.fieldIndex = new LongMap<>(fields.size());
+        fields.forEach(f -> fieldIndex.putIfAbsent(f.id(), f));
+        this.methodIndex = new LongMap<>(methods.size());
+        methods.forEach(m -> methodIndex.putIfAbsent(m.id(), m));
+        this.signature = signature;
+        this.permittedSubclasses = permittedSubclasses;
+        this.recordComponents = recordComponents;
+        this.innerClasses = innerClasses;
+        this.nestHost = nestHost;
+        this.sourceFile = sourceFile;
+        this.annotations = annotations;
+        this.module = module;
+        this.code = new LongMap<>(code == null ? 0 : code.size());
+        for (int i = 0; code != null && i < code.size(); i++) {
+            if (code.get(i) != null) {
+                this.code.putIfAbsent(methods.get(i).id(), code.get(i));
+            }
+        }
+        this.bootstrapMethods = bootstrapMethods;
+        this.pool = pool;
+    }
+
+    /** Major version of the class file format, 61 for Java 17. */
+    public int version() {
+        return version;
+    }
+
+    /** Access flags of the class file itself; see {@link #declaredAccess()} for nested classes. */
+    public int access() {
+        return access;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String binaryName() {
+        return Descriptors.binaryName(name);
+    }
+
+    public String packageName() {
+        return Descriptors.packageOf(name);
+    }
+
+    /** Internal name of the superclass, null for java/lang/Object and module-info. */
+    public String superName() {
+        return superName;
+    }
+
+    public List<String> interfaces() {
+        return interfaces;
+    }
+
+    /** Fields in declaration order. */
+    public List<Member> fields() {
+        return fields;
+    }
+
+    /** Methods and constructors in declaration order. */
+    public List<Member> methods() {
+        return methods;
+    }
+
+    public Member field(String name, String descriptor) {
+        return fieldIndex.get(Symbols.key(name, descriptor));
+    }
+
+    /**
+     * The field with the same name and descriptor as the given one, which
+     * may come from another class or version.
+     */
+    public Member field(Member like) {
+        return field(like.id());
+    }
+
+    Member field(long id) {
+        return fieldIndex.get(id);
+    }
+
+    public Member method(String name, String descriptor) {
+        return methodIndex.get(Symbols.key(name, descriptor));
+    }
+
+    /**
+     * The method with the same name and descriptor as the given one, which
+     * may come from another class or version. Matching by the interned key
+     * builds no strings.
+     */
+    public Member method(Member like) {
+        return method(like.id());
+    }
+
+    Member method(long id) {
+        return methodIndex.get(id);
+    }
+
+    /** Generic signature from the Signature attribute, or null. */
+    public String signature() {
+        return signature;
+    }
+
+    /** Internal names from the PermittedSubclasses attribute, empty unless the class is sealed. */
+    public List<String> permittedSubclasses() {
+        return permittedSubclasses;
+    }
+
+    /** Components from the Record attribute, empty unless the class is a record. */
+    public List<RecordComponent> recordComponents() {
+        return recordComponents;
+    }
+
+    public List<InnerClass> innerClasses() {
+        return innerClasses;
+    }
+
+    /** Internal name from the NestHost attribute, null for top level classes. */
+    public String nestHost() {
+        return nestHost;
+    }
+
+    /** File name from the SourceFile attribute, e.g. HierarchyChanges.java, or null if compiled without it. */
+    public String sourceFile() {
+        return sourceFile;
+    }
+
+    public List<Annotation> annotations() {
+        return annotations;
+    }
+
+    public Annotation annotation(String descriptor) {
+        for (Annotation a : annotations) {
+            if (a.type().equals(descriptor)) {
+                return a;
+            }
+        }
+        return null;
+    }
+
+    /** The Module attribute of module-info.class, null for every other class. */
+    public ModuleInfo module() {
+        return module;
+    }
+
+    /** The fields and methods whose Java text, as a finding shows them, is the given one; methods first. */
+    List<Member> named(String text) {
+        List<Member> found = new ArrayList<>();
+        for (Member m : methods) {
+            if (m.toString().equals(text)) {
+                found.add(m);
+            }
+        }
+        for (Member f : fields) {
+            if (f.toString().equals(text)) {
+                found.add(f);
+            }
+        }
+        return found;
+    }
+
+    /** The method's body, or null if it has none or the class was read for its API alone. */
+    public Code code(Member method) {
+        return code.get(method.id());
+    }
+
+    /** The BootstrapMethods attribute, empty unless the class was read in full. */
+    List<BootstrapMethod> bootstrapMethods() {
+        return bootstrapMethods;
+    }
+
+    ConstantPool pool() {
+        return pool;
+    }
+
+    /**
+     * The access flags as written in source. For a nested class the class
+     * file only says public or package, the real visibility and the static
+     * flag live in its own InnerClasses entry.
+     */
+    public int declaredAccess() {
+        InnerClass self = self();
+        return self == null ? access : self.access();
+    }
+
+    /** The InnerClasses entry describing this class, null for a top level class. */
+    public InnerClass self() {
+        for (InnerClass inner : innerClasses) {
+            if (inner.inner().equals(name)) {
+                return inner;
+            }
+        }
+        return null;
+    }
+
+    public int visibility() {
+        return Access.visibility(declaredAccess());
+    }
+
+    public boolean isInterface() {
+        return Access.is(access, Access.INTERFACE);
+    }
+
+    public boolean isAnnotation() {
+        return Access.is(access, Access.ANNOTATION);
+    }
+
+    public boolean isEnum() {
+        return Access.is(access, Access.ENUM) && "java/lang/Enum".equals(superName);
+    }
+
+    public boolean isRecord() {
+        return "java/lang/Record".equals(superName);
+    }
+
+    public boolean isAbstract() {
+        return Access.is(access, Access.ABSTRACT);
+    }
+
+    public boolean isFinal() {
+        return Access.is(access, Access.FINAL);
+    }
+
+    public boolean isSealed() {
+        return !permittedSubclasses.isEmpty();
+    }
+
+    public boolean isModule() {
+        return Access.is(access, Access.MODULE);
+    }
+
+    /** Local and anonymous classes, which no client can name. */
+    public boolean isLocal() {
+        InnerClass self = self();
+        return self != null && (self.outer() == null || self.simpleName() == null);
+    }
+
+    /**
+     * True for classes a client could have compiled against: not synthetic,
+     * not local or anonymous, not private and not a module or package descriptor.
+     */
+    public boolean isApi() {
+        return !isModule() && !Access.is(access, Access.SYNTHETIC) && !isLocal()
+                && visibility() > 0 && !name.endsWith("/package-info");
+    }
+
+    /** One of class, interface, annotation, enum or record. */
+    public String kind() {
+        if (isAnnotation()) {
+            return "annotation";
+        }
+        if (isInterface()) {
+            return "interface";
+        }
+        if (isEnum()) {
+            return "enum";
+        }
+        if (isRecord()) {
+            return "record";
+        }
+        return isAbstract() ? "abstract class" : "class";
+    }
+
+    /**
+     * Every class named by a CONSTANT_Class entry: supertypes, and the
+     * owners of all fields and methods the code uses, instantiates, casts to
+     * or catches. Array classes are reduced to their element class.
+     */
+    public Set<String> referencedClasses() {
+        Set<String> names = new HashSet<>();
+        for (int i = 1; i < pool.size(); i++) {
+            if (pool.tag(i) == ConstantPool.CLASS) {
+                String n = elementClass(pool.className(i));
+                if (n != null) {
+                    names.add(n);
+                }
+            }
+        }
+        return names;
+    }
+
+    /** The class itself, the element class of an array class, or null for an array of primitives. */
+    static String elementClass(String name) {
+        if (!name.startsWith("[")) {
+            return name;
+        }
+        int l = name.indexOf('L');
+        return l < 0 ? null : name.substring(l + 1, name.length() - 1);
+    }
+
+    @Override
+    public String toString() {
+        return kind() + " " + binaryName();
+    }
+}
@@ -0,0 +1,330 @@
+package dev.gruff.hardstop.analyser;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parses class files into {@link ClassFile}s without loading or linking them.
+ *
+ * The reader follows the class file format directly (JVMS chapter 4) and
+ * by default keeps only what matters to binary compatibility: method
+ * bodies are skipped by their length prefix, as are all attributes it
+ * does not know, so the bytes of a Code attribute are never looked at.
+ * {@link Mode#FULL} keeps the bodies too, for reading clients. Nothing is
+ * resolved, so a class can be read even when its supertypes or the
+ * classes it uses are missing, which is the normal state of a v2 jar
+ * analysed against a v1 one.
+ */
+public final class ClassReader {
+
+    /**
+     * How much of a class file is read.
+     */
+    public enum Mode {
+        /** Headers, members and the attributes the spec rows depend on; Code is skipped unread. */
+        API,
+        /** The API plus a copy of every method's Code attribute. */
+        FULL
+    }
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private ClassReader() {
+    }
+
+    public static ClassFile read(byte[] bytes) {
+        return read(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Reads one class file from the buffer's position to its end. The
+     * constant pool is decoded from the buffer as it is used, so the
+     * buffer must not change while the class is.
+     *
+     * @throws IllegalArgumentException if the bytes are not a class file
+     */
+    public static ClassFile read(ByteBuffer buffer) {
+        return read(buffer, Mode.API, false);
+    }
+
+    /**
+     * As {@link #read(ByteBuffer)}, keeping as much as the mode asks for:
+     * {@link Mode#FULL} copies each method's Code attribute out of the
+     * buffer, for walking a client's instructions.
+     */
+    public static ClassFile read(ByteBuffer buffer, Mode mode) {
+        return read(buffer, mode, false);
+    }
+
+    /**
+     * Reads one class file from a buffer the caller reuses once this
+     * returns, such as the pooled buffers of {@link JarReader}: the
+     * constant pool is copied out, nothing else is kept.
+     */
+    public static ClassFile readDetached(ByteBuffer buffer) {
+        return read(buffer, Mode.API, true);
+    }
+
+    /**
+     * As {@link #readDetached(ByteBuffer)}, in the given mode; in
+     * {@link Mode#FULL} the Code attributes are copies too, so nothing
+     * of the buffer is kept either way.
+     */
+    public static ClassFile readDetached(ByteBuffer buffer, Mode mode) {
+        return read(buffer, mode, true);
+    }
+
+    private static ClassFile read(ByteBuffer buffer, Mode mode, boolean detach) {
+        ByteBuffer in = buffer.slice();
+        if (in.remaining() < 10 || in.getInt() != MAGIC) {
+            throw new IllegalArgumentException("not a class file");
+        }
+        in.getShort();
+        int version = in.getShort() & 0xFFFF;
+        ConstantPool pool = new ConstantPool(in);
+        int access = u2(in);
+        String name = pool.className(u2(in));
+        String superName = pool.className(u2(in));
+        int interfaceCount = u2(in);
+        List<String> interfaces = new ArrayList<>(interfaceCount);
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaces.add(pool.className(u2(in)));
+        }
+        List<ClassFile.Code> code = mode == Mode.FULL ? new ArrayList<>() : null;
+        List<Member> fields = members(in, pool, null, false);
+        List<Member> methods = members(in, pool, code, true);
+
+        String signature = null;
+        List<String> permitted = List.of();
+        List<ClassFile.RecordComponent> components = List.of();
+        List<ClassFile.InnerClass> inner = List.of();
+        String nestHost = null;
+        String sourceFile = null;
+        List<Annotation> annotations = new ArrayList<>();
+        ModuleInfo module = null;
+        List<ClassFile.BootstrapMethod> bootstrapMethods = List.of();
+        int attributes = u2(in);
+        for (int a = 0; a < attributes; a++) {
+            String attribute = pool.utf8(u2(in));
+            int length = in.getInt();
+            int end = in.position() + length;
+            switch (attribute) {
+                case "Signature" -> signature = pool.utf8(u2(in));
+                case "PermittedSubclasses" -> permitted = classes(in, pool);
+                case "Record" -> components = components(in, pool);
+                case "InnerClasses" -> inner = innerClasses(in, pool);
+                case "NestHost" -> nestHost = pool.className(u2(in));
+                case "SourceFile" -> sourceFile = pool.utf8(u2(in));
+                case "RuntimeVisibleAnnotations" -> annotations(in, pool, true, annotations);
+                case "RuntimeInvisibleAnnotations" -> annotations(in, pool, false, annotations);
+                case "Module" -> module = module(in, pool);
+                case "BootstrapMethods" -> {
+                    if (mode == Mode.FULL) {
+                        bootstrapMethods = bootstrapMethods(in);
+                    }
+                }
+                default -> {
+                }
+            }
+            in.position(end);
+        }
+        return new ClassFile(version, access, name, superName, List.copyOf(interfaces), fields, methods,
+                signature, permitted, components, inner, nestHost, sourceFile, List.copyOf(annotations), module,
+                code, bootstrapMethods, detach ? pool.detach() : pool);
+    }
+
+    /**
+     * Reads a field or method table. Methods' Code attributes are read into
+     * the list, in method order, unless it is null.
+     */
+    private static List<Member> members(ByteBuffer in, ConstantPool pool, List<ClassFile.Code> code, boolean methods) {
+        int count = u2(in);
+        List<Member> members = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int access = u2(in);
+            String name = pool.utf8(u2(in));
+            String descriptor = pool.utf8(u2(in));
+            String signature = null;
+            List<String> exceptions = List.of();
+            Object constant = null;
+            boolean hasDefault = false;
+            ClassFile.Code body = null;
+            List<Annotation> annotations = new ArrayList<>();
+            int attributes = u2(in);
+            for (int a = 0; a < attributes; a++) {
+                String attribute = pool.utf8(u2(in));
+                int length = in.getInt();
+                int end = in.position() + length;
+                switch (attribute) {
+                    case "Signature" -> signature = pool.utf8(u2(in));
+                    case "Exceptions" -> exceptions = classes(in, pool);
+                    case "ConstantValue" -> constant = pool.constant(u2(in));
+                    case "AnnotationDefault" -> hasDefault = true;
+                    case "RuntimeVisibleAnnotations" -> annotations(in, pool, true, annotations);
+                    case "RuntimeInvisibleAnnotations" -> annotations(in, pool, false, annotations);
+                    case "Code" -> {
+                        if (code != null) {
+                            body = code(in, pool);
+                        }
+                    }
+                    default -> {
+                    }
+                }
+                in.position(end);
+            }
+            members.add(new Member(access, name, descriptor, signature, exceptions, constant, hasDefault, List.copyOf(annotations),
+                    Symbols.key(name, descriptor)));
+            if (code != null) {
+                code.add(body);
+            }
+        }
+        return members;
+    }
+
+    private static ClassFile.Code code(ByteBuffer in, ConstantPool pool) {
+        int maxStack = u2(in);
+        int maxLocals = u2(in);
+        byte[] instructions = new byte[in.getInt()];
+        in.get(instructions);
+        int handlers = u2(in);
+        List<String> catchTypes = new ArrayList<>(handlers);
+        for (int i = 0; i < handlers; i++) {
+            in.position(in.position() + 6);
+            String type = pool.className(u2(in));
+            if (type != null) {
+                catchTypes.add(type);
+            }
+        }
+        return new ClassFile.Code(maxStack, maxLocals, instructions, List.copyOf(catchTypes));
+    }
+
+    private static List<ClassFile.BootstrapMethod> bootstrapMethods(ByteBuffer in) {
+        int count = u2(in);
+        List<ClassFile.BootstrapMethod> methods = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int handle = u2(in);
+            int[] arguments = new int[u2(in)];
+            for (int a = 0; a < arguments.length; a++) {
+                arguments[a] = u2(in);
+            }
+            methods.add(new ClassFile.BootstrapMethod(handle, arguments));
+        }
+        return List.copyOf(methods);
+    }
+
+    private static List<String> classes(ByteBuffer in, ConstantPool pool) {
+        int count = u2(in);
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(pool.className(u2(in)));
+        }
+        return List.copyOf(names);
+    }
+
+    private static List<ClassFile.RecordComponent> components(ByteBuffer in, ConstantPool pool) {
+        int count = u2(in);
+        List<ClassFile.RecordComponent> components = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = pool.utf8(u2(in));
+            String descriptor = pool.utf8(u2(in));
+            String signature = null;
+            int attributes = u2(in);
+            for (int a = 0; a < attributes; a++) {
+                String attribute = pool.utf8(u2(in));
+                int length = in.getInt();
+                int end = in.position() + length;
+                if (attribute.equals("Signature")) {
+                    signature = pool.utf8(u2(in));
+                }
+                in.position(end);
+            }
+            components.add(new ClassFile.RecordComponent(name, descriptor, signature));
+        }
+        return List.copyOf(components);
+    }
+
+    private static List<ClassFile.InnerClass> innerClasses(ByteBuffer in, ConstantPool pool) {
+        int count = u2(in);
+        List<ClassFile.InnerClass> inner = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = pool.className(u2(in));
+            String outer = pool.className(u2(in));
+            String simpleName = pool.utf8(u2(in));
+            inner.add(new ClassFile.InnerClass(name, outer, simpleName, u2(in)));
+        }
+        return List.copyOf(inner);
+    }
+
+    private static void annotations(ByteBuffer in, ConstantPool pool, boolean visible, List<Annotation> into) {
+        int count = u2(in);
+        for (int i = 0; i < count; i++) {
+            into.add(annotation(in, pool, visible));
+        }
+    }
+
+    private static Annotation annotation(ByteBuffer in, ConstantPool pool, boolean visible) {
+        String type = pool.utf8(u2(in));
+        int pairs = u2(in);
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int i = 0; i < pairs; i++) {
+            String element = pool.utf8(u2(in));
+            values.put(element, elementValue(in, pool, visible));
+        }
+        return new Annotation(type, visible, values);
+    }
+
+    private static Object elementValue(ByteBuffer in, ConstantPool pool, boolean visible) {
+        char tag = (char) in.get();
+        return switch (tag) {
+            case 'B', 'C', 'D', 'F', 'I', 'J', 'S', 'Z', 's' -> pool.constant(u2(in));
+            case 'e' -> new Annotation.EnumConstant(pool.utf8(u2(in)), pool.utf8(u2(in)));
+            case 'c' -> pool.utf8(u2(in));
+            case '@' -> annotation(in, pool, visible);
+            case '[' -> {
+                int count = u2(in);
+                List<Object> values = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    values.add(elementValue(in, pool, visible));
+                }
+                yield values;
+            }
+            default -> throw new IllegalArgumentException("bad element value tag " + tag);
+        };
+    }
+
+    private static ModuleInfo module(ByteBuffer in, ConstantPool pool) {
+        String name = pool.moduleOrPackage(u2(in));
+        int flags = u2(in);
+        u2(in);
+        int requires = u2(in);
+        in.position(in.position() + requires * 6);
+        Map<String, Set<String>> exports = packages(in, pool);
+        Map<String, Set<String>> opens = packages(in, pool);
+        return new ModuleInfo(name, Access.is(flags, 0x0020), exports, opens);
+    }
+
+    private static Map<String, Set<String>> packages(ByteBuffer in, ConstantPool pool) {
+        int count = u2(in);
+        Map<String, Set<String>> packages = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String pkg = pool.moduleOrPackage(u2(in));
+            u2(in);
+            int targets = u2(in);
+            String[] to = new String[targets];
+            for (int t = 0; t < targets; t++) {
+                to[t] = pool.moduleOrPackage(u2(in));
+            }
+            packages.put(pkg, Set.of(to));
+        }
+        return Map.copyOf(packages);
+    }
+
+    private static int u2(ByteBuffer in) {
+        return in.getShort() & 0xFFFF;
+    }
+}
@@ -0,0 +1,113 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Compares two versions of a library and classifies every change by the rule tables in spec.md.
+ *
+ * Both versions are read as class files, nothing is loaded or run, so a
+ * pair of jars is classified in the time it takes to parse them. The
+ * findings say what would fail and when; the scenario tests remain the
+ * proof that it does.
+ *
+ * Packages are classified in parallel on a fork/join pool. A package of
+ * more than {@value #RUN} classes is cut into runs of that many, as one
+ * package often holds much of a library, and the list of runs is split
+ * in halves down to one run per task. Each task keeps its own findings,
+ * the halves are joined in order and the result is sorted, so the output
+ * does not depend on the number of threads or on which finished first.
+ */
+public class Classifier {
+
+    /** Most common classes one task compares. */
+    static final int RUN = 32;
+
+    private final List<Detector> detectors;
+    private final ForkJoinPool pool;
+
+    /** A classifier with one detector for each section of the spec, on the common pool. */
+    public Classifier() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public Classifier(ForkJoinPool pool) {
+        this(List.of(new TypeDetector(), new KindDetector(), new ConstructorDetector(), new MethodDetector(),
+                new FieldDetector(), new InterfaceDetector(), new SealedDetector(), new RuntimeDetector(),
+                new HierarchyDetector(), new GenericsDetector(), new AnnotationDetector()), pool);
+    }
+
+    public Classifier(List<Detector> detectors) {
+        this(detectors, ForkJoinPool.commonPool());
+    }
+
+    public Classifier(List<Detector> detectors, ForkJoinPool pool) {
+        this.detectors = List.copyOf(detectors);
+        this.pool = pool;
+    }
+
+    public List<Detector> detectors() {
+        return detectors;
+    }
+
+    /**
+     * @return the findings ordered by spec row, then type and member
+     */
+    public List<Finding> classify(ApiModel before, ApiModel after) {
+        Comparison comparison = new Comparison(before, after);
+        List<Comparison> runs = new ArrayList<>();
+        for (Comparison pkg : comparison.byPackage()) {
+            runs.addAll(pkg.split(RUN));
+        }
+        List<Finding> findings = pool.invoke(new Packages(runs));
+        for (Detector detector : detectors) {
+            detector.detectLibrary(comparison, findings::add);
+        }
+        Collections.sort(findings);
+        return findings;
+    }
+
+    /**
+     * Classifies the changes and keeps the certainty D rows only where the
+     * client uses the class or member they were found on. The same index
+     * can be passed for every pair of versions the client is checked against.
+     */
+    public List<Finding> classify(ApiModel before, ApiModel after, ClientUsage client) {
+        return client.filter(classify(before, after), before, after);
+    }
+
+    /**
+     * Runs every detector over a list of packages or runs of one, forking the first half and computing the second itself.
+     */
+    private final class Packages extends RecursiveTask<List<Finding>> {
+
+        private final List<Comparison> packages;
+
+        Packages(List<Comparison> packages) {
+            this.packages = packages;
+        }
+
+        @Override
+        protected List<Finding> compute() {
+            if (packages.size() <= 1) {
+                List<Finding> findings = new ArrayList<>();
+                for (Comparison pkg : packages) {
+                    for (Detector detector : detectors) {
+                        detector.detect(pkg, findings::add);
+                    }
+                }
+                return findings;
+            }
+            int half = packages.size() / 2;
+            Packages first = new Packages(packages.subList(0, half));
+            first.fork();
+            List<Finding> second = new Packages(packages.subList(half, packages.size())).compute();
+            List<Finding> findings = first.join();
+            findings.addAll(second);
+            return findings;
+        }
+    }
+}
@@ -0,0 +1,520 @@
+package dev.gruff.hardstop.analyser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Every class, field and method a compiled client refers to, found by
+ * walking the bytecode of its method bodies once.
+ *
+ * Most certainty D rows of spec.md fail only if downstream code uses the
+ * changed thing in a particular way: a class made final breaks only its
+ * subclasses, a method made abstract only its callers and the classes
+ * that inherit it. With the client's references to hand, such a finding
+ * can be kept when the client touches the class or member and dropped
+ * when it does not. The index depends on the client alone, so one index
+ * serves any number of library versions.
+ *
+ * The references are those the JVM resolves: the owners and members of
+ * invoke, getfield, putfield, getstatic and putstatic instructions, the
+ * classes of new, anewarray, multianewarray, checkcast, instanceof and
+ * ldc, the members of method handles, whether loaded by ldc or passed to
+ * a bootstrap method as a method reference is, catch types, and each
+ * client class's own supertypes. Array
+ * classes count as their element class. The literal values of each
+ * class's constant pool are kept too: a compile-time constant leaves no
+ * reference to its field behind, only a copy of its value.
+ * The same pass collects the client's {@link SwitchSites},
+ * {@link RecordSites} and {@link AnnotationIndex}.
+ *
+ * Every reference also goes into a Bloom filter of about ten bits each,
+ * a few kilobytes for a typical client. Checked against a fleet of
+ * clients, a diff's {@link Footprint} is tested against each filter
+ * first, and only the clients it cannot rule out have their index
+ * looked at.
+ */
+public final class ClientUsage {
+
+    /**
+     * A static final constant whose value changed, and the client classes
+     * whose constant pools still hold the old value, which javac copied
+     * there in place of a read of the field.
+     *
+     * @param field   the field as Type#name
+     * @param value   the old value
+     * @param now     the new value, or null if the field is gone or no longer a constant
+     * @param classes internal names of the client classes carrying the old value
+     */
+    public record StaleCopy(String field, Object value, Object now, Set<String> classes) {
+    }
+
+    private static final int LDC = 0x12;
+    private static final int LDC_W = 0x13;
+    private static final int GETSTATIC = 0xB2;
+    private static final int PUTSTATIC = 0xB3;
+    private static final int GETFIELD = 0xB4;
+    private static final int PUTFIELD = 0xB5;
+    private static final int INVOKEVIRTUAL = 0xB6;
+    private static final int INVOKESPECIAL = 0xB7;
+    private static final int INVOKESTATIC = 0xB8;
+    private static final int INVOKEINTERFACE = 0xB9;
+    private static final int NEW = 0xBB;
+    private static final int ANEWARRAY = 0xBD;
+    private static final int CHECKCAST = 0xC0;
+    private static final int INSTANCEOF = 0xC1;
+    private static final int MULTIANEWARRAY = 0xC5;
+    private static final int TABLESWITCH = 0xAA;
+    private static final int LOOKUPSWITCH = 0xAB;
+    private static final int WIDE = 0xC4;
+    private static final int IINC = 0x84;
+
+    /** Length of each fixed-size instruction by opcode (JVMS 6.5); 0 for the switches and wide. */
+    private static final byte[] LENGTHS = new byte[256];
+
+    static {
+        Arrays.fill(LENGTHS, (byte) 1);
+        LENGTHS[0x10] = 2;                                       // bipush
+        LENGTHS[0x11] = 3;                                       // sipush
+        LENGTHS[LDC] = 2;
+        LENGTHS[LDC_W] = 3;
+        LENGTHS[0x14] = 3;                                       // ldc2_w
+        for (int op = 0x15; op <= 0x19; op++) {                  // iload .. aload
+            LENGTHS[op] = 2;
+        }
+        for (int op = 0x36; op <= 0x3A; op++) {                  // istore .. astore
+            LENGTHS[op] = 2;
+        }
+        LENGTHS[IINC] = 3;
+        for (int op = 0x99; op <= 0xA8; op++) {                  // if*, goto, jsr
+            LENGTHS[op] = 3;
+        }
+        LENGTHS[0xA9] = 2;                                       // ret
+        LENGTHS[TABLESWITCH] = 0;
+        LENGTHS[LOOKUPSWITCH] = 0;
+        for (int op = GETSTATIC; op <= INVOKESTATIC; op++) {
+            LENGTHS[op] = 3;
+        }
+        LENGTHS[INVOKEINTERFACE] = 5;
+        LENGTHS[0xBA] = 5;                                       // invokedynamic
+        LENGTHS[NEW] = 3;
+        LENGTHS[0xBC] = 2;                                       // newarray
+        LENGTHS[ANEWARRAY] = 3;
+        LENGTHS[CHECKCAST] = 3;
+        LENGTHS[INSTANCEOF] = 3;
+        LENGTHS[WIDE] = 0;
+        LENGTHS[MULTIANEWARRAY] = 4;
+        LENGTHS[0xC6] = 3;                                       // ifnull
+        LENGTHS[0xC7] = 3;                                       // ifnonnull
+        LENGTHS[0xC8] = 5;                                       // goto_w
+        LENGTHS[0xC9] = 5;                                       // jsr_w
+    }
+
+    private final Set<String> types = new HashSet<>();
+    private final Set<String> supertypes = new HashSet<>();
+    private final Map<String, Set<Long>> methods = new HashMap<>();
+    private final Map<String, Set<Long>> fields = new HashMap<>();
+    private final Set<String> packages = new HashSet<>();
+    private final Map<Object, Set<String>> constants = new HashMap<>();
+    private final SwitchSites switches = new SwitchSites();
+    private final RecordSites records = new RecordSites();
+    private final AnnotationIndex annotations = new AnnotationIndex();
+    private BloomFilter filter;
+    private int classes;
+
+    private ClientUsage() {
+    }
+
+    /**
+     * Indexes every class of a jar or class directory, reading their method bodies.
+     */
+    public static ClientUsage read(Path path) {
+        ClientUsage usage = new ClientUsage();
+        try {
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> walk = Files.walk(path)) {
+                    for (Path file : (Iterable<Path>) walk.filter(p -> p.toString().endsWith(".class"))::iterator) {
+                        usage.add(ClassReader.read(ByteBuffer.wrap(Files.readAllBytes(file)), ClassReader.Mode.FULL));
+                    }
+                }
+            } else {
+                try (JarReader jar = JarReader.open(path)) {
+                    for (JarReader.Entry entry : jar.entries()) {
+                        if (!entry.isDirectory() && entry.name().endsWith(".class") && !entry.name().startsWith("META-INF/")) {
+                            // indexed inside the callback: the pool still points into the pooled buffer
+                            jar.read(entry, in -> {
+                                usage.add(ClassReader.read(in, ClassReader.Mode.FULL));
+                                return null;
+                            });
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot read " + path, e);
+        }
+        return usage.seal();
+    }
+
+    /**
+     * Indexes classes already read; those read for their API alone contribute only their supertypes.
+     */
+    public static ClientUsage of(Collection<ClassFile> files) {
+        ClientUsage usage = new ClientUsage();
+        files.forEach(usage::add);
+        return usage.seal();
+    }
+
+    /** Number of client classes indexed. */
+    public int classes() {
+        return classes;
+    }
+
+    /** Internal names of every class the client refers to. */
+    public Set<String> types() {
+        return Collections.unmodifiableSet(types);
+    }
+
+    /** The client's switches over enums and sealed types. */
+    public SwitchSites switches() {
+        return switches;
+    }
+
+    /** The client's constructor calls, no-argument calls and field accesses that may reach records. */
+    public RecordSites records() {
+        return records;
+    }
+
+    /** The annotations on the client's classes, fields and methods, by type. */
+    public AnnotationIndex annotations() {
+        return annotations;
+    }
+
+    /** Size of the client's Bloom filter in bytes. */
+    public int filterBytes() {
+        return filter.bytes();
+    }
+
+    /**
+     * True if the finding's class or member is one the client uses, or
+     * its row is not certainty D; see {@link Footprint#of} for what
+     * counts as a use. Filtering a whole diff with {@link #filter(Footprint)}
+     * resolves the library's hierarchy once rather than once per finding.
+     */
+    public boolean uses(Finding finding, ApiModel before, ApiModel after) {
+        return !filter(Footprint.of(List.of(finding), before, after)).isEmpty();
+    }
+
+    /** The findings the client uses, in their original order. */
+    public List<Finding> filter(List<Finding> findings, ApiModel before, ApiModel after) {
+        return filter(Footprint.of(findings, before, after));
+    }
+
+    /**
+     * The findings of the footprint that the client uses, in their
+     * original order. Rows other than certainty D are always kept.
+     */
+    public List<Finding> filter(Footprint footprint) {
+        List<Finding> used = new ArrayList<>();
+        for (Footprint.Reach r : footprint.reaches()) {
+            if (r.finding().rule().certainty() != Rule.Certainty.D || reaches(r)) {
+                used.add(r.finding());
+            }
+        }
+        return used;
+    }
+
+    /**
+     * False if the Bloom filter rules out every reference that would let
+     * any finding of the diff reach the client; true if some might.
+     * Costs a few memory reads per probe and never touches the index.
+     */
+    public boolean mightBeAffected(Footprint footprint) {
+        if (footprint.always()) {
+            return true;
+        }
+        for (long probe : footprint.probeKeys()) {
+            if (filter.mightContain(probe)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True if any finding of the diff, whatever its certainty, reaches
+     * the client. Clients the Bloom filter rules out are answered without
+     * looking at the index.
+     */
+    public boolean affectedBy(Footprint footprint) {
+        if (!mightBeAffected(footprint)) {
+            return false;
+        }
+        for (Footprint.Reach r : footprint.reaches()) {
+            if (reaches(r)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Every static final constant of the earlier version whose value the
+     * later one changes or drops, with the client classes that hold a
+     * copy of the old value. Only constants at least one class copied are
+     * listed.
+     *
+     * Values javac puts into the constant pool are found exactly: strings,
+     * ints outside the short range, and longs, floats and doubles other
+     * than those of lconst, fconst and dconst. An int, char, short, byte
+     * or boolean small enough for iconst, bipush or sipush, and 0L, 1L,
+     * 0f, 1f, 2f, 0d and 1d, are written into the instruction itself,
+     * where any use of the same number looks alike, so those are not
+     * searched for.
+     */
+    public List<StaleCopy> staleCopies(ApiModel before, ApiModel after) {
+        List<StaleCopy> stale = new ArrayList<>();
+        for (ClassFile type : before.classes()) {
+            ClassFile now = after.get(type.name());
+            for (Member f : type.fields()) {
+                Object value = f.constantValue();
+                if (value == null || !f.isApi() || !isPooled(value)) {
+                    continue;
+                }
+                Member same = now == null ? null : now.field(f);
+                Object current = same == null ? null : same.constantValue();
+                if (value.equals(current)) {
+                    continue;
+                }
+                Set<String> holders = constants.get(value);
+                if (holders != null) {
+                    stale.add(new StaleCopy(type.binaryName() + "#" + f.name(), value, current, Collections.unmodifiableSet(holders)));
+                }
+            }
+        }
+        return stale;
+    }
+
+    /**
+     * True for constants javac copies into the constant pool rather than
+     * into the instruction. The bits are compared rather than the values,
+     * since -0.0 has no instruction of its own and is loaded with ldc.
+     */
+    static boolean isPooled(Object value) {
+        if (value instanceof Integer i) {
+            return i < Short.MIN_VALUE || i > Short.MAX_VALUE;
+        }
+        if (value instanceof Long l) {
+            return l != 0L && l != 1L;
+        }
+        if (value instanceof Float f) {
+            int bits = Float.floatToRawIntBits(f);
+            return bits != Float.floatToRawIntBits(0f) && bits != Float.floatToRawIntBits(1f) && bits != Float.floatToRawIntBits(2f);
+        }
+        if (value instanceof Double d) {
+            long bits = Double.doubleToRawLongBits(d);
+            return bits != Double.doubleToRawLongBits(0d) && bits != Double.doubleToRawLongBits(1d);
+        }
+        return true;
+    }
+
+    private boolean reaches(Footprint.Reach r) {
+        if (r.always() || intersects(packages, r.packages()) || intersects(types, r.types())
+                || intersects(supertypes, r.extended()) || intersects(constants.keySet(), r.constants())) {
+            return true;
+        }
+        for (String owner : r.owners()) {
+            if (intersects(methods.getOrDefault(owner, Set.of()), r.methods())
+                    || intersects(fields.getOrDefault(owner, Set.of()), r.fields())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <T> boolean intersects(Set<T> a, Set<T> b) {
+        Set<T> small = a.size() < b.size() ? a : b;
+        Set<T> large = small == a ? b : a;
+        for (T t : small) {
+            if (large.contains(t)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static long typeKey(String type) {
+        return BloomFilter.hash(type, 1);
+    }
+
+    static long packageKey(String pkg) {
+        return BloomFilter.hash(pkg, 2);
+    }
+
+    static long extendsKey(String type) {
+        return BloomFilter.hash(type, 3);
+    }
+
+    static long memberKey(String owner, long id, boolean method) {
+        return BloomFilter.mix(BloomFilter.hash(owner, method ? 4 : 5) ^ BloomFilter.mix(id));
+    }
+
+    static long constantKey(Object value) {
+        int salt = value instanceof Integer ? 6 : value instanceof Long ? 7 : value instanceof Float ? 8
+                : value instanceof Double ? 9 : 10;
+        return BloomFilter.hash(value.toString(), salt);
+    }
+
+    /** Builds the package set and the Bloom filter, and resolves the switch sites, once every class has been added. */
+    private ClientUsage seal() {
+        for (String t : types) {
+            int slash = t.lastIndexOf('/');
+            packages.add(slash < 0 ? "" : t.substring(0, slash));
+        }
+        int members = 0;
+        for (Set<Long> ids : methods.values()) {
+            members += ids.size();
+        }
+        for (Set<Long> ids : fields.values()) {
+            members += ids.size();
+        }
+        filter = new BloomFilter(types.size() + packages.size() + supertypes.size() + constants.size() + members);
+        types.forEach(t -> filter.add(typeKey(t)));
+        packages.forEach(p -> filter.add(packageKey(p)));
+        supertypes.forEach(t -> filter.add(extendsKey(t)));
+        constants.keySet().forEach(v -> filter.add(constantKey(v)));
+        methods.forEach((owner, ids) -> ids.forEach(id -> filter.add(memberKey(owner, id, true))));
+        fields.forEach((owner, ids) -> ids.forEach(id -> filter.add(memberKey(owner, id, false))));
+        switches.seal();
+        return this;
+    }
+
+    private void add(ClassFile file) {
+        classes++;
+        if (file.superName() != null) {
+            supertypes.add(file.superName());
+            types.add(file.superName());
+        }
+        supertypes.addAll(file.interfaces());
+        types.addAll(file.interfaces());
+        ConstantPool pool = file.pool();
+        for (int i = 1; i < pool.size(); i++) {
+            switch (pool.tag(i)) {
+                case ConstantPool.INTEGER, ConstantPool.LONG, ConstantPool.FLOAT, ConstantPool.DOUBLE, ConstantPool.STRING ->
+                        constants.computeIfAbsent(pool.constant(i), k -> new HashSet<>()).add(file.name());
+                default -> {
+                }
+            }
+        }
+        for (Member m : file.methods()) {
+            ClassFile.Code code = file.code(m);
+            if (code == null) {
+                continue;
+            }
+            for (String t : code.catchTypes()) {
+                type(t);
+            }
+            scan(code.instructions(), pool);
+        }
+        for (ClassFile.BootstrapMethod bsm : file.bootstrapMethods()) {
+            constant(pool, bsm.method());
+            for (int argument : bsm.arguments()) {
+                constant(pool, argument);
+            }
+        }
+        switches.add(file);
+        records.add(file);
+        annotations.add(file);
+    }
+
+    /**
+     * Walks one method's instructions, recording the constant pool entry of every one that names a class or member.
+     */
+    private void scan(byte[] code, ConstantPool pool) {
+        int pc = 0;
+        while (pc < code.length) {
+            int op = code[pc] & 0xFF;
+            switch (op) {
+                case LDC -> constant(pool, code[pc + 1] & 0xFF);
+                case LDC_W -> constant(pool, u2(code, pc + 1));
+                case GETSTATIC, PUTSTATIC, GETFIELD, PUTFIELD -> member(fields, pool, u2(code, pc + 1));
+                case INVOKEVIRTUAL, INVOKESPECIAL, INVOKESTATIC, INVOKEINTERFACE -> member(methods, pool, u2(code, pc + 1));
+                case NEW, ANEWARRAY, CHECKCAST, INSTANCEOF, MULTIANEWARRAY -> type(pool.className(u2(code, pc + 1)));
+                default -> {
+                }
+            }
+            pc += length(code, pc);
+        }
+    }
+
+    /** A loadable constant, from ldc or a bootstrap method's arguments. */
+    private void constant(ConstantPool pool, int index) {
+        switch (pool.tag(index)) {
+            case ConstantPool.CLASS -> type(pool.className(index));
+            case ConstantPool.METHOD_HANDLE ->
+                    member(pool.handleKind(index) <= 4 ? fields : methods, pool, pool.handleRef(index));
+            default -> {
+            }
+        }
+    }
+
+    private void member(Map<String, Set<Long>> refs, ConstantPool pool, int index) {
+        String owner = ClassFile.elementClass(pool.refOwner(index));
+        if (owner == null) {
+            return;
+        }
+        types.add(owner);
+        refs.computeIfAbsent(owner, k -> new HashSet<>()).add(Symbols.key(pool.refName(index), pool.refDescriptor(index)));
+    }
+
+    private void type(String name) {
+        String element = ClassFile.elementClass(name);
+        if (element != null) {
+            types.add(element);
+        }
+    }
+
+    /** Length of the instruction at pc. */
+    static int length(byte[] code, int pc) {
+        int op = code[pc] & 0xFF;
+        int fixed = LENGTHS[op];
+        if (fixed > 0) {
+            return fixed;
+        }
+        if (op == WIDE) {
+            return (code[pc + 1] & 0xFF) == IINC ? 6 : 4;
+        }
+        int at = (pc + 4) & ~3;
+        if (op == TABLESWITCH) {
+            int low = s4(code, at + 4);
+            int high = s4(code, at + 8);
+            return at + 12 + (high - low + 1) * 4 - pc;
+        }
+        return at + 8 + s4(code, at + 4) * 8 - pc;
+    }
+
+    static int u2(byte[] code, int at) {
+        return (code[at] & 0xFF) << 8 | (code[at + 1] & 0xFF);
+    }
+
+    static int s4(byte[] code, int at) {
+        return code[at] << 24 | (code[at + 1] & 0xFF) << 16 | (code[at + 2] & 0xFF) << 8 | (code[at + 3] & 0xFF);
+    }
+
+    @Override
+    public String toString() {
+        return classes + " client classes referring to " + types.size() + " classes";
+    }
+}
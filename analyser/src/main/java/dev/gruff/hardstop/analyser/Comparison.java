@@ -0,0 +1,145 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Two versions of a library side by side, as the detectors see them.
+ *
+ * Only API classes are paired up (see {@link ClassFile#isApi()}); local,
+ * anonymous and synthetic classes are invisible to clients and so cannot
+ * break them. A comparison can be split by package, and a package into
+ * runs of classes, so that detectors can work through a large library in
+ * parallel.
+ */
+public final class Comparison {
+
+    /**
+     * The same class in both versions.
+     */
+    public record Pair(ClassFile before, ClassFile after) {
+
+        /**
+         * True when the new version took the class from the old one because
+         * its jar entry had not changed (see {@link ApiModel#read(java.nio.file.Path, ApiModel)}).
+         * Detectors that only look at the class itself can skip such pairs;
+         * those that look at what it inherits cannot.
+         */
+        public boolean unchanged() {
+            return before == after;
+        }
+    }
+
+    private final ApiModel before;
+    private final ApiModel after;
+    private final String packageName;
+    private final List<Pair> common;
+    private final List<ClassFile> removed;
+    private final List<ClassFile> added;
+    private final Signatures signatures;
+
+    public Comparison(ApiModel before, ApiModel after) {
+        this(before, after, null, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new Signatures());
+        for (ClassFile old : before.classes()) {
+            if (!old.isApi()) {
+                continue;
+            }
+            ClassFile now = after.get(old.name());
+            if (now == null) {
+                removed.add(old);
+            } else {
+                common.add(new Pair(old, now));
+            }
+        }
+        for (ClassFile now : after.classes()) {
+            if (now.isApi() && before.get(now.name()) == null) {
+                added.add(now);
+            }
+        }
+    }
+
+    private Comparison(ApiModel before, ApiModel after, String packageName,
+                       List<Pair> common, List<ClassFile> removed, List<ClassFile> added, Signatures signatures) {
+        this.before = before;
+        this.after = after;
+        this.packageName = packageName;
+        this.common = common;
+        this.removed = removed;
+        this.added = added;
+        this.signatures = signatures;
+    }
+
+    /**
+     * One comparison per package that has classes in either version, in
+     * package order. Each shares the whole models, so lookups across
+     * packages still resolve, and the signatures parsed so far.
+     */
+    public List<Comparison> byPackage() {
+        Map<String, Comparison> parts = new TreeMap<>();
+        Function<String, Comparison> part = pkg -> parts.computeIfAbsent(pkg,
+                p -> new Comparison(before, after, p, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), signatures));
+        common.forEach(pair -> part.apply(pair.before().packageName()).common.add(pair));
+        removed.forEach(c -> part.apply(c.packageName()).removed.add(c));
+        added.forEach(c -> part.apply(c.packageName()).added.add(c));
+        return List.copyOf(parts.values());
+    }
+
+    /**
+     * This comparison cut into runs of at most the given number of common
+     * classes, in order, so that a large package can be shared among
+     * threads. The removed and added classes go with the first run.
+     */
+    public List<Comparison> split(int classes) {
+        if (common.size() <= classes) {
+            return List.of(this);
+        }
+        List<Comparison> runs = new ArrayList<>();
+        for (int from = 0; from < common.size(); from += classes) {
+            List<Pair> run = common.subList(from, Math.min(from + classes, common.size()));
+            runs.add(new Comparison(before, after, packageName, run,
+                    from == 0 ? removed : List.of(), from == 0 ? added : List.of(), signatures));
+        }
+        return runs;
+    }
+
+    /** The package this comparison is limited to, null for the whole library. */
+    public String packageName() {
+        return packageName;
+    }
+
+    public ApiModel before() {
+        return before;
+    }
+
+    public ApiModel after() {
+        return after;
+    }
+
+    /** API classes present in both versions, in name order. */
+    public List<Pair> common() {
+        return common;
+    }
+
+    /** Number of common classes whose class file did not change. */
+    public long unchanged() {
+        return common.stream().filter(Pair::unchanged).count();
+    }
+
+    /** API classes of the old version that the new one no longer has. */
+    public List<ClassFile> removed() {
+        return removed;
+    }
+
+    /** The generic signatures parsed for this comparison and its packages. */
+    Signatures signatures() {
+        return signatures;
+    }
+
+    /** API classes that only the new version has. */
+    public List<ClassFile> added() {
+        return added;
+    }
+}
@@ -0,0 +1,195 @@
+package dev.gruff.hardstop.analyser;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The constant pool of one class file, read in place.
+ *
+ * Only the offset and tag of each entry are recorded while the class is
+ * parsed; strings are decoded the first time they are asked for, so the
+ * many entries a detector never looks at cost nothing.
+ */
+final class ConstantPool {
+
+    static final int UTF8 = 1;
+    static final int INTEGER = 3;
+    static final int FLOAT = 4;
+    static final int LONG = 5;
+    static final int DOUBLE = 6;
+    static final int CLASS = 7;
+    static final int STRING = 8;
+    static final int FIELD_REF = 9;
+    static final int METHOD_REF = 10;
+    static final int INTERFACE_METHOD_REF = 11;
+    static final int NAME_AND_TYPE = 12;
+    static final int METHOD_HANDLE = 15;
+    static final int METHOD_TYPE = 16;
+    static final int DYNAMIC = 17;
+    static final int INVOKE_DYNAMIC = 18;
+    static final int MODULE = 19;
+    static final int PACKAGE = 20;
+
+    private final ByteBuffer buffer;
+    private final byte[] tags;
+    private final int[] offsets;
+    private final String[] strings;
+    private final int start;
+    private final int end;
+
+    /**
+     * Reads the pool starting at the buffer's position and leaves the position just past it.
+     */
+    ConstantPool(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.start = buffer.position();
+        int count = buffer.getShort() & 0xFFFF;
+        this.tags = new byte[count];
+        this.offsets = new int[count];
+        this.strings = new String[count];
+        for (int i = 1; i < count; i++) {
+            int tag = buffer.get() & 0xFF;
+            tags[i] = (byte) tag;
+            offsets[i] = buffer.position();
+            switch (tag) {
+                case UTF8 -> buffer.position(buffer.position() + 2 + (buffer.getShort(buffer.position()) & 0xFFFF));
+                case CLASS, STRING, METHOD_TYPE, MODULE, PACKAGE -> skip(2);
+                case METHOD_HANDLE -> skip(3);
+                case INTEGER, FLOAT, FIELD_REF, METHOD_REF, INTERFACE_METHOD_REF, NAME_AND_TYPE, DYNAMIC, INVOKE_DYNAMIC -> skip(4);
+                case LONG, DOUBLE -> {
+                    skip(8);
+                    i++;
+                }
+                default -> throw new IllegalArgumentException("bad constant pool tag " + tag + " at entry " + i);
+            }
+        }
+        this.end = buffer.position();
+    }
+
+    private ConstantPool(ByteBuffer buffer, byte[] tags, int[] offsets, String[] strings) {
+        this.buffer = buffer;
+        this.tags = tags;
+        this.offsets = offsets;
+        this.strings = strings;
+        this.start = 0;
+        this.end = buffer.limit();
+    }
+
+    /**
+     * The same pool over a copy of its own bytes, for a class read from a
+     * buffer that is about to be reused. The rest of the class file, method
+     * bodies included, is not copied.
+     */
+    ConstantPool detach() {
+        byte[] copy = new byte[end - start];
+        buffer.get(start, copy);
+        int[] moved = new int[offsets.length];
+        for (int i = 1; i < offsets.length; i++) {
+            moved[i] = offsets[i] - start;
+        }
+        return new ConstantPool(ByteBuffer.wrap(copy), tags, moved, strings);
+    }
+
+    private void skip(int n) {
+        buffer.position(buffer.position() + n);
+    }
+
+    int size() {
+        return tags.length;
+    }
+
+    int tag(int index) {
+        return tags[index];
+    }
+
+    /** The modified UTF-8 string at the index, or null for index 0. */
+    String utf8(int index) {
+        if (index == 0) {
+            return null;
+        }
+        String s = strings[index];
+        if (s == null) {
+            s = decode(offsets[index]);
+            strings[index] = s;
+        }
+        return s;
+    }
+
+    /** Internal name of a CONSTANT_Class entry, or null for index 0. */
+    String className(int index) {
+        return index == 0 ? null : utf8(u2(offsets[index]));
+    }
+
+    /** Name of a CONSTANT_Module or CONSTANT_Package entry; packages use / as the separator. */
+    String moduleOrPackage(int index) {
+        return utf8(u2(offsets[index]));
+    }
+
+    /** Owner of a field, method or interface method reference. */
+    String refOwner(int index) {
+        return className(u2(offsets[index]));
+    }
+
+    /** Name of a field, method or interface method reference, or of a dynamic constant or call site. */
+    String refName(int index) {
+        return utf8(u2(offsets[u2(offsets[index] + 2)]));
+    }
+
+    /** Descriptor of a field, method or interface method reference, or of a dynamic constant or call site. */
+    String refDescriptor(int index) {
+        return utf8(u2(offsets[u2(offsets[index] + 2)] + 2));
+    }
+
+    /** Index into the BootstrapMethods attribute of a dynamic constant or call site. */
+    int bootstrap(int index) {
+        return u2(offsets[index]);
+    }
+
+    /** Reference kind of a method handle entry, 1 to 4 for a field, 5 to 9 for a method (JVMS 5.4.3.5). */
+    int handleKind(int index) {
+        return buffer.get(offsets[index]) & 0xFF;
+    }
+
+    /** The field or method reference a method handle entry points to. */
+    int handleRef(int index) {
+        return u2(offsets[index] + 1);
+    }
+
+    /**
+     * The value of an Integer, Long, Float, Double or String entry, as ConstantValue and annotation elements use them.
+     */
+    Object constant(int index) {
+        int at = offsets[index];
+        return switch (tags[index]) {
+            case INTEGER -> buffer.getInt(at);
+            case FLOAT -> buffer.getFloat(at);
+            case LONG -> buffer.getLong(at);
+            case DOUBLE -> buffer.getDouble(at);
+            case STRING -> utf8(u2(at));
+            case UTF8 -> utf8(index);
+            default -> throw new IllegalArgumentException("entry " + index + " is not a constant, tag " + tags[index]);
+        };
+    }
+
+    private int u2(int at) {
+        return buffer.getShort(at) & 0xFFFF;
+    }
+
+    private String decode(int at) {
+        int length = u2(at);
+        int pos = at + 2;
+        int end = pos + length;
+        char[] chars = new char[length];
+        int n = 0;
+        while (pos < end) {
+            int b = buffer.get(pos++) & 0xFF;
+            if (b < 0x80) {
+                chars[n++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[n++] = (char) (((b & 0x1F) << 6) | (buffer.get(pos++) & 0x3F));
+            } else {
+                chars[n++] = (char) (((b & 0x0F) << 12) | ((buffer.get(pos++) & 0x3F) << 6) | (buffer.get(pos++) & 0x3F));
+            }
+        }
+        return new String(chars, 0, n);
+    }
+}
@@ -0,0 +1,77 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Section C: constructors that go away, change shape or become harder to reach.
+ *
+ * Constructors have no name to follow, so every descriptor the old
+ * version had and the new one lacks is reported as removed; when the new
+ * version also gained constructors the old calls are additionally
+ * reported as a signature change.
+ */
+final class ConstructorDetector implements Detector {
+
+    @Override
+    public char section() {
+        return 'C';
+    }
+
+    @Override
+    public void detect(Comparison comparison, Consumer<Finding> findings) {
+        for (Comparison.Pair pair : comparison.common()) {
+            if (pair.unchanged()) {
+                continue;
+            }
+            ClassFile before = pair.before();
+            ClassFile after = pair.after();
+            if (before.isInterface() || after.isInterface()) {
+                continue;
+            }
+            List<Member> added = new ArrayList<>();
+            for (Member now : after.methods()) {
+                if (now.isConstructor() && now.isApi() && before.method(now) == null) {
+                    added.add(now);
+                }
+            }
+            for (Member old : before.methods()) {
+                if (!old.isConstructor() || !old.isApi()) {
+                    continue;
+                }
+                Member now = after.method(old);
+                if (now != null) {
+                    if (now.visibility() < old.visibility()) {
+                        findings.accept(Finding.of(Rule.CONSTRUCTOR_VISIBILITY_REDUCED, before, old,
+                                Access.describe(old.visibility()) + " -> " + Access.describe(now.visibility())));
+                    }
+                    continue;
+                }
+                findings.accept(Finding.of(Rule.CONSTRUCTOR_REMOVED, before, old, null));
+                if (!added.isEmpty()) {
+                    findings.accept(Finding.of(Rule.CONSTRUCTOR_SIGNATURE_CHANGED, before, old,
+                            "now " + String.join(", ", added.stream().map(Member::toString).toList())));
+                }
+                if (old.descriptor().equals("()V")) {
+                    findings.accept(Finding.of(Rule.NO_ARG_CONSTRUCTOR_REMOVED, before, old, null));
+                }
+            }
+            if (before.isRecord() && after.isRecord()) {
+                String was = canonical(before);
+                String now = canonical(after);
+                if (!was.equals(now)) {
+                    findings.accept(new Finding(Rule.RECORD_CANONICAL_CONSTRUCTOR_CHANGED, before.binaryName(),
+                            Descriptors.member("<init>", was), "now " + Descriptors.member("<init>", now)));
+                }
+            }
+        }
+    }
+
+    /** Descriptor of a record's canonical constructor, which takes the components in order. */
+    static String canonical(ClassFile record) {
+        StringBuilder sb = new StringBuilder("(");
+        record.recordComponents().forEach(c -> sb.append(c.descriptor()));
+        return sb.append(")V").toString();
+    }
+}
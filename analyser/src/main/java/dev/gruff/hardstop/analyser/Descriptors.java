@@ -0,0 +1,78 @@
+package dev.gruff.hardstop.analyser;
+
+/**
+ * Turns internal names and descriptors into the Java-like text used in findings.
+ */
+public final class Descriptors {
+
+    private Descriptors() {
+    }
+
+    /** dev/gruff/Outer$Inner becomes dev.gruff.Outer$Inner. */
+    public static String binaryName(String internalName) {
+        return internalName.replace('/', '.');
+    }
+
+    /** The binary name without its package. */
+    public static String simpleName(String internalName) {
+        return internalName.substring(internalName.lastIndexOf('/') + 1);
+    }
+
+    /** The package in internal form, "" for the unnamed package. */
+    public static String packageOf(String internalName) {
+        int slash = internalName.lastIndexOf('/');
+        return slash < 0 ? "" : internalName.substring(0, slash);
+    }
+
+    /**
+     * A method as name(int, String), a constructor as &lt;init&gt;(int) and a field as name: String.
+     */
+    public static String member(String name, String descriptor) {
+        if (!descriptor.startsWith("(")) {
+            return name + ": " + type(descriptor, new int[1]);
+        }
+        StringBuilder sb = new StringBuilder(name).append('(');
+        int[] at = {1};
+        while (descriptor.charAt(at[0]) != ')') {
+            if (sb.charAt(sb.length() - 1) != '(') {
+                sb.append(", ");
+            }
+            sb.append(type(descriptor, at));
+        }
+        return sb.append(')').toString();
+    }
+
+    /** The return type of a method descriptor, or the type of a field descriptor, as Java source. */
+    public static String returnType(String descriptor) {
+        int[] at = {descriptor.indexOf(')') + 1};
+        return type(descriptor, at);
+    }
+
+    /** The type of a field descriptor as Java source. */
+    public static String type(String descriptor) {
+        return type(descriptor, new int[1]);
+    }
+
+    private static String type(String descriptor, int[] at) {
+        char c = descriptor.charAt(at[0]++);
+        return switch (c) {
+            case 'B' -> "byte";
+            case 'C' -> "char";
+            case 'D' -> "double";
+            case 'F' -> "float";
+            case 'I' -> "int";
+            case 'J' -> "long";
+            case 'S' -> "short";
+            case 'Z' -> "boolean";
+            case 'V' -> "void";
+            case '[' -> type(descriptor, at) + "[]";
+            case 'L' -> {
+                int end = descriptor.indexOf(';', at[0]);
+                String name = descriptor.substring(at[0], end);
+                at[0] = end + 1;
+                yield simpleName(name);
+            }
+            default -> throw new IllegalArgumentException("bad descriptor " + descriptor);
+        };
+    }
+}
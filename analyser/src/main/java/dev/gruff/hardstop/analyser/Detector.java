@@ -0,0 +1,36 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.function.Consumer;
+
+/**
+ * Finds the changes belonging to one section of the spec.
+ *
+ * Detectors only read the two models of a {@link Comparison} and report
+ * what they see, so they can run in any order and a new rule table needs
+ * nothing more than a new detector passed to {@link Classifier}.
+ *
+ * The classifier runs {@link #detect} once per package or run of a
+ * package's classes, concurrently, and {@link #detectLibrary} once for
+ * the whole library. A detector must therefore keep no state of its own
+ * between calls.
+ */
+public interface Detector {
+
+    /** The spec section this detector covers, A to K. */
+    char section();
+
+    /**
+     * Checks the classes of the comparison one at a time. The comparison
+     * may be one package's share of a larger one, or a run of a package's
+     * classes (see {@link Comparison#byPackage()} and
+     * {@link Comparison#split(int)}); the models behind it are always whole.
+     */
+    void detect(Comparison comparison, Consumer<Finding> findings);
+
+    /**
+     * Checks that span packages, such as the module descriptor or pairing
+     * removed classes with added ones. Given the whole comparison, once.
+     */
+    default void detectLibrary(Comparison comparison, Consumer<Finding> findings) {
+    }
+}
@@ -0,0 +1,102 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Section E: fields that disappear, change type or binding, or carry a new constant.
+ *
+ * Fields are followed by name, so a field whose type changed is reported
+ * as such rather than as removed. A field that is still found by the
+ * JVM's field lookup in a superclass or superinterface has moved, which
+ * the spec counts as fully shielded.
+ */
+final class FieldDetector implements Detector {
+
+    @Override
+    public char section() {
+        return 'E';
+    }
+
+    @Override
+    public void detect(Comparison comparison, Consumer<Finding> findings) {
+        ApiModel after = comparison.after();
+        for (Comparison.Pair pair : comparison.common()) {
+            ClassFile was = pair.before();
+            ClassFile now = pair.after();
+            List<Member> addedFields = new ArrayList<>();
+            for (Member f : now.fields()) {
+                if (f.isApi() && named(was, f) == null) {
+                    addedFields.add(f);
+                }
+            }
+            for (Member old : was.fields()) {
+                if (!old.isApi()) {
+                    continue;
+                }
+                Member f = named(now, old);
+                if (f != null) {
+                    compare(was, old, f, findings);
+                    continue;
+                }
+                ApiModel.Resolved inherited = after.findField(now, old);
+                if (inherited != null && inherited.member().descriptor().equals(old.descriptor()) && !inherited.member().isPrivate()) {
+                    findings.accept(Finding.of(Rule.FIELD_MOVED_TO_SUPERCLASS, was, old, "now declared in " + inherited.owner().binaryName()));
+                    continue;
+                }
+                findings.accept(Finding.of(Rule.FIELD_REMOVED, was, old, null));
+                List<Member> renamed = addedFields.stream()
+                        .filter(a -> a.descriptor().equals(old.descriptor()) && a.isStatic() == old.isStatic())
+                        .toList();
+                if (renamed.size() == 1) {
+                    findings.accept(Finding.of(Rule.FIELD_RENAMED, was, old, "now " + renamed.get(0).name()));
+                }
+            }
+        }
+    }
+
+    /**
+     * The field with the same name as the given one, whatever its type.
+     * The JVM matches descriptors too, so a field whose type changed is a
+     * different field to it; looking by name alone is what lets that be
+     * reported as a type change rather than a removal and an addition.
+     * The exact match wins over another field of the same name.
+     */
+    private static Member named(ClassFile type, Member like) {
+        Member exact = type.field(like);
+        if (exact != null) {
+            return exact;
+        }
+        for (Member f : type.fields()) {
+            if (f.name().equals(like.name())) {
+                return f;
+            }
+        }
+        return null;
+    }
+
+    private static void compare(ClassFile type, Member old, Member now, Consumer<Finding> findings) {
+        if (!old.descriptor().equals(now.descriptor())) {
+            findings.accept(Finding.of(Rule.FIELD_TYPE_CHANGED, type, old,
+                    Descriptors.type(old.descriptor()) + " -> " + Descriptors.type(now.descriptor())));
+        }
+        if (now.visibility() < old.visibility()) {
+            findings.accept(Finding.of(Rule.FIELD_VISIBILITY_REDUCED, type, old,
+                    Access.describe(old.visibility()) + " -> " + Access.describe(now.visibility())));
+        }
+        if (old.isStatic() != now.isStatic()) {
+            findings.accept(Finding.of(Rule.FIELD_STATIC_CHANGED, type, old, old.isStatic() ? "static -> instance" : "instance -> static"));
+        }
+        if (old.constantValue() != null && !Objects.equals(old.constantValue(), now.constantValue())) {
+            findings.accept(Finding.of(Rule.CONSTANT_VALUE_CHANGED, type, old,
+                    quote(old.constantValue()) + " -> " + (now.constantValue() == null ? "no longer a constant" : quote(now.constantValue()))
+                            + ", clients compiled against the old value keep it"));
+        }
+    }
+
+    private static String quote(Object value) {
+        return value instanceof String s ? '"' + s + '"' : String.valueOf(value);
+    }
+}
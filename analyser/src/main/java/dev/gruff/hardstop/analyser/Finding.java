@@ -0,0 +1,48 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.Comparator;
+
+/**
+ * One spec row matched by one change between two library versions.
+ *
+ * @param rule   the matching row
+ * @param type   binary name of the class the change is reported on, or the package for module rows
+ * @param member the field, method or constructor as Java text, null when the whole type is affected
+ * @param detail what changed, e.g. "public -> private"
+ */
+public record Finding(Rule rule, String type, String member, String detail) implements Comparable<Finding> {
+
+    private static final Comparator<Finding> ORDER = Comparator.comparing(Finding::rule)
+            .thenComparing(Finding::type)
+            .thenComparing(Finding::member, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Finding::detail, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    static Finding of(Rule rule, ClassFile type, Member member, String detail) {
+        return new Finding(rule, type.binaryName(), member == null ? null : member.toString(), detail);
+    }
+
+    static Finding of(Rule rule, ClassFile type, String detail) {
+        return of(rule, type, null, detail);
+    }
+
+    /** The type and member as Type#member. */
+    public String where() {
+        return member == null ? type : type + "#" + member;
+    }
+
+    @Override
+    public int compareTo(Finding other) {
+        return ORDER.compare(this, other);
+    }
+
+    @Override
+    public String toString() {
+        return toString(rule.shielding());
+    }
+
+    /** The finding with the shielding it was found to get in place of its row's. */
+    public String toString(Rule.Shielding shielding) {
+        return String.format("%c %-3s %-2s %-7s %-45s %s%s", rule.section(), rule.phase(), rule.certainty(), shielding,
+                rule.label(), where(), detail == null ? "" : "  (" + detail + ")");
+    }
+}
@@ -0,0 +1,188 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What a client would have to refer to for each finding of one diff to
+ * reach it, worked out once from the two library versions.
+ *
+ * Whether a change reaches a client depends on the library's hierarchy
+ * (a call through a subclass reaches a method the superclass declares)
+ * as well as on the client. Resolving the hierarchy here, once per diff,
+ * leaves only set lookups for each client, and gives the probes every
+ * client's {@link ClientUsage} Bloom filter is tested with before any of
+ * that: a client none of whose probes hit cannot be affected.
+ */
+public final class Footprint {
+
+    /**
+     * What reaches one finding: a reference to any of the types, or any
+     * class of the packages, a client class extending any of the extended
+     * types, a method or field reference with one of the ids on any of
+     * the owners, or a copy of one of the constants.
+     *
+     * @param always true if no reference can be ruled out, so every client is reached
+     */
+    record Reach(Finding finding, boolean always, Set<String> packages, Set<String> types, Set<String> extended,
+                 Set<String> owners, Set<Long> methods, Set<Long> fields, Set<Object> constants) {
+
+        Reach(Finding finding, boolean always, Set<String> packages, Set<String> types, Set<String> extended,
+              Set<String> owners, Set<Long> methods, Set<Long> fields) {
+            this(finding, always, packages, types, extended, owners, methods, fields, Set.of());
+        }
+    }
+
+    private final List<Reach> reaches;
+    private final long[] probes;
+    private final boolean always;
+
+    private Footprint(List<Reach> reaches) {
+        this.reaches = reaches;
+        Set<Long> all = new HashSet<>();
+        boolean any = false;
+        for (Reach r : reaches) {
+            any |= r.always();
+            r.packages().forEach(p -> all.add(ClientUsage.packageKey(p)));
+            r.types().forEach(t -> all.add(ClientUsage.typeKey(t)));
+            r.extended().forEach(t -> all.add(ClientUsage.extendsKey(t)));
+            r.constants().forEach(v -> all.add(ClientUsage.constantKey(v)));
+            for (String owner : r.owners()) {
+                r.methods().forEach(id -> all.add(ClientUsage.memberKey(owner, id, true)));
+                r.fields().forEach(id -> all.add(ClientUsage.memberKey(owner, id, false)));
+            }
+        }
+        this.always = any;
+        this.probes = all.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * The footprint of the findings of one diff.
+     *
+     * A class is reached through itself or any of its subtypes in either
+     * version; a superclass change also through the class's old
+     * supertypes, as a client handed an instance by a factory knows it by
+     * one of those. A member is reached through a reference to it on such
+     * a class, or by a client class extending one, since a subclass
+     * inherits every member. A changed constant, which javac copies into
+     * the client rather than reading the field, is reached through a copy
+     * of its old value in the client's constant pool. A constant small
+     * enough to be written into the instruction leaves no trace of the
+     * field or its class in the client, so it reaches every client.
+     * Members new in the later version and reflective lookups cannot show
+     * up as references, so for those the class stands in. A package, as
+     * module rows report, is reached through any class in it.
+     */
+    public static Footprint of(List<Finding> findings, ApiModel before, ApiModel after) {
+        Map<String, Set<String>> subtypes = new HashMap<>();
+        index(before, subtypes);
+        index(after, subtypes);
+        List<Reach> reaches = new ArrayList<>(findings.size());
+        for (Finding f : findings) {
+            reaches.add(reach(f, before, after, subtypes));
+        }
+        return new Footprint(reaches);
+    }
+
+    /** Number of findings. */
+    public int size() {
+        return reaches.size();
+    }
+
+    /** Number of distinct Bloom filter probes a client is tested with. */
+    public int probes() {
+        return probes.length;
+    }
+
+    List<Reach> reaches() {
+        return reaches;
+    }
+
+    long[] probeKeys() {
+        return probes;
+    }
+
+    /** True if some finding reaches every client, so none can be rejected on its filter. */
+    boolean always() {
+        return always;
+    }
+
+    private static void index(ApiModel model, Map<String, Set<String>> subtypes) {
+        for (ClassFile c : model.classes()) {
+            for (String s : model.superclassNames(c)) {
+                subtypes.computeIfAbsent(s, k -> new HashSet<>()).add(c.name());
+            }
+            for (String i : model.interfaces(c)) {
+                subtypes.computeIfAbsent(i, k -> new HashSet<>()).add(c.name());
+            }
+        }
+    }
+
+    private static Reach reach(Finding finding, ApiModel before, ApiModel after, Map<String, Set<String>> subtypes) {
+        Rule rule = finding.rule();
+        String type = finding.type().replace('.', '/');
+        ClassFile old = before.get(type);
+        ClassFile now = after.get(type);
+        if (old == null && now == null) {
+            return new Reach(finding, false, Set.of(type), Set.of(), Set.of(), Set.of(), Set.of(), Set.of());
+        }
+        Set<String> below = new HashSet<>(subtypes.getOrDefault(type, Set.of()));
+        below.add(type);
+        if (rule == Rule.CONSTANT_VALUE_CHANGED && old != null) {
+            Set<Object> values = new HashSet<>();
+            for (Member f : old.named(finding.member())) {
+                Object value = f.constantValue();
+                if (value != null && !ClientUsage.isPooled(value)) {
+                    // copied into an instruction, which names neither the field nor its class
+                    return new Reach(finding, true, Set.of(), Set.of(), Set.of(), Set.of(), Set.of(), Set.of());
+                }
+                if (value != null) {
+                    values.add(value);
+                }
+            }
+            if (!values.isEmpty()) {
+                return new Reach(finding, false, Set.of(), Set.of(), Set.of(), Set.of(), Set.of(), Set.of(), values);
+            }
+        }
+        if (finding.member() == null || rule == Rule.REFLECTION_ACCESS_REMOVED || rule == Rule.CONSTANT_VALUE_CHANGED) {
+            return byType(finding, type, below, before);
+        }
+        Set<Long> methods = new HashSet<>();
+        Set<Long> fields = new HashSet<>();
+        for (Member m : old == null ? List.<Member>of() : old.named(finding.member())) {
+            if (m.descriptor().startsWith("(")) {
+                methods.add(m.id());
+            } else {
+                fields.add(m.id());
+                if (old.isRecord()) {
+                    methods.add(Symbols.key(m.name(), "()" + m.descriptor()));
+                }
+            }
+        }
+        if (methods.isEmpty() && fields.isEmpty()) {
+            if (now == null || now.named(finding.member()).isEmpty()) {
+                return new Reach(finding, true, Set.of(), Set.of(), Set.of(), Set.of(), Set.of(), Set.of());
+            }
+            return byType(finding, type, below, before);
+        }
+        return new Reach(finding, false, Set.of(), Set.of(), below, below, methods, fields);
+    }
+
+    private static Reach byType(Finding finding, String type, Set<String> below, ApiModel before) {
+        Set<String> types = below;
+        ClassFile old = before.get(type);
+        if (finding.rule().section() == 'I' && old != null) {
+            types = new HashSet<>(below);
+            for (ClassFile s : before.superclasses(old)) {
+                if (before.get(s.name()) != null) {
+                    types.add(s.name());
+                }
+            }
+        }
+        return new Reach(finding, false, Set.of(), types, Set.of(), Set.of(), Set.of(), Set.of());
+    }
+}
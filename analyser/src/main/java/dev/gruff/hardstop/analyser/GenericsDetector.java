@@ -0,0 +1,119 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Section J: generic types that change under erasure, or change while their erasure stays the same.
+ *
+ * Erasure drift is a descriptor change to a generic method, so the old
+ * descriptor no longer links. Heap pollution is the opposite: the
+ * descriptor is unchanged, so everything links, but the Signature
+ * attribute says the type arguments differ and the casts the compiler
+ * put into clients fail later. A member that loses its Signature
+ * attribute is compared by its descriptor, which is a signature too.
+ * Signatures are only parsed for members
+ * whose descriptors match, and compared type by type, so a type
+ * variable renamed or a signature written differently for the same
+ * types is not reported.
+ */
+final class GenericsDetector implements Detector {
+
+    @Override
+    public char section() {
+        return 'J';
+    }
+
+    @Override
+    public void detect(Comparison comparison, Consumer<Finding> findings) {
+        Signatures signatures = comparison.signatures();
+        for (Comparison.Pair pair : comparison.common()) {
+            if (pair.unchanged()) {
+                continue;
+            }
+            ClassFile was = pair.before();
+            ClassFile now = pair.after();
+            for (Member old : was.methods()) {
+                if (!old.isApi()) {
+                    continue;
+                }
+                Member same = now.method(old);
+                if (same != null) {
+                    String after = same.signature() != null ? same.signature() : same.descriptor();
+                    if (old.signature() != null && !old.signature().equals(after)) {
+                        String changed = changed(signatures, old.signature(), after);
+                        if (changed != null) {
+                            findings.accept(Finding.of(Rule.HEAP_POLLUTION, was, old, changed));
+                        }
+                    }
+                    continue;
+                }
+                for (Member m : now.methods()) {
+                    if (m.name().equals(old.name()) && m.isApi() && (old.signature() != null || m.signature() != null)
+                            && arity(m.descriptor()) == arity(old.descriptor()) && was.method(m) == null) {
+                        findings.accept(Finding.of(Rule.ERASURE_DRIFT, was, old, "erases to " + m + " now"
+                                + (m.signature() != null ? ", declared " + declared(signatures, m) : "")));
+                    }
+                }
+            }
+            for (Member old : was.fields()) {
+                Member f = now.field(old);
+                if (old.isApi() && f != null && old.descriptor().equals(f.descriptor()) && old.signature() != null) {
+                    String changed = changed(signatures, old.signature(), f.signature() != null ? f.signature() : f.descriptor());
+                    if (changed != null) {
+                        findings.accept(Finding.of(Rule.HEAP_POLLUTION, was, old, changed));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * What changed between two signatures of a member whose descriptor did
+     * not, or null if they mean the same: a type variable of the method's
+     * own that is merely renamed changes nothing.
+     */
+    private static String changed(Signatures signatures, String before, String after) {
+        Signatures.Parsed was = signatures.parse(before);
+        Signatures.Parsed now = signatures.parse(after);
+        List<String> changes = new ArrayList<>();
+        if (!was.result().key().equals(now.result().key())) {
+            changes.add(was.result().text() + " -> " + now.result().text());
+        }
+        if (was.parameters().size() == now.parameters().size()) {
+            for (int i = 0; i < was.parameters().size(); i++) {
+                Signatures.Type a = was.parameters().get(i);
+                Signatures.Type b = now.parameters().get(i);
+                if (!a.key().equals(b.key())) {
+                    changes.add("parameter " + (i + 1) + " " + a.text() + " -> " + b.text());
+                }
+            }
+        }
+        return changes.isEmpty() ? null : String.join(", ", changes);
+    }
+
+    /** The method as its generic signature declares it, e.g. process(Collection<String>). */
+    private static String declared(Signatures signatures, Member m) {
+        List<String> parameters = new ArrayList<>();
+        for (Signatures.Type t : signatures.parse(m.signature()).parameters()) {
+            parameters.add(t.text());
+        }
+        return m.name() + "(" + String.join(", ", parameters) + ")";
+    }
+
+    private static int arity(String descriptor) {
+        int count = 0;
+        int i = 1;
+        while (descriptor.charAt(i) != ')') {
+            char c = descriptor.charAt(i);
+            if (c == '[') {
+                i++;
+                continue;
+            }
+            i = c == 'L' ? descriptor.indexOf(';', i) + 1 : i + 1;
+            count++;
+        }
+        return count;
+    }
+}
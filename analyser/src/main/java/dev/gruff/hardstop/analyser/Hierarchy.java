@@ -0,0 +1,265 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The supertype closure and inherited members of every class of one
+ * {@link ApiModel}, each computed on first use and kept.
+ *
+ * The section I rows ask the same questions of every class and of each
+ * of its ancestors in turn, which walking the chain afresh for every
+ * query makes quadratic in the depth of the hierarchy. Here each type's
+ * closure is walked once, and its method and field tables are built the
+ * first time a member is resolved on it.
+ *
+ * An index made for a model read against a base (see
+ * {@link ApiModel#read(java.nio.file.Path, ApiModel)}) starts from the
+ * base's index: a type's entry carries over when the type and every
+ * ancestor it resolved are still the very same class files, and is
+ * recomputed when any of them changed.
+ */
+final class Hierarchy {
+
+    /**
+     * What one type inherits. The member tables are filled lazily and may
+     * be built twice by racing threads; both builds give the same table.
+     */
+    static final class Node {
+
+        final ClassFile type;
+        final List<ClassFile> superclasses;
+        final List<String> superclassNames;
+        final Set<String> interfaces;
+        final Set<String> ancestors;
+        /** Every supertype named in the closure, and what it resolved to then; null if it did not. */
+        private final Map<String, ClassFile> resolved;
+        private volatile LongMap<ApiModel.Resolved> chainMethods;
+        private volatile LongMap<ApiModel.Resolved> interfaceMethods;
+        private volatile LongMap<ApiModel.Resolved> fields;
+
+        private Node(ClassFile type, List<ClassFile> superclasses, List<String> superclassNames, Set<String> interfaces,
+                     Map<String, ClassFile> resolved) {
+            this.type = type;
+            this.superclasses = Collections.unmodifiableList(superclasses);
+            this.superclassNames = Collections.unmodifiableList(superclassNames);
+            this.interfaces = Collections.unmodifiableSet(interfaces);
+            Set<String> all = new HashSet<>(superclassNames);
+            all.addAll(interfaces);
+            this.ancestors = all;
+            this.resolved = resolved;
+        }
+    }
+
+    private final ApiModel model;
+    private final Hierarchy base;
+    private final Map<String, Node> nodes = new ConcurrentHashMap<>();
+    private final AtomicInteger computed = new AtomicInteger();
+    private final AtomicInteger carried = new AtomicInteger();
+    private volatile Map<String, List<ClassFile>> subclasses;
+
+    Hierarchy(ApiModel model, Hierarchy base) {
+        this.model = model;
+        this.base = base;
+    }
+
+    /** The type's entry, from the cache, carried over from the base, or computed now. */
+    Node of(ClassFile type) {
+        Node node = nodes.get(type.name());
+        if (node != null && node.type == type) {
+            return node;
+        }
+        if (node != null) {
+            // a class of another model with the same name: answer, but do not cache
+            return compute(type);
+        }
+        Node old = base == null ? null : base.nodes.get(type.name());
+        if (old != null && old.type == type && unchanged(old)) {
+            carried.incrementAndGet();
+            node = old;
+        } else {
+            computed.incrementAndGet();
+            node = compute(type);
+        }
+        Node raced = nodes.putIfAbsent(type.name(), node);
+        return raced != null ? raced : node;
+    }
+
+    /** Methods of the class chain by key, the nearest declaration winning, private and static ones included. */
+    LongMap<ApiModel.Resolved> chainMethods(Node node) {
+        LongMap<ApiModel.Resolved> table = node.chainMethods;
+        if (table == null) {
+            int size = node.type.methods().size();
+            for (ClassFile c : node.superclasses) {
+                size += c.methods().size();
+            }
+            table = new LongMap<>(size);
+            addAll(table, node.type);
+            for (ClassFile c : node.superclasses) {
+                addAll(table, c);
+            }
+            node.chainMethods = table;
+        }
+        return table;
+    }
+
+    /**
+     * The maximally specific superinterface method for each key (JVMS
+     * 5.4.3.3): a default beats an abstract method, and otherwise the
+     * method of the more specific interface wins.
+     */
+    LongMap<ApiModel.Resolved> interfaceMethods(Node node) {
+        LongMap<ApiModel.Resolved> table = node.interfaceMethods;
+        if (table == null) {
+            List<ClassFile> faces = new ArrayList<>();
+            int size = 0;
+            for (String i : node.interfaces) {
+                ClassFile face = model.resolve(i);
+                if (face != null) {
+                    faces.add(face);
+                    size += face.methods().size();
+                }
+            }
+            LongMap<ApiModel.Resolved> found = new LongMap<>(size);
+            for (ClassFile face : faces) {
+                for (Member m : face.methods()) {
+                    if (m.isPrivate() || m.isStatic()) {
+                        continue;
+                    }
+                    ApiModel.Resolved best = found.get(m.id());
+                    if (best == null || (best.member().isAbstract() && !m.isAbstract())
+                            || (best.member().isAbstract() == m.isAbstract() && model.isSubtype(face.name(), best.owner().name()))) {
+                        found.put(m.id(), new ApiModel.Resolved(face, m));
+                    }
+                }
+            }
+            table = found;
+            node.interfaceMethods = table;
+        }
+        return table;
+    }
+
+    /**
+     * Fields by key in getfield's lookup order (JVMS 5.4.3.2): the type's
+     * own, then its direct superinterfaces', recursively, then its
+     * superclass's. Built from the tables of those supertypes.
+     */
+    LongMap<ApiModel.Resolved> fields(Node node) {
+        LongMap<ApiModel.Resolved> table = node.fields;
+        if (table == null) {
+            List<LongMap<ApiModel.Resolved>> inherited = new ArrayList<>();
+            int size = node.type.fields().size();
+            for (String i : node.type.interfaces()) {
+                ClassFile face = model.resolve(i);
+                if (face != null && face != node.type) {
+                    LongMap<ApiModel.Resolved> t = fields(of(face));
+                    inherited.add(t);
+                    size += t.size();
+                }
+            }
+            ClassFile parent = node.superclasses.isEmpty() ? null : node.superclasses.get(0);
+            if (parent != null) {
+                LongMap<ApiModel.Resolved> t = fields(of(parent));
+                inherited.add(t);
+                size += t.size();
+            }
+            LongMap<ApiModel.Resolved> all = new LongMap<>(size);
+            for (Member f : node.type.fields()) {
+                all.putIfAbsent(f.id(), new ApiModel.Resolved(node.type, f));
+            }
+            for (LongMap<ApiModel.Resolved> t : inherited) {
+                t.forEach(all::putIfAbsent);
+            }
+            table = all;
+            node.fields = table;
+        }
+        return table;
+    }
+
+    /** The classes of the model whose direct superclass is the named one, indexed on first use. */
+    List<ClassFile> subclasses(String name) {
+        Map<String, List<ClassFile>> index = subclasses;
+        if (index == null) {
+            index = new HashMap<>();
+            for (ClassFile c : model.classes()) {
+                if (c.superName() != null) {
+                    index.computeIfAbsent(c.superName(), k -> new ArrayList<>()).add(c);
+                }
+            }
+            subclasses = index;
+        }
+        return index.getOrDefault(name, List.of());
+    }
+
+    /** Entries computed by this index. */
+    int computed() {
+        return computed.get();
+    }
+
+    /** Entries taken over from the base's index because nothing they depend on changed. */
+    int carried() {
+        return carried.get();
+    }
+
+    private boolean unchanged(Node old) {
+        for (Map.Entry<String, ClassFile> e : old.resolved.entrySet()) {
+            if (model.resolve(e.getKey()) != e.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Node compute(ClassFile type) {
+        Map<String, ClassFile> resolved = new HashMap<>();
+        List<ClassFile> chain = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        String name = type.superName();
+        while (name != null && !resolved.containsKey(name) && !name.equals(type.name())) {
+            names.add(name);
+            ClassFile next = model.resolve(name);
+            resolved.put(name, next);
+            if (next == null) {
+                break;
+            }
+            chain.add(next);
+            name = next.superName();
+        }
+
+        Set<String> interfaces = new LinkedHashSet<>();
+        Deque<ClassFile> todo = new ArrayDeque<>();
+        todo.add(type);
+        todo.addAll(chain);
+        while (!todo.isEmpty()) {
+            ClassFile current = todo.poll();
+            for (String i : current.interfaces()) {
+                if (interfaces.add(i)) {
+                    ClassFile next = model.resolve(i);
+                    resolved.put(i, next);
+                    if (next != null) {
+                        todo.add(next);
+                    }
+                }
+            }
+        }
+        return new Node(type, chain, names, interfaces, resolved);
+    }
+
+    private static void addAll(LongMap<ApiModel.Resolved> table, ClassFile owner) {
+        for (Member m : owner.methods()) {
+            if (table.get(m.id()) == null) {
+                table.putIfAbsent(m.id(), new ApiModel.Resolved(owner, m));
+            }
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Section I: changes to the superclass chain, and to what a class inherits through it.
+ *
+ * A new direct superclass is classified by where it sat before: one that
+ * was already an ancestor means classes were removed from the chain, an
+ * old superclass that is still an ancestor means one was inserted, and
+ * anything else is a replacement. Inherited members are compared through
+ * the JVM's own lookup, so a method that moved elsewhere in the chain is
+ * not reported as lost.
+ */
+final class HierarchyDetector implements Detector {
+
+    private static final Map<String, String> OBJECT_METHODS = Map.of(
+            "equals", "(Ljava/lang/Object;)Z",
+            "hashCode", "()I",
+            "toString", "()Ljava/lang/String;");
+
+    @Override
+    public char section() {
+        return 'I';
+    }
+
+    @Override
+    public void detect(Comparison comparison, Consumer<Finding> findings) {
+        ApiModel before = comparison.before();
+        ApiModel after = comparison.after();
+        for (Comparison.Pair pair : comparison.common()) {
+            ClassFile was = pair.before();
+            ClassFile now = pair.after();
+            if (was.isInterface() || now.isInterface()) {
+                continue;
+            }
+            superclass(before, after, was, now, findings);
+
+            if (!was.isAbstract() && now.isAbstract()) {
+                findings.accept(Finding.of(Rule.SUPERCLASS_MADE_ABSTRACT, was, null));
+            } else if (was.isAbstract() && !now.isAbstract()) {
+                findings.accept(Finding.of(Rule.SUPERCLASS_MADE_CONCRETE, was, null));
+            }
+            if (now.visibility() < was.visibility() && !was.isFinal()) {
+                List<String> subs = before.subclasses(was.name()).stream()
+                        .filter(s -> s.isApi())
+                        .map(ClassFile::binaryName).toList();
+                if (!subs.isEmpty()) {
+                    findings.accept(Finding.of(Rule.SUPERCLASS_VISIBILITY_REDUCED, was,
+                            Access.describe(was.visibility()) + " -> " + Access.describe(now.visibility()) + ", extended by " + String.join(", ", subs)));
+                }
+            }
+
+            inheritedMethods(before, after, was, now, findings);
+            if (!was.isFinal()) {
+                finalMethods(before, was, now, findings);
+                shadowedFields(after, was, now, findings);
+            }
+            supersededDefaults(before, after, was, now, findings);
+            objectMethods(was, now, findings);
+        }
+        unexportedSuperclasses(comparison, findings);
+    }
+
+    private static void superclass(ApiModel before, ApiModel after, ClassFile was, ClassFile now, Consumer<Finding> findings) {
+        String oldSuper = was.superName();
+        String newSuper = now.superName();
+        if (oldSuper == null || oldSuper.equals(newSuper) || was.isEnum() || was.isRecord() || now.isEnum() || now.isRecord()) {
+            return;
+        }
+        String change = "extends " + Descriptors.binaryName(oldSuper) + " -> extends " + Descriptors.binaryName(newSuper);
+        if (before.superclassNames(was).contains(newSuper)) {
+            findings.accept(Finding.of(Rule.SUPERCLASS_REMOVED, was, change));
+        } else if (after.superclassNames(now).contains(oldSuper)) {
+            findings.accept(Finding.of(Rule.SUPERCLASS_INSERTED, was, change));
+        } else {
+            findings.accept(Finding.of(Rule.SUPERCLASS_REPLACED, was, change));
+        }
+    }
+
+    /** Methods the old class inherited from a library superclass that the new class no longer resolves. */
+    private static void inheritedMethods(ApiModel before, ApiModel after, ClassFile was, ClassFile now, Consumer<Finding> findings) {
+        Map<String, ApiModel.Resolved> inherited = new LinkedHashMap<>();
+        for (ClassFile ancestor : before.superclasses(was)) {
+            if (before.get(ancestor.name()) == null) {
+                break;
+            }
+            for (Member m : ancestor.methods()) {
+                if (m.isApi() && !m.isConstructor() && was.method(m) == null) {
+                    inherited.putIfAbsent(m.key(), new ApiModel.Resolved(ancestor, m));
+                }
+            }
+        }
+        for (ApiModel.Resolved r : inherited.values()) {
+            Member m = r.member();
+            ApiModel.Resolved still = after.findMethod(now, m);
+            if (still != null && !still.member().isPrivate()) {
+                continue;
+            }
+            List<String> sameName = new ArrayList<>();
+            for (ClassFile c = now; c != null; c = after.resolve(c.superName())) {
+                for (Member other : c.methods()) {
+                    if (other.name().equals(m.name()) && other.isApi()) {
+                        sameName.add(other.toString());
+                    }
+                }
+            }
+            String from = "inherited from " + r.owner().binaryName();
+            if (sameName.isEmpty()) {
+                findings.accept(Finding.of(Rule.INHERITED_METHOD_REMOVED, was, m, from));
+            } else {
+                findings.accept(Finding.of(Rule.INHERITED_METHOD_SIGNATURE_CHANGED, was, m, from + ", now " + String.join(", ", sameName)));
+            }
+        }
+    }
+
+    /** Methods subclasses could override that are now final. */
+    private static void finalMethods(ApiModel before, ClassFile was, ClassFile now, Consumer<Finding> findings) {
+        for (Member old : was.methods()) {
+            Member m = now.method(old);
+            if (!old.isApi() || old.isConstructor() || old.isStatic() || old.isFinal() || m == null || !m.isFinal()) {
+                continue;
+            }
+            List<String> overriders = new ArrayList<>();
+            for (ClassFile sub : before.classes()) {
+                if (sub != was && sub.method(old) != null && before.superclassNames(sub).contains(was.name())) {
+                    overriders.add(sub.binaryName());
+                }
+            }
+            findings.accept(Finding.of(Rule.INHERITED_METHOD_MADE_FINAL, was, old,
+                    overriders.isEmpty() ? "overriding subclasses fail to load" : "overridden by " + String.join(", ", overriders)));
+        }
+    }
+
+    /** New fields with the same name as a field that a subclass declares. */
+    private static void shadowedFields(ApiModel after, ClassFile was, ClassFile now, Consumer<Finding> findings) {
+        for (Member f : now.fields()) {
+            if (!f.isApi() || was.field(f) != null) {
+                continue;
+            }
+            List<String> hiders = new ArrayList<>();
+            for (ClassFile sub : after.classes()) {
+                if (sub != now && sub.field(f) != null && after.superclassNames(sub).contains(now.name())) {
+                    hiders.add(sub.binaryName());
+                }
+            }
+            if (!hiders.isEmpty()) {
+                findings.accept(Finding.of(Rule.FIELD_SHADOWED, was, f,
+                        "hidden by the field of the same name in " + String.join(", ", hiders) + ", which one is read depends on the static type"));
+            }
+        }
+    }
+
+    /** Defaults the old class inherited from an interface that a superclass method now takes precedence over. */
+    private static void supersededDefaults(ApiModel before, ApiModel after, ClassFile was, ClassFile now, Consumer<Finding> findings) {
+        for (String face : before.interfaces(was)) {
+            ClassFile i = before.resolve(face);
+            if (i == null) {
+                continue;
+            }
+            for (Member m : i.methods()) {
+                if (m.isAbstract() || m.isStatic() || m.isPrivate()) {
+                    continue;
+                }
+                ApiModel.Resolved old = before.findMethod(was, m);
+                ApiModel.Resolved resolved = after.findMethod(now, m);
+                if (old != null && old.owner().isInterface() && resolved != null && !resolved.owner().isInterface()
+                        && resolved.owner() != now) {
+                    findings.accept(Finding.of(Rule.DEFAULT_METHOD_SUPERSEDED, was, m,
+                            resolved.owner().binaryName() + "." + m + " now wins over the default in " + Descriptors.binaryName(face)));
+                }
+            }
+        }
+    }
+
+    private static void objectMethods(ClassFile was, ClassFile now, Consumer<Finding> findings) {
+        List<String> changes = new ArrayList<>();
+        OBJECT_METHODS.forEach((name, descriptor) -> {
+            boolean old = declared(was, name, descriptor);
+            boolean current = declared(now, name, descriptor);
+            if (old != current) {
+                changes.add((current ? "now overrides " : "no longer overrides ") + name);
+            }
+        });
+        if (!changes.isEmpty()) {
+            changes.sort(null);
+            findings.accept(Finding.of(Rule.OBJECT_METHODS_CHANGED, was, String.join(", ", changes)));
+        }
+    }
+
+    private static boolean declared(ClassFile type, String name, String descriptor) {
+        Member m = type.method(name, descriptor);
+        return m != null && !m.isAbstract();
+    }
+
+    /** Exported classes whose superclass sits in a package the new module no longer exports. */
+    private static void unexportedSuperclasses(Comparison comparison, Consumer<Finding> findings) {
+        ModuleInfo was = comparison.before().module();
+        ModuleInfo now = comparison.after().module();
+        if (was == null || now == null) {
+            return;
+        }
+        for (Comparison.Pair pair : comparison.common()) {
+            ClassFile type = pair.after();
+            String parent = type.superName();
+            if (parent == null || comparison.after().get(parent) == null || !now.exports(type.packageName())) {
+                continue;
+            }
+            String pkg = Descriptors.packageOf(parent);
+            if (was.exports(pkg) && !now.exports(pkg)) {
+                findings.accept(Finding.of(Rule.SUPERCLASS_NOT_EXPORTED, pair.before(),
+                        Descriptors.binaryName(parent) + " is in " + Descriptors.binaryName(pkg) + ", no longer exported by " + now.name()));
+            }
+        }
+    }
+}
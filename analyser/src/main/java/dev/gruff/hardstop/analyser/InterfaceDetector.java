@@ -0,0 +1,165 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Section F: new obligations, and new defaults, handed to implementors and subclasses.
+ *
+ * Conflicting defaults are found from the classes of the old version that
+ * implement two interfaces without overriding a method both now supply as
+ * a default: a client class doing the same, compiled against the old
+ * version, fails when it calls that method. The finding is reported on
+ * the interface whose default is new.
+ */
+final class InterfaceDetector implements Detector {
+
+    @Override
+    public char section() {
+        return 'F';
+    }
+
+    @Override
+    public void detect(Comparison comparison, Consumer<Finding> findings) {
+        ApiModel before = comparison.before();
+        ApiModel after = comparison.after();
+        for (Comparison.Pair pair : comparison.common()) {
+            ClassFile was = pair.before();
+            ClassFile now = pair.after();
+            if (was.isInterface() && now.isInterface() && !now.isAnnotation()) {
+                for (Member m : now.methods()) {
+                    if (m.isApi() && !m.isStatic() && was.method(m) == null) {
+                        findings.accept(Finding.of(m.isAbstract() ? Rule.INTERFACE_ADDS_ABSTRACT_METHOD : Rule.INTERFACE_ADDS_DEFAULT_METHOD,
+                                was, m, null));
+                    }
+                }
+            }
+            if (was.isInterface() || now.isInterface() || !now.isAbstract()) {
+                continue;
+            }
+            if (was.isAbstract()) {
+                for (Member m : now.methods()) {
+                    if (m.isApi() && m.isAbstract() && was.method(m) == null) {
+                        findings.accept(Finding.of(Rule.ABSTRACT_CLASS_ADDS_ABSTRACT_METHOD, was, m, null));
+                    }
+                }
+            }
+            Set<String> oldInterfaces = before.interfaces(was);
+            for (String face : after.interfaces(now)) {
+                if (!oldInterfaces.contains(face) && now.interfaces().contains(face)) {
+                    List<String> open = unimplemented(after, now, face);
+                    findings.accept(Finding.of(Rule.ABSTRACT_CLASS_ADDS_INTERFACE, was,
+                            "implements " + Descriptors.binaryName(face)
+                                    + (open.isEmpty() ? ", no new obligations" : ", subclasses must implement " + String.join(", ", open))));
+                }
+            }
+            for (String face : oldInterfaces) {
+                for (String method : absorbed(before, after, was, now, face)) {
+                    findings.accept(new Finding(Rule.ABSTRACT_CLASS_IMPLEMENTS_INTERFACE_METHODS, was.binaryName(), method,
+                            "implements " + Descriptors.binaryName(face)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Conflicting defaults, which look at every class of the old version
+     * and report each conflict once, on the first class found to have it.
+     */
+    @Override
+    public void detectLibrary(Comparison comparison, Consumer<Finding> findings) {
+        conflictingDefaults(comparison, findings);
+    }
+
+    /** Abstract methods of the interface that the class and its superclasses do not implement. */
+    private static List<String> unimplemented(ApiModel model, ClassFile type, String face) {
+        List<String> open = new ArrayList<>();
+        ClassFile i = model.resolve(face);
+        if (i == null) {
+            return open;
+        }
+        for (Member m : i.methods()) {
+            if (m.isAbstract() && !m.isStatic()) {
+                ApiModel.Resolved r = model.findMethod(type, m);
+                if (r == null || r.member().isAbstract()) {
+                    open.add(m.toString());
+                }
+            }
+        }
+        return open;
+    }
+
+    /** Interface methods the old class left to its subclasses and the new class implements itself. */
+    private static List<String> absorbed(ApiModel before, ApiModel after, ClassFile was, ClassFile now, String face) {
+        List<String> methods = new ArrayList<>();
+        ClassFile i = after.resolve(face);
+        if (i == null) {
+            return methods;
+        }
+        for (Member m : i.methods()) {
+            if (!m.isAbstract() || m.isStatic()) {
+                continue;
+            }
+            ApiModel.Resolved old = before.findMethod(was, m);
+            Member impl = now.method(m);
+            if ((old == null || old.member().isAbstract()) && impl != null && !impl.isAbstract()) {
+                methods.add(m.toString());
+            }
+        }
+        return methods;
+    }
+
+    private static void conflictingDefaults(Comparison comparison, Consumer<Finding> findings) {
+        ApiModel before = comparison.before();
+        ApiModel after = comparison.after();
+        Set<String> reported = new LinkedHashSet<>();
+        for (ClassFile type : before.classes()) {
+            if (type.isInterface() || !type.isApi()) {
+                continue;
+            }
+            List<ClassFile> faces = new ArrayList<>();
+            for (String name : before.interfaces(type)) {
+                ClassFile face = after.get(name);
+                if (face != null) {
+                    faces.add(face);
+                }
+            }
+            for (ClassFile face : faces) {
+                for (Member m : face.methods()) {
+                    if (m.isStatic() || m.isAbstract() || m.isPrivate() || declaresConcrete(before, type, m)) {
+                        continue;
+                    }
+                    ClassFile oldFace = before.get(face.name());
+                    Member old = oldFace == null ? null : oldFace.method(m);
+                    if (old != null && !old.isAbstract()) {
+                        continue;
+                    }
+                    for (ClassFile other : faces) {
+                        Member rival = other.method(m);
+                        if (other != face && rival != null && !rival.isAbstract() && !rival.isStatic()
+                                && !after.isSubtype(face.name(), other.name()) && !after.isSubtype(other.name(), face.name())
+                                && reported.add(face.name() + "#" + m.key() + "#" + other.name())) {
+                            findings.accept(Finding.of(Rule.CONFLICTING_DEFAULT_METHODS, face, m,
+                                    "conflicts with " + other.binaryName() + "." + m + " in classes implementing both, such as "
+                                            + type.binaryName()));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /** True when the old class or one of its superclasses has a body for the method. */
+    private static boolean declaresConcrete(ApiModel model, ClassFile type, Member method) {
+        for (ClassFile c = type; c != null; c = model.resolve(c.superName())) {
+            Member m = c.method(method);
+            if (m != null && !m.isAbstract()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,277 @@
+package dev.gruff.hardstop.analyser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * A jar read through a memory mapping of the file instead of java.util.zip.
+ *
+ * The central directory is parsed in place when the jar is opened, which
+ * gives every entry's name, CRC, sizes and offset without touching the
+ * entries themselves. An entry's bytes are only looked at when it is
+ * read, and checked against the CRC then: a stored entry is a slice of
+ * the mapping, a deflated one is inflated into a buffer borrowed from a
+ * pool shared by all readers and returned as soon as the caller is done
+ * with it. Reading thousands of
+ * jars therefore allocates a handful of buffers and inflaters, not an
+ * array and a stream per class.
+ */
+public final class JarReader implements Closeable {
+
+    /**
+     * One central directory entry.
+     *
+     * @param method         0 for stored, 8 for deflated
+     * @param crc            CRC-32 of the uncompressed bytes
+     * @param compressedSize length of the entry's data in the file
+     * @param size           length of the entry once inflated
+     * @param offset         position of the entry's local header in the file
+     */
+    public record Entry(String name, int method, int crc, int compressedSize, int size, int offset) {
+
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+    }
+
+    static final int STORED = 0;
+    static final int DEFLATED = 8;
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END = 0x06054b50;
+    private static final int ZIP64_END = 0x06064b50;
+    private static final int ZIP64_LOCATOR = 0x07064b50;
+    private static final int END_SIZE = 22;
+    private static final int MAX_COMMENT = 0xFFFF;
+
+    private static final int POOL_SIZE = 2 * Runtime.getRuntime().availableProcessors();
+    private static final int MIN_BUFFER = 64 * 1024;
+    private static final BlockingQueue<ByteBuffer> BUFFERS = new ArrayBlockingQueue<>(POOL_SIZE);
+    private static final BlockingQueue<Inflater> INFLATERS = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteBuffer map;
+    private final List<Entry> entries;
+
+    private JarReader(Path path, FileChannel channel, ByteBuffer map, List<Entry> entries) {
+        this.path = path;
+        this.channel = channel;
+        this.map = map;
+        this.entries = entries;
+    }
+
+    /**
+     * Maps the jar and reads its central directory.
+     *
+     * @throws ZipException if the file is not a zip file or is larger than one mapping can hold
+     */
+    public static JarReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new ZipException(path + " is larger than 2 GB");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            ByteBuffer map = mapped.order(ByteOrder.LITTLE_ENDIAN);
+            return new JarReader(path, channel, map, centralDirectory(path, map));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    /** Entries in central directory order, directories included. */
+    public List<Entry> entries() {
+        return entries;
+    }
+
+    /**
+     * Hands the entry's uncompressed bytes to the reader and returns what it returns.
+     *
+     * The buffer is big endian, positioned at the first byte and limited to
+     * the entry's size. It is only valid until the reader returns: deflated
+     * entries are inflated into a pooled buffer that the next read reuses,
+     * so a reader that keeps any of it must copy what it keeps.
+     *
+     * @throws ZipException if the entry's data is corrupt or does not match its CRC
+     */
+    public <T> T read(Entry entry, Function<ByteBuffer, T> reader) throws IOException {
+        int local = entry.offset();
+        if (local + 30 > map.limit() || map.getInt(local) != LOCAL_HEADER) {
+            throw new ZipException("bad local header for " + entry.name() + " in " + path);
+        }
+        int data = local + 30 + u2(local + 26) + u2(local + 28);
+        if (data + entry.compressedSize() > map.limit()) {
+            throw new ZipException(entry.name() + " runs past the end of " + path);
+        }
+        ByteBuffer compressed = map.slice(data, entry.compressedSize()).order(ByteOrder.BIG_ENDIAN);
+        return switch (entry.method()) {
+            case STORED -> reader.apply(checked(entry, compressed));
+            case DEFLATED -> inflate(entry, compressed, reader);
+            default -> throw new ZipException("unsupported compression method " + entry.method() + " for " + entry.name());
+        };
+    }
+
+    /** Reads the entry into an array of its own, for callers that keep the bytes. */
+    public byte[] bytes(Entry entry) throws IOException {
+        return read(entry, buffer -> {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+        });
+    }
+
+    /**
+     * Releases the file. Slices of the mapping that a reader kept stay
+     * readable; the mapping goes when the last of them does.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return path + " (" + entries.size() + " entries)";
+    }
+
+    private <T> T inflate(Entry entry, ByteBuffer compressed, Function<ByteBuffer, T> reader) throws ZipException {
+        ByteBuffer buffer = borrow(entry.size());
+        Inflater inflater = INFLATERS.poll();
+        if (inflater == null) {
+            inflater = new Inflater(true);
+        }
+        try {
+            inflater.setInput(compressed);
+            while (buffer.hasRemaining() && !inflater.finished()) {
+                if (inflater.inflate(buffer) == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+            }
+            if (buffer.hasRemaining()) {
+                throw new ZipException(entry.name() + " in " + path + " inflates to fewer than " + entry.size() + " bytes");
+            }
+            buffer.flip();
+            return reader.apply(checked(entry, buffer));
+        } catch (DataFormatException e) {
+            throw new ZipException("cannot inflate " + entry.name() + " in " + path + ": " + e.getMessage());
+        } finally {
+            inflater.reset();
+            if (!INFLATERS.offer(inflater)) {
+                inflater.end();
+            }
+            buffer.clear();
+            BUFFERS.offer(buffer);
+        }
+    }
+
+    /** The entry's bytes, once their CRC-32 is found to match the central directory's. */
+    private ByteBuffer checked(Entry entry, ByteBuffer bytes) throws ZipException {
+        CRC32 crc = new CRC32();
+        crc.update(bytes.duplicate());
+        if ((int) crc.getValue() != entry.crc()) {
+            throw new ZipException("invalid entry CRC for " + entry.name() + " in " + path + " (expected 0x"
+                    + Integer.toHexString(entry.crc()) + " but got 0x" + Long.toHexString(crc.getValue()) + ")");
+        }
+        return bytes;
+    }
+
+    /**
+     * A pooled buffer limited to the size, or a new one if the pool has
+     * none big enough. A buffer that is too small is dropped, so the pool
+     * settles on buffers that fit the largest classes being read.
+     */
+    private static ByteBuffer borrow(int size) {
+        ByteBuffer buffer = BUFFERS.poll();
+        if (buffer == null || buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(Math.max(MIN_BUFFER, Integer.highestOneBit(Math.max(size - 1, 1)) << 1));
+        }
+        return buffer.limit(size);
+    }
+
+    private static List<Entry> centralDirectory(Path path, ByteBuffer map) throws ZipException {
+        int end = findEnd(path, map);
+        long count = u2(map, end + 10);
+        long offset = Integer.toUnsignedLong(map.getInt(end + 16));
+        if (count == 0xFFFF || offset == 0xFFFFFFFFL) {
+            int locator = end - 20;
+            if (locator < 0 || map.getInt(locator) != ZIP64_LOCATOR) {
+                throw new ZipException("no zip64 end record in " + path);
+            }
+            long record = map.getLong(locator + 8);
+            if (record < 0 || record + 56 > map.limit() || map.getInt((int) record) != ZIP64_END) {
+                throw new ZipException("bad zip64 end record in " + path);
+            }
+            count = map.getLong((int) record + 32);
+            offset = map.getLong((int) record + 48);
+        }
+        if (offset < 0 || offset > end || count > map.limit() / 46) {
+            throw new ZipException("bad central directory in " + path);
+        }
+
+        List<Entry> entries = new ArrayList<>((int) count);
+        int at = (int) offset;
+        for (long i = 0; i < count; i++) {
+            if (at + 46 > end || map.getInt(at) != CENTRAL_HEADER) {
+                throw new ZipException("bad central directory entry " + i + " in " + path);
+            }
+            int nameLength = u2(map, at + 28);
+            int extraLength = u2(map, at + 30);
+            int commentLength = u2(map, at + 32);
+            byte[] name = new byte[nameLength];
+            map.get(at + 46, name);
+            int compressed = map.getInt(at + 20);
+            int size = map.getInt(at + 24);
+            int local = map.getInt(at + 42);
+            if (compressed < 0 || size < 0 || local < 0) {
+                throw new ZipException("zip64 entries are not supported: " + path);
+            }
+            entries.add(new Entry(new String(name, StandardCharsets.UTF_8), u2(map, at + 10), map.getInt(at + 16),
+                    compressed, size, local));
+            at += 46 + nameLength + extraLength + commentLength;
+        }
+        return List.copyOf(entries);
+    }
+
+    /** The end of central directory record, found by scanning back over the archive comment. */
+    private static int findEnd(Path path, ByteBuffer map) throws ZipException {
+        int last = map.limit() - END_SIZE;
+        for (int at = last; at >= 0 && at >= last - MAX_COMMENT; at--) {
+            if (map.getInt(at) == END && at + END_SIZE + u2(map, at + 20) == map.limit()) {
+                return at;
+            }
+        }
+        throw new ZipException(path + " is not a zip file");
+    }
+
+    private int u2(int at) {
+        return u2(map, at);
+    }
+
+    private static int u2(ByteBuffer map, int at) {
+        return map.getShort(at) & 0xFFFF;
+    }
+}
@@ -0,0 +1,59 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.function.Consumer;
+
+/**
+ * Section B: a class that turns into another kind of type, or closes itself to subclasses.
+ */
+final class KindDetector implements Detector {
+
+    @Override
+    public char section() {
+        return 'B';
+    }
+
+    @Override
+    public void detect(Comparison comparison, Consumer<Finding> findings) {
+        for (Comparison.Pair pair : comparison.common()) {
+            if (pair.unchanged()) {
+                continue;
+            }
+            ClassFile before = pair.before();
+            ClassFile after = pair.after();
+            String change = before.kind() + " -> " + after.kind();
+            boolean kindChanged = !category(before).equals(category(after));
+
+            if (before.isInterface() != after.isInterface()) {
+                findings.accept(Finding.of(Rule.CLASS_INTERFACE_SWAP, before, change));
+            } else if (!before.isRecord() && after.isRecord()) {
+                findings.accept(Finding.of(Rule.CLASS_TO_RECORD, before, change));
+            } else if (!before.isEnum() && after.isEnum()) {
+                findings.accept(Finding.of(Rule.CLASS_TO_ENUM, before, change));
+            }
+
+            if (!kindChanged && !before.isInterface() && !before.isFinal() && after.isFinal()) {
+                findings.accept(Finding.of(Rule.CLASS_MADE_FINAL, before, null));
+            }
+            if (!before.isSealed() && after.isSealed()) {
+                findings.accept(Finding.of(Rule.CLASS_MADE_SEALED, before, "permits " + names(after)));
+            }
+            if (before.isSealed()) {
+                for (String sub : before.permittedSubclasses()) {
+                    if (!after.permittedSubclasses().contains(sub)) {
+                        findings.accept(Finding.of(Rule.PERMITS_SUBCLASS_REMOVED, before,
+                                Descriptors.binaryName(sub) + " no longer permitted"));
+                    }
+                }
+            }
+        }
+    }
+
+    /** The kind of type, with abstract and concrete classes counted as one. */
+    private static String category(ClassFile type) {
+        return type.kind().replace("abstract ", "");
+    }
+
+    static String names(ClassFile sealed) {
+        return String.join(", ", sealed.permittedSubclasses().stream().map(Descriptors::binaryName).toList());
+    }
+}
@@ -0,0 +1,114 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing map from non-negative long keys to values, with linear probing.
+ *
+ * Filled once, when a class is read or a hierarchy indexed, and only
+ * looked up afterwards, so it has no removal; a get is a multiply, a shift and a probe through two
+ * flat arrays, with no boxing and no entry objects.
+ */
+final class LongMap<V> {
+
+    /**
+     * Receives each entry of {@link #forEach}.
+     */
+    interface Visitor<V> {
+        void visit(long key, V value);
+    }
+
+    private static final long EMPTY = -1;
+
+    private final long[] keys;
+    private final Object[] values;
+    private final int shift;
+    private int size;
+
+    /** A map that holds up to the expected number of entries at a load factor of at most one half. */
+    LongMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(expected, 2) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Adds the entry unless the key is already present.
+     *
+     * @return the value now mapped to the key
+     * @throws IllegalStateException if the map is already at the size it was made for
+     */
+    @SuppressWarnings("unchecked")
+    V putIfAbsent(long key, V value) {
+        int i = slot(key);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+            i = (i + 1) & (keys.length - 1);
+        }
+        if (size * 2 >= keys.length) {
+            throw new IllegalStateException("map is full at " + size + " entries");
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        return value;
+    }
+
+    /**
+     * Maps the key to the value, replacing any value it had.
+     *
+     * @throws IllegalStateException if the key is new and the map is already at the size it was made for
+     */
+    void put(long key, V value) {
+        int i = slot(key);
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & (keys.length - 1);
+        }
+        if (keys[i] == EMPTY) {
+            if (size * 2 >= keys.length) {
+                throw new IllegalStateException("map is full at " + size + " entries");
+            }
+            keys[i] = key;
+            size++;
+        }
+        values[i] = value;
+    }
+
+    /** The value for the key, or null; negative keys are never present. */
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        if (key < 0) {
+            return null;
+        }
+        int i = slot(key);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+            i = (i + 1) & (keys.length - 1);
+        }
+        return null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Visits every entry, in no particular order. */
+    @SuppressWarnings("unchecked")
+    void forEach(Visitor<? super V> visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                visitor.visit(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+}
@@ -0,0 +1,73 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.List;
+
+/**
+ * A field or method as declared in a class file.
+ *
+ * @param access        access flags
+ * @param name          simple name, &lt;init&gt; for constructors
+ * @param descriptor    erased type, e.g. (Ljava/util/List;)V
+ * @param signature     generic type from the Signature attribute, or null
+ * @param exceptions    internal names from the Exceptions attribute, methods only
+ * @param constantValue value of the ConstantValue attribute, static final fields only, otherwise null
+ * @param hasDefault    true for annotation elements that declare a default
+ * @param annotations   visible and invisible annotations
+ * @param id            interned key for lookups, built from the name and descriptor
+ */
+public record Member(int access, String name, String descriptor, String signature,
+                     List<String> exceptions, Object constantValue, boolean hasDefault, List<Annotation> annotations,
+                     long id) {
+
+    /** Name and descriptor, which together identify a field or method to the JVM. */
+    public String key() {
+        return name + descriptor;
+    }
+
+    public int visibility() {
+        return Access.visibility(access);
+    }
+
+    public boolean isStatic() {
+        return Access.is(access, Access.STATIC);
+    }
+
+    public boolean isFinal() {
+        return Access.is(access, Access.FINAL);
+    }
+
+    public boolean isAbstract() {
+        return Access.is(access, Access.ABSTRACT);
+    }
+
+    public boolean isPrivate() {
+        return Access.is(access, Access.PRIVATE);
+    }
+
+    public boolean isPublic() {
+        return Access.is(access, Access.PUBLIC);
+    }
+
+    public boolean isConstructor() {
+        return name.equals("<init>");
+    }
+
+    /**
+     * True for members a client could have compiled against: not private, not
+     * synthetic, not a bridge and not a static initialiser.
+     */
+    public boolean isApi() {
+        return !isPrivate() && !Access.is(access, Access.SYNTHETIC) && !name.equals("<clinit>")
+                && !(descriptor.startsWith("(") && Access.is(access, Access.BRIDGE));
+    }
+
+    /** Parameter part of a method descriptor, including the parentheses. */
+    public String parameters() {
+        return descriptor.substring(0, descriptor.indexOf(')') + 1);
+    }
+
+    @Override
+    public String toString() {
+        return Descriptors.member(name, descriptor);
+    }
+}
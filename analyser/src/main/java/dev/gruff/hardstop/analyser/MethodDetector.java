@@ -0,0 +1,116 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Section D: methods of a class that disappear, change descriptor or change how they bind.
+ *
+ * A method whose name survives with another descriptor is reported as a
+ * return type or parameter change rather than as removed. A method that
+ * moves within its hierarchy is reported as moved, in either direction:
+ * moving up is shielded for every caller, moving down only for callers
+ * that name the subclass, so the latter is also reported as removed.
+ */
+final class MethodDetector implements Detector {
+
+    @Override
+    public char section() {
+        return 'D';
+    }
+
+    @Override
+    public void detect(Comparison comparison, Consumer<Finding> findings) {
+        ApiModel after = comparison.after();
+        for (Comparison.Pair pair : comparison.common()) {
+            ClassFile was = pair.before();
+            ClassFile now = pair.after();
+            List<Member> addedMethods = new ArrayList<>();
+            for (Member m : now.methods()) {
+                if (m.isApi() && !m.isConstructor() && was.method(m) == null) {
+                    addedMethods.add(m);
+                }
+            }
+            for (Member old : was.methods()) {
+                if (!old.isApi() || old.isConstructor()) {
+                    continue;
+                }
+                Member m = now.method(old);
+                if (m != null) {
+                    compare(after, was, old, m, findings);
+                    continue;
+                }
+                List<Member> sameName = addedMethods.stream().filter(a -> a.name().equals(old.name())).toList();
+                if (!sameName.isEmpty()) {
+                    boolean sameParameters = sameName.stream().anyMatch(a -> a.parameters().equals(old.parameters()));
+                    findings.accept(Finding.of(sameParameters ? Rule.METHOD_RETURN_TYPE_CHANGED : Rule.METHOD_PARAMETERS_CHANGED,
+                            was, old, "now " + describe(sameName)));
+                    continue;
+                }
+                ApiModel.Resolved inherited = after.findMethod(now, old);
+                if (inherited != null && !inherited.member().isPrivate() && !inherited.member().isAbstract()) {
+                    findings.accept(Finding.of(Rule.METHOD_MOVED_TO_SUPERCLASS, was, old,
+                            "moved up to " + inherited.owner().binaryName()));
+                    continue;
+                }
+                findings.accept(Finding.of(Rule.METHOD_REMOVED, was, old, null));
+                for (ClassFile sub : after.subclasses(now.name())) {
+                    ClassFile oldSub = comparison.before().get(sub.name());
+                    if (sub.method(old) != null
+                            && (oldSub == null || oldSub.method(old) == null)) {
+                        findings.accept(Finding.of(Rule.METHOD_MOVED_TO_SUPERCLASS, was, old,
+                                "moved down to " + sub.binaryName() + ", calls through " + Descriptors.simpleName(sub.name()) + " still resolve"));
+                    }
+                }
+                List<Member> renamed = addedMethods.stream()
+                        .filter(a -> a.descriptor().equals(old.descriptor()) && a.isStatic() == old.isStatic()
+                                && !declaresName(was, a.name()))
+                        .toList();
+                if (renamed.size() == 1) {
+                    findings.accept(Finding.of(Rule.METHOD_RENAMED, was, old, "now " + renamed.get(0)));
+                }
+            }
+        }
+    }
+
+    private static void compare(ApiModel after, ClassFile type, Member old, Member now, Consumer<Finding> findings) {
+        if (now.visibility() < old.visibility()) {
+            findings.accept(Finding.of(Rule.METHOD_VISIBILITY_REDUCED, type, old,
+                    Access.describe(old.visibility()) + " -> " + Access.describe(now.visibility())));
+        }
+        if (old.isStatic() != now.isStatic()) {
+            findings.accept(Finding.of(Rule.METHOD_STATIC_CHANGED, type, old, old.isStatic() ? "static -> instance" : "instance -> static"));
+        }
+        if (!old.isAbstract() && now.isAbstract()) {
+            findings.accept(Finding.of(Rule.METHOD_MADE_ABSTRACT, type, old, null));
+        }
+        boolean widened = now.exceptions().stream()
+                .anyMatch(thrown -> checked(after, thrown) && old.exceptions().stream().noneMatch(o -> after.isSubtype(thrown, o)));
+        if (widened) {
+            findings.accept(Finding.of(Rule.CHECKED_EXCEPTIONS_WIDENED, type, old,
+                    "throws " + String.join(", ", old.exceptions().stream().map(Descriptors::simpleName).toList())
+                            + " -> throws " + String.join(", ", now.exceptions().stream().map(Descriptors::simpleName).toList())));
+        }
+    }
+
+    /** Exceptions the compiler makes callers catch or declare. */
+    static boolean checked(ApiModel model, String exception) {
+        return !model.isSubtype(exception, "java/lang/RuntimeException") && !model.isSubtype(exception, "java/lang/Error");
+    }
+
+    private static boolean declaresName(ClassFile type, String name) {
+        for (Member m : type.methods()) {
+            if (m.name().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String describe(List<Member> methods) {
+        return String.join(", ", methods.stream()
+                .map(m -> m + ": " + Descriptors.returnType(m.descriptor()))
+                .toList());
+    }
+}
@@ -0,0 +1,30 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The parts of a Module attribute that decide what other modules can see.
+ *
+ * @param name    module name
+ * @param open    true for an open module, which opens every package
+ * @param exports exported packages in internal form, each mapped to its target modules; empty targets means exported to all
+ * @param opens   opened packages, in the same form as exports
+ */
+public record ModuleInfo(String name, boolean open, Map<String, Set<String>> exports, Map<String, Set<String>> opens) {
+
+    /** True when the package is exported to every module. */
+    public boolean exports(String pkg) {
+        Set<String> targets = exports.get(pkg);
+        return targets != null && targets.isEmpty();
+    }
+
+    /** True when the package is open to every module for deep reflection. */
+    public boolean opens(String pkg) {
+        if (open) {
+            return true;
+        }
+        Set<String> targets = opens.get(pkg);
+        return targets != null && targets.isEmpty();
+    }
+}
@@ -0,0 +1,53 @@
+package dev.gruff.hardstop.analyser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class files of the running JDK, read from the jrt file system.
+ *
+ * Library classes extend and throw JDK types, so deciding whether an
+ * exception is checked or a class is Serializable means looking at
+ * java.base. Those classes are read the same way as the library's own,
+ * never loaded.
+ */
+final class PlatformClasses {
+
+    private static final Map<String, Optional<ClassFile>> CACHE = new ConcurrentHashMap<>();
+    private static final FileSystem JRT = FileSystems.getFileSystem(URI.create("jrt:/"));
+
+    private PlatformClasses() {
+    }
+
+    /** The JDK class with this internal name, or null if the JDK has no such class. */
+    static ClassFile get(String name) {
+        return CACHE.computeIfAbsent(name, PlatformClasses::read).orElse(null);
+    }
+
+    private static Optional<ClassFile> read(String name) {
+        Path modules = JRT.getPath("/packages", Descriptors.packageOf(name).replace('/', '.'));
+        if (!Files.isDirectory(modules)) {
+            return Optional.empty();
+        }
+        try (DirectoryStream<Path> links = Files.newDirectoryStream(modules)) {
+            for (Path link : links) {
+                Path file = JRT.getPath("/modules", link.getFileName().toString(), name + ".class");
+                if (Files.exists(file)) {
+                    return Optional.of(ClassReader.read(Files.readAllBytes(file)));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot read " + name + " from the JDK", e);
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,402 @@
+package dev.gruff.hardstop.analyser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Links every reference of a compiled client against a class path up
+ * front, the way the JVM would link each one the first time it runs.
+ *
+ * The JVM resolves a method or field reference lazily, when the
+ * instruction holding it first executes, so a method an upgraded jar
+ * dropped shows up as NoSuchMethodError only once that path is taken,
+ * which may be hours into production. Here each client class is loaded,
+ * without being initialised, into a loader over the client and the
+ * class path, and each reference its instructions make is resolved
+ * through a {@link MethodHandles.Lookup} with the client class's own
+ * access: findVirtual for invokevirtual and invokeinterface, findStatic,
+ * findSpecial, findConstructor for new, a reflective check of this(...)
+ * and super(...) calls, findVarHandle and findStaticVarHandle
+ * for the field instructions, and findSetter and findStaticSetter too
+ * for the writes. Each failure is reported as
+ * the linkage error the instruction would throw. No static initialiser
+ * or other client or library code runs, and classes are linked in
+ * parallel on a fork/join pool.
+ *
+ * Method handle lookups check a little less than instruction linking:
+ * they do not check loader constraints, and the error a wrongly static
+ * or wrongly non-static member gives is worked out by looking the
+ * member up both ways.
+ */
+public final class Preflight {
+
+    /**
+     * A reference that fails to link.
+     *
+     * @param client    internal name of the client class, whose loading failed if reference is null
+     * @param method    the client method that first makes the reference, as name and parameter types
+     * @param reference the class or member referred to, null if the client class itself cannot be loaded
+     * @param error     binary name of the error the JVM would throw
+     */
+    public record Failure(String client, String method, String reference, String error, String message) {
+
+        @Override
+        public String toString() {
+            return error + ": " + (reference == null ? "loading " + Descriptors.binaryName(client)
+                    : reference + " in " + Descriptors.binaryName(client) + "." + method)
+                    + (message == null ? "" : " (" + message + ")");
+        }
+    }
+
+    /** One symbolic reference made by an instruction; a class alone has no name or descriptor. */
+    private record Ref(int opcode, String owner, String name, String descriptor) {
+
+        @Override
+        public String toString() {
+            if (name == null) {
+                return Descriptors.binaryName(owner);
+            }
+            String member = descriptor.startsWith("(") ? Descriptors.member(name, descriptor) : name;
+            return Descriptors.binaryName(owner) + "." + member;
+        }
+    }
+
+    /** Why a reference fails to link. */
+    private record Problem(String error, String message) {
+    }
+
+    /** A client class and each reference it makes, with the first method to make it. */
+    private record Client(String name, Map<Ref, String> refs) {
+    }
+
+    private static final int GETSTATIC = 0xB2;
+    private static final int PUTSTATIC = 0xB3;
+    private static final int GETFIELD = 0xB4;
+    private static final int PUTFIELD = 0xB5;
+    private static final int INVOKEVIRTUAL = 0xB6;
+    private static final int INVOKESPECIAL = 0xB7;
+    private static final int INVOKESTATIC = 0xB8;
+    private static final int INVOKEINTERFACE = 0xB9;
+    private static final int NEW = 0xBB;
+    private static final int ANEWARRAY = 0xBD;
+    private static final int CHECKCAST = 0xC0;
+    private static final int INSTANCEOF = 0xC1;
+
+    private static final String NO_CLASS = "java.lang.NoClassDefFoundError";
+    private static final String ILLEGAL_ACCESS = "java.lang.IllegalAccessError";
+    private static final String INCOMPATIBLE = "java.lang.IncompatibleClassChangeError";
+
+    /**
+     * A full-privilege lookup, from which caller-sensitive methods such as
+     * Class.getMethod can be looked up; privateLookupIn gives one without
+     * module access, which cannot. It reaches only public members of
+     * public classes in the client's loader, which every client class
+     * may link to anyway.
+     */
+    private static final MethodHandles.Lookup PUBLIC = MethodHandles.lookup();
+
+    private final List<Client> clients;
+    private final List<Path> paths;
+
+    private Preflight(List<Client> clients, List<Path> paths) {
+        this.clients = clients;
+        this.paths = paths;
+    }
+
+    /**
+     * Reads the references of every class of a client, a jar or class directory.
+     *
+     * @param classpath the jars and class directories the client is to run against, the library among them
+     */
+    public static Preflight of(Path client, List<Path> classpath) {
+        List<Client> clients = new ArrayList<>();
+        try {
+            if (Files.isDirectory(client)) {
+                try (Stream<Path> walk = Files.walk(client)) {
+                    for (Path file : (Iterable<Path>) walk.filter(p -> p.toString().endsWith(".class"))::iterator) {
+                        clients.add(client(ClassReader.read(ByteBuffer.wrap(Files.readAllBytes(file)), ClassReader.Mode.FULL)));
+                    }
+                }
+            } else {
+                try (JarReader jar = JarReader.open(client)) {
+                    for (JarReader.Entry entry : jar.entries()) {
+                        if (!entry.isDirectory() && entry.name().endsWith(".class") && !entry.name().startsWith("META-INF/")
+                                && !entry.name().endsWith("module-info.class")) {
+                            // read inside the callback: the pool still points into the pooled buffer
+                            clients.add(jar.read(entry, in -> client(ClassReader.read(in, ClassReader.Mode.FULL))));
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot read " + client, e);
+        }
+        List<Path> paths = new ArrayList<>();
+        paths.add(client);
+        paths.addAll(classpath);
+        return new Preflight(clients, paths);
+    }
+
+    /** Number of client classes. */
+    public int classes() {
+        return clients.size();
+    }
+
+    /** Number of distinct references over all client classes. */
+    public int references() {
+        return clients.stream().mapToInt(c -> c.refs().size()).sum();
+    }
+
+    /**
+     * Loads every client class and links every reference it makes, in
+     * parallel on the pool, into a fresh loader whose parent is the
+     * platform loader, so nothing of the caller's class path leaks in.
+     */
+    public List<Failure> link(ForkJoinPool pool) {
+        URL[] urls = new URL[paths.size()];
+        try {
+            for (int i = 0; i < urls.length; i++) {
+                urls[i] = paths.get(i).toUri().toURL();
+            }
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException(e);
+        }
+        try (URLClassLoader loader = new URLClassLoader(urls, ClassLoader.getPlatformClassLoader())) {
+            List<Failure> failures = pool.submit(() -> clients.parallelStream()
+                    .flatMap(c -> link(c, loader).stream())
+                    .toList()).join();
+            List<Failure> sorted = new ArrayList<>(failures);
+            sorted.sort((a, b) -> (a.client() + a.method()).compareTo(b.client() + b.method()));
+            return Collections.unmodifiableList(sorted);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<Failure> link(Client client, ClassLoader loader) {
+        Class<?> type;
+        MethodHandles.Lookup lookup;
+        try {
+            type = Class.forName(Descriptors.binaryName(client.name()), false, loader);
+            lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+        } catch (ClassNotFoundException e) {
+            return List.of(new Failure(client.name(), null, null, NO_CLASS, e.getMessage()));
+        } catch (LinkageError e) {
+            return List.of(new Failure(client.name(), null, null, e.getClass().getName(), e.getMessage()));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("no private access to a class of the unnamed module", e);
+        }
+        List<Failure> failures = new ArrayList<>();
+        client.refs().forEach((ref, method) -> {
+            Problem p = link(ref, lookup, loader);
+            if (p != null) {
+                failures.add(new Failure(client.name(), method, ref.toString(), p.error(), p.message()));
+            }
+        });
+        return failures;
+    }
+
+    /** Resolves one reference as the instruction making it would; null if it links. */
+    private static Problem link(Ref ref, MethodHandles.Lookup lookup, ClassLoader loader) {
+        try {
+            Class<?> owner = Class.forName(Descriptors.binaryName(ref.owner()), false, loader);
+            lookup.accessClass(owner);
+            switch (ref.opcode()) {
+                case NEW -> {
+                    if (owner.isInterface() || Modifier.isAbstract(owner.getModifiers())) {
+                        return new Problem("java.lang.InstantiationError", null);
+                    }
+                }
+                case ANEWARRAY, CHECKCAST, INSTANCEOF -> {
+                }
+                case GETFIELD, PUTFIELD, GETSTATIC, PUTSTATIC -> field(ref, owner, lookup, loader);
+                default -> method(ref, owner, lookup, loader);
+            }
+            return null;
+        } catch (ClassNotFoundException | TypeNotPresentException e) {
+            return new Problem(NO_CLASS, e.getMessage());
+        } catch (LinkageError e) {
+            return new Problem(e.getClass().getName(), e.getMessage());
+        } catch (NoSuchMethodException e) {
+            return new Problem("java.lang.NoSuchMethodError", null);
+        } catch (NoSuchFieldException e) {
+            return new Problem("java.lang.NoSuchFieldError", null);
+        } catch (IllegalAccessException e) {
+            return new Problem(ILLEGAL_ACCESS, e.getMessage());
+        } catch (IncompatibleChange e) {
+            return new Problem(INCOMPATIBLE, e.getMessage());
+        }
+    }
+
+    private static void field(Ref ref, Class<?> owner, MethodHandles.Lookup lookup, ClassLoader loader)
+            throws NoSuchFieldException, IllegalAccessException, IncompatibleChange {
+        Class<?> type = MethodType.fromMethodDescriptorString("()" + ref.descriptor(), loader).returnType();
+        boolean isStatic = ref.opcode() == GETSTATIC || ref.opcode() == PUTSTATIC;
+        boolean put = ref.opcode() == PUTFIELD || ref.opcode() == PUTSTATIC;
+        try {
+            if (isStatic) {
+                lookup.findStaticVarHandle(owner, ref.name(), type);
+            } else {
+                lookup.findVarHandle(owner, ref.name(), type);
+            }
+        } catch (IllegalAccessException | NoSuchFieldException e) {
+            if (found(() -> isStatic ? lookup.findVarHandle(owner, ref.name(), type)
+                    : lookup.findStaticVarHandle(owner, ref.name(), type))) {
+                throw new IncompatibleChange("expected " + (isStatic ? "static" : "non-static") + " field " + ref.name());
+            }
+            throw e;
+        }
+        // a class sets its own final fields in its initialisers, which no setter handle allows
+        if (put && owner != lookup.lookupClass()) {
+            if (isStatic) {
+                lookup.findStaticSetter(owner, ref.name(), type);
+            } else {
+                lookup.findSetter(owner, ref.name(), type);
+            }
+        }
+    }
+
+    private static void method(Ref ref, Class<?> owner, MethodHandles.Lookup lookup, ClassLoader loader)
+            throws NoSuchMethodException, IllegalAccessException, IncompatibleChange {
+        MethodType type = MethodType.fromMethodDescriptorString(ref.descriptor(), loader);
+        if (ref.opcode() == INVOKEINTERFACE && !owner.isInterface() || ref.opcode() == INVOKEVIRTUAL && owner.isInterface()) {
+            throw new IncompatibleChange(Descriptors.binaryName(ref.owner()) + (owner.isInterface() ? " is" : " is not") + " an interface");
+        }
+        switch (ref.opcode()) {
+            case INVOKESTATIC -> {
+                try {
+                    lookup.findStatic(owner, ref.name(), type);
+                } catch (IllegalAccessException | NoSuchMethodException e) {
+                    if (e instanceof IllegalAccessException && found(() -> PUBLIC.findStatic(owner, ref.name(), type))) {
+                        return;
+                    }
+                    if (found(() -> lookup.findVirtual(owner, ref.name(), type))) {
+                        throw new IncompatibleChange("expected static method " + ref.name());
+                    }
+                    throw e;
+                }
+            }
+            case INVOKESPECIAL -> {
+                Class<?> caller = lookup.lookupClass();
+                if (ref.name().equals("<init>") && (owner == caller || owner == caller.getSuperclass())) {
+                    constructor(owner, type, caller);
+                } else if (ref.name().equals("<init>")) {
+                    lookup.findConstructor(owner, type);
+                } else {
+                    lookup.findSpecial(owner, ref.name(), type, lookup.lookupClass());
+                }
+            }
+            default -> {
+                try {
+                    lookup.findVirtual(owner, ref.name(), type);
+                } catch (IllegalAccessException | NoSuchMethodException e) {
+                    if (e instanceof IllegalAccessException && found(() -> PUBLIC.findVirtual(owner, ref.name(), type))) {
+                        return;
+                    }
+                    if (found(() -> lookup.findStatic(owner, ref.name(), type))) {
+                        throw new IncompatibleChange("expected non-static method " + ref.name());
+                    }
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolves the constructor a this(...) or super(...) call makes. A
+     * constructor lookup applies the access of new, under which a
+     * protected constructor of a superclass in another package is out of
+     * reach, so the constructor is found reflectively and its access
+     * checked as the JVM checks invokespecial: public and protected
+     * constructors are open to a subclass, package-private ones to the
+     * same runtime package, and private ones to the class and its
+     * nestmates.
+     */
+    private static void constructor(Class<?> owner, MethodType type, Class<?> caller)
+            throws NoSuchMethodException, IllegalAccessException {
+        Constructor<?> c = owner.getDeclaredConstructor(type.parameterArray());
+        int modifiers = c.getModifiers();
+        boolean open;
+        if (Modifier.isPublic(modifiers) || Modifier.isProtected(modifiers)) {
+            open = true;
+        } else if (Modifier.isPrivate(modifiers)) {
+            open = owner.getNestHost() == caller.getNestHost();
+        } else {
+            open = owner.getClassLoader() == caller.getClassLoader() && owner.getPackageName().equals(caller.getPackageName());
+        }
+        if (!open) {
+            throw new IllegalAccessException(c + " is not accessible from " + caller.getName());
+        }
+    }
+
+    private interface Probe {
+        Object find() throws ReflectiveOperationException;
+    }
+
+    /** True if the member can be looked up the other way, static or not. */
+    private static boolean found(Probe probe) {
+        try {
+            probe.find();
+            return true;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /** A member found, but static where the instruction wants an instance member or the other way round. */
+    private static final class IncompatibleChange extends Exception {
+        IncompatibleChange(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /** The references the instructions of one class make, each with the first method making it. */
+    private static Client client(ClassFile file) {
+        Map<Ref, String> refs = new LinkedHashMap<>();
+        ConstantPool pool = file.pool();
+        for (Member m : file.methods()) {
+            ClassFile.Code code = file.code(m);
+            if (code == null) {
+                continue;
+            }
+            String where = Descriptors.member(m.name(), m.descriptor());
+            byte[] bytes = code.instructions();
+            for (int pc = 0; pc < bytes.length; pc += ClientUsage.length(bytes, pc)) {
+                int op = bytes[pc] & 0xFF;
+                Ref ref = switch (op) {
+                    case GETSTATIC, PUTSTATIC, GETFIELD, PUTFIELD, INVOKEVIRTUAL, INVOKESPECIAL, INVOKESTATIC, INVOKEINTERFACE -> {
+                        int index = ClientUsage.u2(bytes, pc + 1);
+                        String owner = pool.refOwner(index);
+                        yield owner.startsWith("[") ? null : new Ref(op, owner, pool.refName(index), pool.refDescriptor(index));
+                    }
+                    case NEW, ANEWARRAY, CHECKCAST, INSTANCEOF -> {
+                        String element = ClassFile.elementClass(pool.className(ClientUsage.u2(bytes, pc + 1)));
+                        yield element == null ? null : new Ref(op, element, null, null);
+                    }
+                    default -> null;
+                };
+                if (ref != null) {
+                    refs.putIfAbsent(ref, where);
+                }
+            }
+        }
+        return new Client(file.name(), refs);
+    }
+}
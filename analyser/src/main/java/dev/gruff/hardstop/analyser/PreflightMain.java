@@ -0,0 +1,78 @@
+package dev.gruff.hardstop.analyser;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Command line entry point for {@link Preflight}.
+ *
+ * <pre>
+ * java -cp analyser.jar dev.gruff.hardstop.analyser.PreflightMain \
+ *     tests/target/test-classes v2/target/v2-2.0.0.jar[:more.jar...] [-q] [-j 16]
+ * </pre>
+ *
+ * The first argument is the client, a jar or class directory; the rest,
+ * as separate arguments or joined with the path separator, make up the
+ * class path it is to run against. One line is printed per reference
+ * that fails to link: the error the JVM would throw, the reference and
+ * the client method that first makes it. -q prints the summary alone,
+ * -j sets how many threads link classes in parallel (by default the
+ * common pool's). The exit code is 1 if anything failed to link.
+ */
+public class PreflightMain {
+
+    public static void main(String[] args) {
+        Path client = null;
+        List<Path> classpath = new ArrayList<>();
+        boolean quiet = false;
+        int threads = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-q", "--quiet" -> quiet = true;
+                case "-j", "--threads" -> threads = Integer.parseInt(args[++i]);
+                default -> {
+                    if (args[i].startsWith("-")) {
+                        System.err.println("unknown argument " + args[i]);
+                        usage();
+                        return;
+                    }
+                    if (client == null) {
+                        client = Path.of(args[i]);
+                    } else {
+                        for (String entry : args[i].split(File.pathSeparator)) {
+                            classpath.add(Path.of(entry));
+                        }
+                    }
+                }
+            }
+        }
+        if (client == null) {
+            usage();
+            return;
+        }
+
+        long start = System.nanoTime();
+        Preflight preflight = Preflight.of(client, classpath);
+        long read = System.nanoTime();
+        ForkJoinPool pool = threads > 0 ? new ForkJoinPool(threads) : ForkJoinPool.commonPool();
+        List<Preflight.Failure> failures = preflight.link(pool);
+        long linked = System.nanoTime();
+        if (!quiet) {
+            failures.forEach(System.out::println);
+        }
+        System.out.println(failures.size() + " failures in " + preflight.references() + " references of "
+                + preflight.classes() + " classes; read in " + (read - start) / 1_000_000 + " ms, linked in "
+                + (linked - read) / 1_000_000 + " ms");
+        if (!failures.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    private static void usage() {
+        System.err.println("usage: PreflightMain <client> <class path>... [-q] [-j <threads>]");
+        System.exit(2);
+    }
+}
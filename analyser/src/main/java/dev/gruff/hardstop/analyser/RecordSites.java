@@ -0,0 +1,213 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The places a compiled client constructs a class, calls one of its
+ * no-argument methods or one-argument setters, or reads or writes one of
+ * its fields, and which of
+ * them the later version breaks where the class is, or becomes, a record.
+ *
+ * A record's shape is fixed by its Record attribute: one private final
+ * field and one public accessor per component, named after it, and a
+ * canonical constructor taking the components in order. A component
+ * added or removed changes the canonical constructor's descriptor, so
+ * every {@code new} compiled against the old one throws
+ * NoSuchMethodError; a component removed takes its accessor with it. A
+ * JavaBean turned into a record loses its getX() methods to x()
+ * accessors, its setX(..) methods to nothing, since a record cannot be
+ * changed, and its public fields to private ones, so each call and
+ * field access compiled against the bean throws NoSuchMethodError or
+ * IllegalAccessError. None of these show until the instruction first
+ * runs; here they are all found at once, from the instructions
+ * {@link ClientUsage} walks anyway, and each is given the record member
+ * that now stands in its place.
+ */
+public final class RecordSites {
+
+    /**
+     * An instruction that may reach a record member.
+     *
+     * @param client internal name of the client class
+     * @param method the client method, as name and parameter types
+     * @param opcode invokespecial for a constructor, invokevirtual, getfield or putfield
+     * @param owner  internal name of the class the instruction names
+     */
+    public record Site(String client, String method, int opcode, String owner, String name, String descriptor) {
+
+        /** The member as the client refers to it: new T(..), m(..) or a field name. */
+        public String member() {
+            if (name.equals("<init>")) {
+                return "new " + Descriptors.simpleName(owner) + Descriptors.member("", descriptor);
+            }
+            return Descriptors.simpleName(owner) + "." + (descriptor.startsWith("(") ? Descriptors.member(name, descriptor) : name);
+        }
+    }
+
+    /**
+     * A site the later version breaks.
+     *
+     * @param thrown      internal name of the error the instruction throws when it first runs
+     * @param replacement what now stands in for the member, such as the accessor of the component a getter read, or null
+     */
+    public record Break(Site site, String thrown, String replacement) {
+
+        @Override
+        public String toString() {
+            return site.member() + " in " + Descriptors.binaryName(site.client()) + "." + site.method() + " throws "
+                    + Descriptors.binaryName(thrown) + (replacement == null ? "" : ", now " + replacement);
+        }
+    }
+
+    static final int GETFIELD = 0xB4;
+    static final int PUTFIELD = 0xB5;
+    static final int INVOKEVIRTUAL = 0xB6;
+    static final int INVOKESPECIAL = 0xB7;
+
+    private final Map<String, List<Site>> sites = new HashMap<>();
+
+    RecordSites() {
+    }
+
+    /** Number of sites recorded, on every class outside the JDK. */
+    public int size() {
+        int n = 0;
+        for (List<Site> s : sites.values()) {
+            n += s.size();
+        }
+        return n;
+    }
+
+    /**
+     * The sites the later version breaks on every library class that is a
+     * record in either version: constructors that are not the canonical
+     * one any more, accessors and bean getters and setters that are gone, and fields
+     * that are gone or now private to the record.
+     */
+    public List<Break> check(ApiModel before, ApiModel after) {
+        List<Break> broken = new ArrayList<>();
+        sites.forEach((owner, found) -> {
+            ClassFile old = before.get(owner);
+            ClassFile now = after.get(owner);
+            if (old == null || now == null || !old.isRecord() && !now.isRecord()) {
+                return;
+            }
+            for (Site site : found) {
+                Break b = check(site, now, after);
+                if (b != null) {
+                    broken.add(b);
+                }
+            }
+        });
+        broken.sort((a, b) -> (a.site().client() + a.site().method()).compareTo(b.site().client() + b.site().method()));
+        return broken;
+    }
+
+    private static Break check(Site site, ClassFile now, ApiModel after) {
+        switch (site.opcode()) {
+            case INVOKESPECIAL -> {
+                if (now.method(site.name(), site.descriptor()) == null) {
+                    return new Break(site, "java/lang/NoSuchMethodError", now.isRecord()
+                            ? "new " + Descriptors.simpleName(now.name()) + Descriptors.member("", ConstructorDetector.canonical(now))
+                            : null);
+                }
+            }
+            case INVOKEVIRTUAL -> {
+                if (after.findMethod(now, site.name(), site.descriptor()) == null) {
+                    ClassFile.RecordComponent component = site.descriptor().startsWith("()") ? component(now, property(site.name())) : null;
+                    return new Break(site, "java/lang/NoSuchMethodError",
+                            component == null ? null : Descriptors.member(component.name(), "()" + component.descriptor()));
+                }
+            }
+            default -> {
+                Member field = now.field(site.name(), site.descriptor());
+                ClassFile.RecordComponent component = component(now, site.name());
+                String replacement = component != null && site.opcode() == GETFIELD
+                        ? Descriptors.member(component.name(), "()" + component.descriptor()) : null;
+                if (field == null || field.isStatic()) {
+                    return new Break(site, "java/lang/NoSuchFieldError", replacement);
+                }
+                if (field.isPrivate() || field.isFinal() && site.opcode() == PUTFIELD) {
+                    return new Break(site, "java/lang/IllegalAccessError", replacement);
+                }
+            }
+        }
+        return null;
+    }
+
+    /** The component of a record, or null if it has none of that name or is not a record. */
+    private static ClassFile.RecordComponent component(ClassFile type, String name) {
+        for (ClassFile.RecordComponent c : type.recordComponents()) {
+            if (c.name().equals(name)) {
+                return c;
+            }
+        }
+        return null;
+    }
+
+    /** The property a JavaBean getter reads, by the rules of java.beans.Introspector: getFoo and isFoo read foo, getURL reads URL. */
+    static String property(String getter) {
+        int from = getter.startsWith("get") ? 3 : getter.startsWith("is") ? 2 : 0;
+        if (from == 0 || getter.length() == from || !Character.isUpperCase(getter.charAt(from))) {
+            return getter;
+        }
+        String name = getter.substring(from);
+        if (name.length() > 1 && Character.isUpperCase(name.charAt(1))) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /** A setX method of one parameter, which a record has no counterpart for. */
+    static boolean isSetter(String name, String descriptor) {
+        if (!name.startsWith("set") || name.length() == 3 || !Character.isUpperCase(name.charAt(3))) {
+            return false;
+        }
+        int end = 1;
+        while (descriptor.charAt(end) == '[') {
+            end++;
+        }
+        end = descriptor.charAt(end) == 'L' ? descriptor.indexOf(';', end) + 1 : end + 1;
+        return descriptor.charAt(end) == ')';
+    }
+
+    /** Records the instructions of each method that could reach a record's constructor, accessors or fields. */
+    void add(ClassFile file) {
+        ConstantPool pool = file.pool();
+        for (Member m : file.methods()) {
+            ClassFile.Code code = file.code(m);
+            if (code == null) {
+                continue;
+            }
+            String where = Descriptors.member(m.name(), m.descriptor());
+            byte[] bytes = code.instructions();
+            Set<Site> seen = new LinkedHashSet<>();
+            for (int pc = 0; pc < bytes.length; pc += ClientUsage.length(bytes, pc)) {
+                int op = bytes[pc] & 0xFF;
+                if (op < GETFIELD || op > INVOKESPECIAL) {
+                    continue;
+                }
+                int ref = ClientUsage.u2(bytes, pc + 1);
+                String owner = pool.refOwner(ref);
+                String name = pool.refName(ref);
+                String descriptor = pool.refDescriptor(ref);
+                boolean wanted = switch (op) {
+                    case INVOKESPECIAL -> name.equals("<init>");
+                    case INVOKEVIRTUAL -> descriptor.startsWith("()") || isSetter(name, descriptor);
+                    default -> true;
+                };
+                if (wanted && !owner.startsWith("[") && !owner.startsWith("java/")) {
+                    seen.add(new Site(file.name(), where, op, owner, name, descriptor));
+                }
+            }
+            for (Site site : seen) {
+                sites.computeIfAbsent(site.owner(), k -> new ArrayList<>()).add(site);
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.List;
+
+/**
+ * One row of the rule tables in spec.md, with the same labels.
+ *
+ * The change text is copied verbatim from the spec, so the two can be
+ * compared mechanically. Every row has a detector except
+ * {@link #METHOD_RESOLUTION_AMBIGUITY}, which depends on the call site
+ * rather than on anything visible in the library's class files.
+ */
+public enum Rule {
+
+    CLASS_REMOVED('A', "Class removed", Phase.C, Certainty.A, Shielding.NONE, "TestClassRenamed"),
+    CLASS_RENAMED('A', "Class renamed", Phase.C, Certainty.A, Shielding.NONE, "TestClassRenamed"),
+    PACKAGE_CHANGED('A', "Package changed", Phase.C, Certainty.A, Shielding.NONE, "TestPackageChanged"),
+    CLASS_MADE_NON_PUBLIC('A', "Class made non-public", Phase.C, Certainty.A, Shielding.NONE, "TestInnerClassReducedAccess"),
+    PACKAGE_NOT_EXPORTED('A', "Package no longer exported (JPMS)", Phase.C, Certainty.A, Shielding.NONE, "tests-jpms:TestPackageNotExported"),
+    MODULE_RENAMED('A', "Module renamed", Phase.C, Certainty.A, Shielding.NONE),
+
+    CLASS_INTERFACE_SWAP('B', "`class` ↔ `interface`", Phase.C, Certainty.A, Shielding.NONE, "TestClassIsAClass", "TestAbstractClassToInterface"),
+    CLASS_TO_RECORD('B', "`class` → `record`", Phase.C, Certainty.A, Shielding.NONE, "TestClassToRecord"),
+    CLASS_TO_ENUM('B', "`class` → `enum`", Phase.C, Certainty.A, Shielding.NONE, "TestClassToEnum"),
+    CLASS_MADE_FINAL('B', "Class made `final`", Phase.C, Certainty.D, Shielding.NONE, "TestParentGoesFinal"),
+    CLASS_MADE_SEALED('B', "Class made `sealed`", Phase.C, Certainty.D, Shielding.NONE, "TestMoreHierarchyChanges"),
+    PERMITS_SUBCLASS_REMOVED('B', "Subclass removed from `permits`", Phase.R, Certainty.A, Shielding.NONE, "TestSealedLosesPermit"),
+
+    CONSTRUCTOR_REMOVED('C', "Constructor removed", Phase.C, Certainty.A, Shielding.NONE, "TestInnerGoesStatic"),
+    CONSTRUCTOR_VISIBILITY_REDUCED('C', "Constructor visibility reduced", Phase.C, Certainty.A, Shielding.NONE, "TestConstructorChanges"),
+    CONSTRUCTOR_SIGNATURE_CHANGED('C', "Constructor signature changed", Phase.C, Certainty.A, Shielding.NONE, "TestInnerGoesStatic"),
+    NO_ARG_CONSTRUCTOR_REMOVED('C', "No-arg constructor removed", Phase.C, Certainty.D, Shielding.NONE, "TestConstructorChanges"),
+    RECORD_CANONICAL_CONSTRUCTOR_CHANGED('C', "Record canonical constructor changed", Phase.C_R, Certainty.A, Shielding.NONE, "TestRecordGainsField"),
+
+    METHOD_REMOVED('D', "Method removed", Phase.C_R, Certainty.A, Shielding.NONE, "TestMethodRemoved"),
+    METHOD_RENAMED('D', "Method renamed", Phase.C, Certainty.A, Shielding.NONE, "TestMethodSignatures"),
+    METHOD_VISIBILITY_REDUCED('D', "Method visibility reduced", Phase.C, Certainty.A, Shielding.NONE, "TestMethodModifiers"),
+    METHOD_RETURN_TYPE_CHANGED('D', "Method return type changed", Phase.C_R, Certainty.A, Shielding.NONE, "TestMethodChange"),
+    METHOD_PARAMETERS_CHANGED('D', "Method parameters changed", Phase.C_R, Certainty.A, Shielding.NONE, "TestMethodSignatures"),
+    METHOD_STATIC_CHANGED('D', "Instance ↔ static change", Phase.C_R, Certainty.A, Shielding.NONE, "TestMethodModifiers"),
+    METHOD_MADE_ABSTRACT('D', "Method made abstract", Phase.C_R, Certainty.D, Shielding.PARTIAL, "TestMethodModifiers"),
+    METHOD_MOVED_TO_SUPERCLASS('D', "Method moved to superclass", Phase.C_R, Certainty.D, Shielding.PARTIAL, "TestMethodMoves"),
+    CHECKED_EXCEPTIONS_WIDENED('D', "Checked exceptions widened", Phase.C, Certainty.A, Shielding.NONE, "TestMethodSignatures"),
+
+    FIELD_REMOVED('E', "Field removed", Phase.C_R, Certainty.A, Shielding.NONE, "TestFieldRemoved"),
+    FIELD_RENAMED('E', "Field renamed", Phase.C, Certainty.A, Shielding.NONE, "TestFieldChanges"),
+    FIELD_VISIBILITY_REDUCED('E', "Field visibility reduced", Phase.C, Certainty.A, Shielding.NONE, "TestFieldChanges"),
+    FIELD_TYPE_CHANGED('E', "Field type changed", Phase.C_R, Certainty.A, Shielding.NONE, "TestFieldChanges"),
+    FIELD_STATIC_CHANGED('E', "Instance ↔ static change", Phase.C_R, Certainty.A, Shielding.NONE, "TestFieldChanges"),
+    CONSTANT_VALUE_CHANGED('E', "`static final` constant value changed", Phase.R, Certainty.D, Shielding.NONE, "TestStaticFieldValue"),
+    FIELD_MOVED_TO_SUPERCLASS('E', "Field moved to superclass", Phase.NONE, Certainty.NONE, Shielding.FULL, "TestFieldChanges"),
+
+    INTERFACE_ADDS_ABSTRACT_METHOD('F', "Interface adds abstract method", Phase.C_R, Certainty.A, Shielding.NONE, "TestInterfaceEvolution"),
+    INTERFACE_ADDS_DEFAULT_METHOD('F', "Interface adds default method", Phase.NONE, Certainty.NONE, Shielding.FULL, "TestSafeEvolution"),
+    ABSTRACT_CLASS_ADDS_ABSTRACT_METHOD('F', "Abstract class adds abstract method", Phase.C_R, Certainty.D, Shielding.PARTIAL, "TestInterfaceEvolution"),
+    ABSTRACT_CLASS_ADDS_INTERFACE('F', "Abstract class adds interface", Phase.C_R, Certainty.D, Shielding.PARTIAL, "TestInterfaceEvolution"),
+    ABSTRACT_CLASS_IMPLEMENTS_INTERFACE_METHODS('F', "Abstract class implements interface methods", Phase.NONE, Certainty.NONE, Shielding.FULL, "TestSafeEvolution"),
+    CONFLICTING_DEFAULT_METHODS('F', "Conflicting default methods", Phase.R, Certainty.A, Shielding.NONE, "TestInterfaceEvolution"),
+
+    SEALED_HIERARCHY_TIGHTENED('G', "Sealed hierarchy tightened", Phase.C_R, Certainty.D, Shielding.NONE, "TestSealedLosesPermit"),
+    RECORD_COMPONENT_REMOVED('G', "Record component removed", Phase.C_R, Certainty.D, Shielding.NONE, "TestRecordEvolution"),
+    SWITCH_EXHAUSTIVENESS_INVALIDATED('G', "Switch exhaustiveness invalidated", Phase.C, Certainty.D, Shielding.NONE, "TestSwitchEvolution"),
+    BEAN_TO_RECORD('G', "JavaBean to Record migration", Phase.C_R, Certainty.A, Shielding.NONE, "TestRecordMigration"),
+    RECORD_SERIALIZATION_INCOMPATIBLE('G', "Record serialization incompatibility", Phase.R, Certainty.A, Shielding.NONE),
+
+    ABSTRACT_METHOD_VIA_INTERFACE('H', "Abstract method invoked via interface", Phase.R, Certainty.A, Shielding.NONE, "TestRuntimeFailures"),
+    METHOD_RESOLUTION_AMBIGUITY('H', "Method resolution ambiguity", Phase.R, Certainty.D, Shielding.PARTIAL),
+    REFLECTION_ACCESS_REMOVED('H', "Reflection access removed", Phase.R, Certainty.D, Shielding.NONE, "TestRuntimeFailures"),
+    OPENS_REMOVED('H', "JPMS `opens` removed", Phase.R, Certainty.D, Shielding.NONE, "tests-jpms:TestOpensRemoved"),
+    SERIALIZATION_INCOMPATIBLE('H', "Serialization incompatibility", Phase.R, Certainty.D, Shielding.NONE, "TestRuntimeFailures"),
+
+    SUPERCLASS_REMOVED('I', "Superclass removed (`extends A` → `Object`)", Phase.C_R, Certainty.D, Shielding.NONE, "TestSuperclassChanges"),
+    SUPERCLASS_REPLACED('I', "Superclass replaced (`extends A` → `extends B`)", Phase.C_R, Certainty.A, Shielding.NONE, "TestSuperclassChanges"),
+    SUPERCLASS_INSERTED('I', "Superclass inserted into hierarchy", Phase.C_R, Certainty.D, Shielding.PARTIAL, "TestSuperclassChanges"),
+    SUPERCLASS_MADE_ABSTRACT('I', "Superclass made abstract", Phase.C_R, Certainty.D, Shielding.PARTIAL, "TestMoreHierarchyChanges"),
+    SUPERCLASS_MADE_CONCRETE('I', "Superclass made concrete", Phase.NONE, Certainty.NONE, Shielding.FULL),
+    SUPERCLASS_VISIBILITY_REDUCED('I', "Superclass visibility reduced", Phase.C, Certainty.A, Shielding.NONE, "TestMoreHierarchyChanges"),
+    SUPERCLASS_NOT_EXPORTED('I', "Superclass moved to unexported module", Phase.C, Certainty.A, Shielding.NONE),
+    INHERITED_METHOD_REMOVED('I', "Inherited method removed", Phase.C_R, Certainty.A, Shielding.NONE, "TestInheritedMemberChanges"),
+    INHERITED_METHOD_SIGNATURE_CHANGED('I', "Inherited method signature changed", Phase.C_R, Certainty.A, Shielding.NONE, "TestInheritedMemberChanges"),
+    INHERITED_METHOD_MADE_FINAL('I', "Inherited method becomes final", Phase.C_R, Certainty.D, Shielding.NONE, "TestInheritedMemberChanges"),
+    FIELD_SHADOWED('I', "Field shadowed by superclass field", Phase.R, Certainty.D, Shielding.NONE, "TestInheritedMemberChanges"),
+    DEFAULT_METHOD_SUPERSEDED('I', "Default method superseded by superclass method", Phase.R, Certainty.D, Shielding.PARTIAL, "TestSafeEvolution"),
+    OBJECT_METHODS_CHANGED('I', "Core `Object` methods overridden differently", Phase.R, Certainty.D, Shielding.PARTIAL),
+
+    ERASURE_DRIFT('J', "Erasure drift (List -> Collection)", Phase.C_R, Certainty.A, Shielding.NONE, "TestGenerics"),
+    HEAP_POLLUTION('J', "Heap pollution (List<String> -> List<Integer>)", Phase.R, Certainty.A, Shielding.NONE, "TestGenerics"),
+
+    ANNOTATION_ELEMENT_WITHOUT_DEFAULT('K', "Adding element without default", Phase.R, Certainty.A, Shielding.NONE, "TestAnnotationEvolution"),
+    RETENTION_CHANGED('K', "Retention policy changed (RUNTIME -> CLASS)", Phase.R, Certainty.A, Shielding.NONE, "TestAnnotationEvolution");
+
+    /** Failure phase: C recompilation, R runtime, C/R both, – neither. */
+    public enum Phase {
+        C("C"), R("R"), C_R("C/R"), NONE("–");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /** A always fails, D depends on downstream usage, – never fails. */
+    public enum Certainty {
+        A("A"), D("D"), NONE("–");
+
+        private final String label;
+
+        Certainty(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    public enum Shielding {
+        NONE("None"), PARTIAL("Partial"), FULL("Full");
+
+        private final String label;
+
+        Shielding(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private final char section;
+    private final String change;
+    private final Phase phase;
+    private final Certainty certainty;
+    private final Shielding shielding;
+    private final List<String> tests;
+
+    Rule(char section, String change, Phase phase, Certainty certainty, Shielding shielding, String... tests) {
+        this.section = section;
+        this.change = change;
+        this.phase = phase;
+        this.certainty = certainty;
+        this.shielding = shielding;
+        this.tests = List.of(tests);
+    }
+
+    /** Spec section letter, A to K. */
+    public char section() {
+        return section;
+    }
+
+    /** The Change column exactly as written in spec.md, Markdown included. */
+    public String change() {
+        return change;
+    }
+
+    public Phase phase() {
+        return phase;
+    }
+
+    public Certainty certainty() {
+        return certainty;
+    }
+
+    public Shielding shielding() {
+        return shielding;
+    }
+
+    /** Scenario classes from the Test column; those in tests-jpms are prefixed tests-jpms:. */
+    public List<String> tests() {
+        return tests;
+    }
+
+    /** Always-fail rows, which normative rule 1 says are incompatible under every profile. */
+    public boolean alwaysFails() {
+        return certainty == Certainty.A;
+    }
+
+    /** Rows that only fail at runtime, which normative rule 4 calls high-risk. */
+    public boolean runtimeOnly() {
+        return phase == Phase.R;
+    }
+
+    /** The change without Markdown backticks. */
+    public String label() {
+        return change.replace("`", "");
+    }
+}
@@ -0,0 +1,135 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Section H: changes the compiler never sees, which only show when code runs.
+ */
+final class RuntimeDetector implements Detector {
+
+    @Override
+    public char section() {
+        return 'H';
+    }
+
+    @Override
+    public void detect(Comparison comparison, Consumer<Finding> findings) {
+        ApiModel before = comparison.before();
+        ApiModel after = comparison.after();
+        for (Comparison.Pair pair : comparison.common()) {
+            ClassFile was = pair.before();
+            ClassFile now = pair.after();
+
+            if (!was.isInterface() && !now.isInterface()) {
+                for (String face : before.interfaces(was)) {
+                    ClassFile i = before.resolve(face);
+                    if (i == null) {
+                        continue;
+                    }
+                    for (Member m : i.methods()) {
+                        if (!m.isAbstract() || m.isStatic()) {
+                            continue;
+                        }
+                        ApiModel.Resolved old = before.findMethod(was, m);
+                        ApiModel.Resolved impl = after.findMethod(now, m);
+                        if (old != null && !old.member().isAbstract() && (impl == null || impl.member().isAbstract())) {
+                            findings.accept(Finding.of(Rule.ABSTRACT_METHOD_VIA_INTERFACE, was, m,
+                                    "no longer implemented, calls through " + Descriptors.binaryName(face) + " fail"));
+                        }
+                    }
+                }
+            }
+
+            if (was.visibility() == 3 && now.visibility() == 3) {
+                for (Member old : was.fields()) {
+                    Member m = now.field(old);
+                    if (old.isPublic() && m != null && !m.isPublic()) {
+                        findings.accept(Finding.of(Rule.REFLECTION_ACCESS_REMOVED, was, old, "public -> " + Access.describe(m.visibility())));
+                    }
+                }
+                for (Member old : was.methods()) {
+                    Member m = now.method(old);
+                    if (old.isPublic() && m != null && !m.isPublic()) {
+                        findings.accept(Finding.of(Rule.REFLECTION_ACCESS_REMOVED, was, old, "public -> " + Access.describe(m.visibility())));
+                    }
+                }
+            }
+
+            if (!was.isRecord() && !was.isEnum() && SealedDetector.serializable(before, was)) {
+                if (!SealedDetector.serializable(after, now)) {
+                    findings.accept(Finding.of(Rule.SERIALIZATION_INCOMPATIBLE, was, "no longer Serializable"));
+                } else if (!now.isRecord()) {
+                    serialForm(before, was, after, now, findings);
+                }
+            }
+        }
+    }
+
+    /** Packages the module no longer opens to reflection. */
+    @Override
+    public void detectLibrary(Comparison comparison, Consumer<Finding> findings) {
+        ApiModel before = comparison.before();
+        ModuleInfo was = before.module();
+        ModuleInfo now = comparison.after().module();
+        if (was != null && now != null) {
+            TreeSet<String> packages = new TreeSet<>(was.opens().keySet());
+            if (was.open()) {
+                before.classes().forEach(c -> packages.add(c.packageName()));
+            }
+            for (String pkg : packages) {
+                if (was.opens(pkg) && !now.opens(pkg)) {
+                    findings.accept(new Finding(Rule.OPENS_REMOVED, Descriptors.binaryName(pkg), null,
+                            "module " + now.name() + (now.exports(pkg) ? " still exports it, but only public members are reflectable" : "")));
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether a stream the earlier version wrote can be read into the
+     * later one: the serialVersionUIDs, computed where not declared, must
+     * match, and then each field both write must have the same primitive
+     * type. A field the later version no longer writes is dropped from
+     * old streams without a word.
+     */
+    private static void serialForm(ApiModel before, ClassFile was, ApiModel after, ClassFile now, Consumer<Finding> findings) {
+        Long old = SerialForm.uid(before, was);
+        Long uid = SerialForm.uid(after, now);
+        if (!Objects.equals(old, uid)) {
+            findings.accept(Finding.of(Rule.SERIALIZATION_INCOMPATIBLE, was,
+                    "serialVersionUID " + describe(old, was) + " -> " + describe(uid, now)));
+            return;
+        }
+        Map<String, String> wrote = SerialForm.fields(was);
+        Map<String, String> reads = SerialForm.fields(now);
+        // an Externalizable class writes its own form, and serialPersistentFields is only known at run time
+        if (wrote == null || reads == null || before.interfaces(was).contains("java/io/Externalizable")) {
+            return;
+        }
+        wrote.forEach((name, type) -> {
+            String read = reads.get(name);
+            if (read == null) {
+                findings.accept(Finding.of(Rule.SERIALIZATION_INCOMPATIBLE, was,
+                        "field " + name + " no longer serialized, its value in old streams is dropped"));
+            } else if (!read.equals(type) && (isPrimitive(type) || isPrimitive(read))) {
+                findings.accept(Finding.of(Rule.SERIALIZATION_INCOMPATIBLE, was,
+                        "field " + name + " " + Descriptors.type(type) + " -> " + Descriptors.type(read) + ", InvalidClassException"));
+            } else if (!read.equals(type)) {
+                findings.accept(Finding.of(Rule.SERIALIZATION_INCOMPATIBLE, was,
+                        "field " + name + " " + Descriptors.type(type) + " -> " + Descriptors.type(read)
+                                + ", ClassCastException for values that are not both"));
+            }
+        });
+    }
+
+    private static boolean isPrimitive(String descriptor) {
+        return descriptor.charAt(0) != 'L' && descriptor.charAt(0) != '[';
+    }
+
+    private static String describe(Long uid, ClassFile type) {
+        return uid == null ? "not a constant" : uid + "L" + (SerialForm.declaresUid(type) ? "" : " (computed)");
+    }
+}
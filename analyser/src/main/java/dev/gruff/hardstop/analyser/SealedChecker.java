@@ -0,0 +1,197 @@
+package dev.gruff.hardstop.analyser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The classes of a class path that the JVM would refuse to load because
+ * a sealed class or interface they extend or implement does not permit
+ * them.
+ *
+ * When a class is loaded, each of its direct supertypes that is sealed
+ * must list it in PermittedSubclasses and, for the unnamed module, be in
+ * the same package, or else be in the same named module (JVMS 5.3.5);
+ * otherwise loading throws IncompatibleClassChangeError. Nothing checks
+ * this before the class is first used, and the sealed type and its
+ * subtype are often in different jars that are upgraded separately, as
+ * when a library seals a class a client extends. Here every class of
+ * every jar is matched against the PermittedSubclasses of the supertypes
+ * the class path resolves it to, the first jar holding a class winning as
+ * it does for a class loader.
+ *
+ * {@link #refresh()} rereads only the jars whose size or modification
+ * time changed, and each of those through {@link ApiModel#read(Path,
+ * ApiModel)} against its last reading, so unchanged entries are not
+ * parsed again either; a class directory has no such stamp and is always
+ * reread. Only the classes of a changed jar and their direct subtypes in
+ * the other jars are checked again.
+ */
+public final class SealedChecker {
+
+    /**
+     * A class that cannot be loaded.
+     *
+     * @param subclass  internal name of the class
+     * @param sealed    internal name of the sealed supertype that rejects it
+     * @param reason    why, as a phrase
+     */
+    public record Violation(String subclass, Path jar, String sealed, Path sealedJar, String reason) {
+
+        @Override
+        public String toString() {
+            return Descriptors.binaryName(subclass) + " (" + jar.getFileName() + ") " + reason + " "
+                    + Descriptors.binaryName(sealed) + " (" + sealedJar.getFileName()
+                    + "): IncompatibleClassChangeError when it is loaded";
+        }
+    }
+
+    /** One jar as last read, and the classes in it by each direct supertype they name. */
+    private record Jar(ApiModel model, long size, FileTime modified, Map<String, List<String>> subtypes) {
+    }
+
+    private final List<Path> classpath = new ArrayList<>();
+    private final Map<Path, Jar> jars = new HashMap<>();
+    private final Map<String, List<Violation>> violations = new HashMap<>();
+    private int reads;
+
+    /** Reads the jars or class directories of a class path, in order. */
+    public SealedChecker(Collection<Path> classpath) {
+        classpath.forEach(this::add);
+    }
+
+    /** Appends a jar or class directory to the class path. */
+    public void add(Path jar) {
+        if (!classpath.contains(jar)) {
+            classpath.add(jar);
+            read(jar);
+        }
+    }
+
+    /**
+     * Rereads the jars that changed since they were last read.
+     *
+     * @return true if any had
+     */
+    public boolean refresh() {
+        boolean changed = false;
+        for (Path jar : classpath) {
+            Jar last = jars.get(jar);
+            if (Files.isDirectory(jar) || last.size() != size(jar) || !last.modified().equals(modified(jar))) {
+                read(jar);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /** Every class that cannot be loaded, by class name. */
+    public List<Violation> violations() {
+        List<Violation> all = new ArrayList<>();
+        violations.values().forEach(all::addAll);
+        all.sort((a, b) -> a.subclass().compareTo(b.subclass()));
+        return all;
+    }
+
+    /** Number of jars read so far, rereads included. */
+    public int reads() {
+        return reads;
+    }
+
+    private void read(Path path) {
+        Jar last = jars.get(path);
+        ApiModel model = last == null ? ApiModel.read(path) : ApiModel.read(path, last.model());
+        reads++;
+        Map<String, List<String>> subtypes = new HashMap<>();
+        for (ClassFile c : model.classes()) {
+            for (String s : supertypes(c)) {
+                subtypes.computeIfAbsent(s, k -> new ArrayList<>()).add(c.name());
+            }
+        }
+        jars.put(path, new Jar(model, size(path), modified(path), subtypes));
+
+        Set<String> affected = new HashSet<>();
+        for (ApiModel m : last == null ? List.of(model) : List.of(last.model(), model)) {
+            for (ClassFile c : m.classes()) {
+                affected.add(c.name());
+                for (Jar jar : jars.values()) {
+                    affected.addAll(jar.subtypes().getOrDefault(c.name(), List.of()));
+                }
+            }
+        }
+        affected.forEach(this::check);
+    }
+
+    /** Checks one class as the class path resolves it against the sealed types it directly extends or implements. */
+    private void check(String name) {
+        violations.remove(name);
+        Path jar = owner(name);
+        if (jar == null) {
+            return;
+        }
+        ClassFile type = jars.get(jar).model().get(name);
+        List<Violation> found = new ArrayList<>();
+        for (String s : supertypes(type)) {
+            Path sealedJar = owner(s);
+            ClassFile sealed = sealedJar == null ? null : jars.get(sealedJar).model().get(s);
+            if (sealed == null || !sealed.isSealed()) {
+                continue;
+            }
+            String verb = sealed.isInterface() ? "implements" : "extends";
+            if (!sealed.permittedSubclasses().contains(name)) {
+                found.add(new Violation(name, jar, s, sealedJar, verb + " but is not permitted by"));
+            } else if (jars.get(sealedJar).model().module() != null ? !sealedJar.equals(jar)
+                    : !type.packageName().equals(sealed.packageName())) {
+                found.add(new Violation(name, jar, s, sealedJar, verb + " from another "
+                        + (jars.get(sealedJar).model().module() != null ? "module" : "package") + " than"));
+            }
+        }
+        if (!found.isEmpty()) {
+            violations.put(name, found);
+        }
+    }
+
+    /** The first jar on the class path holding the class, or null if none does. */
+    private Path owner(String name) {
+        for (Path jar : classpath) {
+            Jar read = jars.get(jar);
+            if (read != null && read.model().get(name) != null) {
+                return jar;
+            }
+        }
+        return null;
+    }
+
+    private static List<String> supertypes(ClassFile type) {
+        List<String> supertypes = new ArrayList<>(type.interfaces());
+        if (type.superName() != null) {
+            supertypes.add(type.superName());
+        }
+        return supertypes;
+    }
+
+    private static long size(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot read " + path, e);
+        }
+    }
+
+    private static FileTime modified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot read " + path, e);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Section G: sealed hierarchies, enums and records whose shape clients pattern match on.
+ */
+final class SealedDetector implements Detector {
+
+    @Override
+    public char section() {
+        return 'G';
+    }
+
+    @Override
+    public void detect(Comparison comparison, Consumer<Finding> findings) {
+        ApiModel before = comparison.before();
+        ApiModel after = comparison.after();
+        for (Comparison.Pair pair : comparison.common()) {
+            if (pair.unchanged()) {
+                continue;
+            }
+            ClassFile was = pair.before();
+            ClassFile now = pair.after();
+
+            if (was.isSealed() && now.isSealed()) {
+                if (!now.permittedSubclasses().containsAll(was.permittedSubclasses())) {
+                    findings.accept(Finding.of(Rule.SEALED_HIERARCHY_TIGHTENED, was,
+                            "permits " + KindDetector.names(was) + " -> permits " + KindDetector.names(now)));
+                }
+                for (String sub : now.permittedSubclasses()) {
+                    if (!was.permittedSubclasses().contains(sub)) {
+                        findings.accept(Finding.of(Rule.SWITCH_EXHAUSTIVENESS_INVALIDATED, was,
+                                "new permitted subclass " + Descriptors.binaryName(sub)));
+                    }
+                }
+            }
+
+            if (was.isEnum() && now.isEnum()) {
+                for (Member constant : now.fields()) {
+                    if (Access.is(constant.access(), Access.ENUM) && was.field(constant) == null) {
+                        findings.accept(Finding.of(Rule.SWITCH_EXHAUSTIVENESS_INVALIDATED, was, constant, "new enum constant"));
+                    }
+                }
+            }
+
+            if (was.isRecord() && now.isRecord()) {
+                for (ClassFile.RecordComponent component : was.recordComponents()) {
+                    if (now.recordComponents().stream().noneMatch(c -> c.name().equals(component.name()))) {
+                        findings.accept(new Finding(Rule.RECORD_COMPONENT_REMOVED, was.binaryName(),
+                                Descriptors.member(component.name(), component.descriptor()), null));
+                    }
+                }
+                if (serializable(before, was) && serializable(after, now) && !was.recordComponents().equals(now.recordComponents())) {
+                    findings.accept(Finding.of(Rule.RECORD_SERIALIZATION_INCOMPATIBLE, was,
+                            "components " + components(was) + " -> " + components(now)));
+                }
+            }
+
+            if (!was.isRecord() && now.isRecord()) {
+                List<String> accessors = new ArrayList<>();
+                for (Member m : was.methods()) {
+                    if (m.isApi() && !m.isStatic() && m.descriptor().startsWith("()") && isBeanAccessor(m.name())) {
+                        String component = RecordSites.property(m.name());
+                        boolean kept = now.recordComponents().stream().anyMatch(c -> c.name().equals(component));
+                        accessors.add(m + (kept ? " -> " + component + "()" : ""));
+                    }
+                }
+                for (Member f : was.fields()) {
+                    if (f.isPublic() && !f.isStatic()) {
+                        accessors.add(f.toString());
+                    }
+                }
+                if (!accessors.isEmpty()) {
+                    findings.accept(Finding.of(Rule.BEAN_TO_RECORD, was,
+                            String.join(", ", accessors) + " -> components " + components(now)));
+                }
+                if (serializable(before, was) && serializable(after, now)) {
+                    findings.accept(Finding.of(Rule.RECORD_SERIALIZATION_INCOMPATIBLE, was,
+                            "records are deserialized through the canonical constructor, not field by field"));
+                }
+            }
+        }
+    }
+
+    static boolean serializable(ApiModel model, ClassFile type) {
+        return model.interfaces(type).contains("java/io/Serializable");
+    }
+
+    private static boolean isBeanAccessor(String name) {
+        return (name.startsWith("get") && name.length() > 3 && Character.isUpperCase(name.charAt(3)))
+                || (name.startsWith("is") && name.length() > 2 && Character.isUpperCase(name.charAt(2)));
+    }
+
+    private static String components(ClassFile record) {
+        return "(" + String.join(", ", record.recordComponents().stream()
+                .map(c -> Descriptors.type(c.descriptor()) + " " + c.name()).toList()) + ")";
+    }
+}
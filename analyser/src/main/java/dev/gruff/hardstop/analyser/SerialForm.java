@@ -0,0 +1,179 @@
+package dev.gruff.hardstop.analyser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What Java serialization writes for a class and checks when it reads it
+ * back: the serialVersionUID, and the name and type of each serializable field.
+ *
+ * A class that declares no serialVersionUID gets one at run time, the
+ * first eight bytes of a SHA-1 hash over its name, modifiers, interfaces
+ * and non-private members (Java Object Serialization Specification 4.6),
+ * so adding a public method is enough to make every stream the earlier
+ * version wrote unreadable. The same hash is worked out here from the
+ * class file. It depends on the class's bytes alone, so the model keeps
+ * it by the class's name and the CRC-32 and size {@link ApiModel}
+ * recorded for its bytes: a class that did not change between versions
+ * read one against the other is hashed once.
+ */
+final class SerialForm {
+
+    private static final String SERIAL_VERSION_UID = "serialVersionUID";
+    private static final String SERIAL_PERSISTENT_FIELDS = "serialPersistentFields";
+
+    private static final int CLASS_MODIFIERS = Access.PUBLIC | Access.FINAL | Access.INTERFACE | Access.ABSTRACT;
+    private static final int FIELD_MODIFIERS = Access.PUBLIC | Access.PRIVATE | Access.PROTECTED | Access.STATIC
+            | Access.FINAL | Access.VOLATILE | Access.TRANSIENT;
+    private static final int METHOD_MODIFIERS = Access.PUBLIC | Access.PRIVATE | Access.PROTECTED | Access.STATIC
+            | Access.FINAL | Access.SYNCHRONIZED | Access.NATIVE | Access.ABSTRACT | Access.STRICT;
+
+    private SerialForm() {
+    }
+
+    /**
+     * The serialVersionUID streams of the class carry: the declared one,
+     * else the default one, or null if the declared one is not a
+     * compile-time constant and so cannot be known without running the
+     * class's initialiser. Enum constants are written by name, so an
+     * enum and its constants' bodies all carry 0L.
+     */
+    static Long uid(ApiModel model, ClassFile type) {
+        if (type.isEnum() || model.superclassNames(type).contains("java/lang/Enum")) {
+            return 0L;
+        }
+        Member declared = type.field(SERIAL_VERSION_UID, "J");
+        if (declared != null && declared.isStatic()) {
+            return declared.constantValue() instanceof Long uid ? uid : null;
+        }
+        long checksum = model.checksum(type);
+        if (checksum == 0) {
+            return defaultUid(type);
+        }
+        Map<String, Long> computed = model.defaultUids();
+        String key = type.name() + "@" + checksum;
+        Long uid = computed.get(key);
+        if (uid == null) {
+            uid = defaultUid(type);
+            computed.putIfAbsent(key, uid);
+        }
+        return uid;
+    }
+
+    /** True if the class declares its serialVersionUID rather than leaving it to be computed. */
+    static boolean declaresUid(ClassFile type) {
+        Member declared = type.field(SERIAL_VERSION_UID, "J");
+        return declared != null && declared.isStatic();
+    }
+
+    /** Number of default serialVersionUIDs the model keeps so far. */
+    static int cached(ApiModel model) {
+        return model.defaultUids().size();
+    }
+
+    /**
+     * The fields default serialization writes, name to descriptor in
+     * declaration order: every field neither static nor transient. Null if
+     * the class lists them itself in serialPersistentFields, which only
+     * its initialiser knows.
+     */
+    static Map<String, String> fields(ClassFile type) {
+        if (type.field(SERIAL_PERSISTENT_FIELDS, "[Ljava/io/ObjectStreamField;") != null) {
+            return null;
+        }
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (Member f : type.fields()) {
+            if (!f.isStatic() && !Access.is(f.access(), Access.TRANSIENT)) {
+                fields.put(f.name(), f.descriptor());
+            }
+        }
+        return fields;
+    }
+
+    /** The serialVersionUID ObjectStreamClass computes for a class that declares none. */
+    static long defaultUid(ClassFile type) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeUTF(type.binaryName());
+
+            List<Member> methods = new ArrayList<>();
+            List<Member> constructors = new ArrayList<>();
+            boolean initialiser = false;
+            for (Member m : type.methods()) {
+                if (m.name().equals("<clinit>")) {
+                    initialiser = true;
+                } else if (m.isConstructor()) {
+                    constructors.add(m);
+                } else {
+                    methods.add(m);
+                }
+            }
+            int modifiers = type.declaredAccess() & CLASS_MODIFIERS;
+            if (type.isInterface()) {
+                modifiers = methods.isEmpty() ? modifiers & ~Access.ABSTRACT : modifiers | Access.ABSTRACT;
+            }
+            out.writeInt(modifiers);
+
+            for (String face : type.interfaces().stream().map(Descriptors::binaryName).sorted().toList()) {
+                out.writeUTF(face);
+            }
+
+            List<Member> fields = new ArrayList<>(type.fields());
+            fields.sort(Comparator.comparing(Member::name));
+            for (Member f : fields) {
+                int access = f.access() & FIELD_MODIFIERS;
+                if (!f.isPrivate() || (access & (Access.STATIC | Access.TRANSIENT)) == 0) {
+                    out.writeUTF(f.name());
+                    out.writeInt(access);
+                    out.writeUTF(f.descriptor());
+                }
+            }
+
+            if (initialiser) {
+                out.writeUTF("<clinit>");
+                out.writeInt(Access.STATIC);
+                out.writeUTF("()V");
+            }
+
+            constructors.sort(Comparator.comparing(Member::descriptor));
+            for (Member c : constructors) {
+                if (!c.isPrivate()) {
+                    out.writeUTF("<init>");
+                    out.writeInt(c.access() & METHOD_MODIFIERS);
+                    out.writeUTF(c.descriptor().replace('/', '.'));
+                }
+            }
+
+            methods.sort(Comparator.comparing(Member::name).thenComparing(Member::descriptor));
+            for (Member m : methods) {
+                if (!m.isPrivate()) {
+                    out.writeUTF(m.name());
+                    out.writeInt(m.access() & METHOD_MODIFIERS);
+                    out.writeUTF(m.descriptor().replace('/', '.'));
+                }
+            }
+            out.flush();
+
+            byte[] hash = MessageDigest.getInstance("SHA").digest(bytes.toByteArray());
+            long uid = 0;
+            for (int i = Math.min(hash.length, 8) - 1; i >= 0; i--) {
+                uid = (uid << 8) | (hash[i] & 0xFF);
+            }
+            return uid;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is required of every JDK", e);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides, finding by finding, how far inheritance shields clients from
+ * a change, by normative rule 3 of spec.md.
+ *
+ * Shielding applies only when erased signatures are unchanged,
+ * visibility is preserved, no new abstract obligations are introduced
+ * and no sealing or finality rule is violated. The first two protect
+ * code that calls or reads through the type, the last two code that
+ * extends it. A finding whose row allows shielding is Full when all four
+ * hold, Partial when callers are shielded but subclasses are not, and
+ * None otherwise; rows the spec marks None stay None.
+ *
+ * The conditions are checked against each version's member tables from
+ * {@link Hierarchy}. A type whose hierarchy entry the later version
+ * carried over from the earlier one is unchanged all the way up, so it
+ * is not looked at; only types at or under a changed type are evaluated,
+ * each once.
+ */
+public final class ShieldingEvaluator {
+
+    /**
+     * Which of the four conditions of rule 3 hold.
+     */
+    record Verdict(boolean signatures, boolean visibility, boolean obligations, boolean finality) {
+
+        static final Verdict HOLDS = new Verdict(true, true, true, true);
+
+        Rule.Shielding shielding() {
+            if (!signatures || !visibility) {
+                return Rule.Shielding.NONE;
+            }
+            return obligations && finality ? Rule.Shielding.FULL : Rule.Shielding.PARTIAL;
+        }
+    }
+
+    private final ApiModel before;
+    private final ApiModel after;
+    private final Map<String, Verdict> types = new ConcurrentHashMap<>();
+    private final AtomicInteger evaluated = new AtomicInteger();
+    private final AtomicInteger unchanged = new AtomicInteger();
+
+    public ShieldingEvaluator(ApiModel before, ApiModel after) {
+        this.before = before;
+        this.after = after;
+    }
+
+    /**
+     * The shielding the finding actually gets. A Partial row, shielded
+     * only under rule 3's conditions, comes out Full where they all hold;
+     * a Full row comes out less where they do not.
+     */
+    public Rule.Shielding evaluate(Finding finding) {
+        Rule.Shielding row = finding.rule().shielding();
+        if (row == Rule.Shielding.NONE) {
+            return row;
+        }
+        String name = finding.type().replace('.', '/');
+        ClassFile old = before.get(name);
+        ClassFile now = after.get(name);
+        if (old == null || now == null) {
+            return Rule.Shielding.NONE;
+        }
+        Verdict verdict = finding.member() == null ? verdict(old, now) : verdict(old, now, finding.member());
+        return verdict.shielding();
+    }
+
+    /** Types whose conditions were worked out member by member. */
+    public int evaluated() {
+        return evaluated.get();
+    }
+
+    /** Types passed over because their hierarchy entry was carried over unchanged. */
+    public int unchanged() {
+        return unchanged.get();
+    }
+
+    /** The conditions for everything a client can reach through the type. */
+    Verdict verdict(ClassFile old, ClassFile now) {
+        Verdict verdict = types.get(now.name());
+        if (verdict == null) {
+            verdict = compute(old, now);
+            Verdict raced = types.putIfAbsent(now.name(), verdict);
+            verdict = raced != null ? raced : verdict;
+        }
+        return verdict;
+    }
+
+    private Verdict compute(ClassFile old, ClassFile now) {
+        Hierarchy.Node was = before.hierarchy().of(old);
+        Hierarchy.Node is = after.hierarchy().of(now);
+        if (was == is) {
+            unchanged.incrementAndGet();
+            return Verdict.HOLDS;
+        }
+        evaluated.incrementAndGet();
+        boolean[] signatures = {true};
+        boolean[] visibility = {now.visibility() >= old.visibility()};
+        // a class made abstract obliges every client that instantiated it to subclass it instead
+        boolean[] obligations = {!now.isAbstract() || old.isAbstract() || now.isInterface()};
+        boolean[] finality = {!newlyFinal(old, now)};
+
+        LongMap<ApiModel.Resolved> nowChain = after.hierarchy().chainMethods(is);
+        LongMap<ApiModel.Resolved> nowFaces = after.hierarchy().interfaceMethods(is);
+        LongMap.Visitor<ApiModel.Resolved> method = (id, r) -> {
+            Member m = r.member();
+            if (!m.isApi() || m.isConstructor()) {
+                return;
+            }
+            ApiModel.Resolved found = nowChain.get(id);
+            if (found == null) {
+                found = nowFaces.get(id);
+            }
+            if (found == null || found.member().isStatic() != m.isStatic()) {
+                signatures[0] = false;
+                return;
+            }
+            Member n = found.member();
+            visibility[0] &= n.visibility() >= m.visibility();
+            obligations[0] &= !n.isAbstract() || m.isAbstract();
+            finality[0] &= !n.isFinal() || m.isFinal();
+        };
+        before.hierarchy().chainMethods(was).forEach(method);
+        before.hierarchy().interfaceMethods(was).forEach(method);
+
+        LongMap<ApiModel.Resolved> nowFields = after.hierarchy().fields(is);
+        before.hierarchy().fields(was).forEach((id, r) -> {
+            Member f = r.member();
+            if (!f.isApi()) {
+                return;
+            }
+            ApiModel.Resolved found = nowFields.get(id);
+            if (found == null || !found.member().descriptor().equals(f.descriptor())
+                    || found.member().isStatic() != f.isStatic()) {
+                signatures[0] = false;
+                return;
+            }
+            visibility[0] &= found.member().visibility() >= f.visibility();
+        });
+
+        // abstract methods neither version's tables had before: the chain's own, and the interfaces' the chain does not implement
+        LongMap<ApiModel.Resolved> oldChain = before.hierarchy().chainMethods(was);
+        LongMap<ApiModel.Resolved> oldFaces = before.hierarchy().interfaceMethods(was);
+        nowChain.forEach((id, r) -> {
+            if (r.member().isAbstract() && oldChain.get(id) == null && oldFaces.get(id) == null) {
+                obligations[0] = false;
+            }
+        });
+        nowFaces.forEach((id, r) -> {
+            if (r.member().isAbstract() && nowChain.get(id) == null && oldChain.get(id) == null && oldFaces.get(id) == null) {
+                obligations[0] = false;
+            }
+        });
+        return new Verdict(signatures[0], visibility[0], obligations[0], finality[0]);
+    }
+
+    /**
+     * The conditions for one member: it must still resolve on the type
+     * with the same erased descriptor and at least the same access, and
+     * must not have become abstract or final. A member the earlier version
+     * did not have is a new abstract obligation if it is abstract.
+     */
+    private Verdict verdict(ClassFile old, ClassFile now, String member) {
+        boolean finality = !newlyFinal(old, now);
+        List<Member> was = old.named(member);
+        if (was.isEmpty()) {
+            boolean obligations = true;
+            for (Member m : now.named(member)) {
+                obligations &= !m.isAbstract();
+            }
+            return new Verdict(true, true, obligations, finality);
+        }
+        boolean signatures = true;
+        boolean visibility = now.visibility() >= old.visibility();
+        boolean obligations = true;
+        for (Member m : was) {
+            boolean method = m.descriptor().startsWith("(");
+            ApiModel.Resolved found = method ? after.findMethod(now, m) : after.findField(now, m);
+            if (found == null || found.member().isStatic() != m.isStatic()
+                    || !found.member().descriptor().equals(m.descriptor())) {
+                signatures = false;
+                continue;
+            }
+            Member n = found.member();
+            visibility &= n.visibility() >= m.visibility();
+            obligations &= !n.isAbstract() || m.isAbstract();
+            finality &= !method || !n.isFinal() || m.isFinal();
+        }
+        return new Verdict(signatures, visibility, obligations, finality);
+    }
+
+    private static boolean newlyFinal(ClassFile old, ClassFile now) {
+        return now.isFinal() && !old.isFinal() || now.isSealed() && !old.isSealed();
+    }
+}
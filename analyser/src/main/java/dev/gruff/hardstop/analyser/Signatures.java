@@ -0,0 +1,202 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parses the generic signatures of fields and methods (JVMS 4.7.9.1), each distinct one once per comparison.
+ *
+ * Only members whose descriptors match in both versions ever need their
+ * signatures compared, so nothing is parsed when a class is read; a
+ * signature is parsed the first time it is asked for and kept until the
+ * {@link Comparison} that holds this is dropped. The
+ * constant pool hands out one String per entry, so a repeated lookup
+ * finds the same object and the map's equals stops at the identity check.
+ */
+final class Signatures {
+
+    /**
+     * A method signature, or a field signature as a method with no parameters returning the field's type.
+     *
+     * @param typeParameters the method's own type variables, in order
+     */
+    record Parsed(List<String> typeParameters, List<Type> parameters, Type result) {
+    }
+
+    /**
+     * One type.
+     *
+     * @param text as Java source, with simple class names
+     * @param key  what the type means, for comparing: full class names, and
+     *             the method's own type variables by position, so renaming one changes nothing
+     */
+    record Type(String text, String key) {
+    }
+
+    private final Map<String, Parsed> parsed = new ConcurrentHashMap<>();
+
+    /**
+     * The parsed signature. A descriptor is also a valid signature, so a
+     * member without a Signature attribute can be parsed from its descriptor.
+     *
+     * @throws IllegalArgumentException if the string is not a signature
+     */
+    Parsed parse(String signature) {
+        Parsed found = parsed.get(signature);
+        if (found == null) {
+            found = new Parser(signature).signature();
+            Parsed raced = parsed.putIfAbsent(signature, found);
+            found = raced != null ? raced : found;
+        }
+        return found;
+    }
+
+    /** Number of distinct signatures parsed so far. */
+    int size() {
+        return parsed.size();
+    }
+
+    private static final class Parser {
+
+        private final String s;
+        private final List<String> variables = new ArrayList<>();
+        private int at;
+
+        Parser(String s) {
+            this.s = s;
+        }
+
+        Parsed signature() {
+            try {
+                if (s.charAt(0) == '<') {
+                    typeParameters();
+                }
+                if (s.charAt(at) != '(') {
+                    return new Parsed(List.of(), List.of(), type());
+                }
+                at++;
+                List<Type> parameters = new ArrayList<>();
+                while (s.charAt(at) != ')') {
+                    parameters.add(type());
+                }
+                at++;
+                Type result = type();
+                return new Parsed(List.copyOf(variables), List.copyOf(parameters), result);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("bad signature " + s, e);
+            }
+        }
+
+        /** Reads the type parameters; their bounds are part of the erasure, which the descriptor already compares. */
+        private void typeParameters() {
+            at++;
+            while (s.charAt(at) != '>') {
+                int colon = s.indexOf(':', at);
+                variables.add(s.substring(at, colon));
+                at = colon;
+                while (s.charAt(at) == ':') {
+                    at++;
+                    if (s.charAt(at) != ':' && s.charAt(at) != '>') {
+                        type();
+                    }
+                }
+            }
+            at++;
+        }
+
+        private Type type() {
+            char c = s.charAt(at++);
+            return switch (c) {
+                case 'B' -> new Type("byte", "B");
+                case 'C' -> new Type("char", "C");
+                case 'D' -> new Type("double", "D");
+                case 'F' -> new Type("float", "F");
+                case 'I' -> new Type("int", "I");
+                case 'J' -> new Type("long", "J");
+                case 'S' -> new Type("short", "S");
+                case 'Z' -> new Type("boolean", "Z");
+                case 'V' -> new Type("void", "V");
+                case '[' -> {
+                    Type element = type();
+                    yield new Type(element.text() + "[]", "[" + element.key());
+                }
+                case 'T' -> {
+                    int end = s.indexOf(';', at);
+                    String name = s.substring(at, end);
+                    at = end + 1;
+                    int index = variables.indexOf(name);
+                    yield new Type(name, index < 0 ? "T" + name + ";" : "T#" + index + ";");
+                }
+                case 'L' -> classType();
+                default -> throw new IllegalArgumentException("unexpected " + c + " at " + (at - 1));
+            };
+        }
+
+        private Type classType() {
+            StringBuilder text = new StringBuilder();
+            StringBuilder key = new StringBuilder("L");
+            int start = at;
+            while (true) {
+                char c = s.charAt(at);
+                if (c == ';') {
+                    String name = s.substring(start, at);
+                    text.append(text.length() == 0 ? Descriptors.simpleName(name) : name);
+                    key.append(name).append(';');
+                    at++;
+                    return new Type(text.toString(), key.toString());
+                }
+                if (c == '<' || c == '.') {
+                    String name = s.substring(start, at);
+                    text.append(text.length() == 0 ? Descriptors.simpleName(name) : name);
+                    key.append(name);
+                    if (c == '<') {
+                        at++;
+                        text.append('<');
+                        key.append('<');
+                        boolean first = true;
+                        while (s.charAt(at) != '>') {
+                            if (!first) {
+                                text.append(", ");
+                            }
+                            first = false;
+                            typeArgument(text, key);
+                        }
+                        at++;
+                        text.append('>');
+                        key.append('>');
+                    }
+                    if (s.charAt(at) == '.') {
+                        text.append('.');
+                        key.append('.');
+                        at++;
+                    }
+                    start = at;
+                    continue;
+                }
+                at++;
+            }
+        }
+
+        private void typeArgument(StringBuilder text, StringBuilder key) {
+            char c = s.charAt(at);
+            if (c == '*') {
+                at++;
+                text.append('?');
+                key.append('*');
+                return;
+            }
+            if (c == '+' || c == '-') {
+                at++;
+                Type bound = type();
+                text.append(c == '+' ? "? extends " : "? super ").append(bound.text());
+                key.append(c).append(bound.key());
+                return;
+            }
+            Type argument = type();
+            text.append(argument.text());
+            key.append(argument.key());
+        }
+    }
+}
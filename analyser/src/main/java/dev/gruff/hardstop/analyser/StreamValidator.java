@@ -0,0 +1,464 @@
+package dev.gruff.hardstop.analyser;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks Java serialization streams written by one version of a library
+ * against the classes of another, without deserializing them.
+ *
+ * The stream is walked token by token as the Object Serialization Stream
+ * Protocol (chapter 6 of the specification) lays it out. Each class
+ * descriptor is checked against the target version as ObjectInputStream
+ * would check it: the class must exist, be serializable the same way and
+ * have the same serialVersionUID, computed by {@link SerialForm} where
+ * not declared, and each field both sides have must be of a compatible
+ * type. Field values are skipped by their type codes, and nothing is
+ * ever instantiated or loaded.
+ *
+ * Only class descriptors and the strings naming field types and enum
+ * constants are kept, the handles a later back reference may need; the
+ * objects themselves are dropped as soon as they have been read past, so
+ * memory does not grow with the length of the stream, only with the
+ * number of classes in it and how deeply its objects nest. A writer that
+ * resets its stream lets the descriptors go too. What each class was
+ * found to be is kept across streams, so a store of many payloads checks
+ * each class once.
+ *
+ * Classes with a writeObject method are taken to call defaultWriteObject
+ * first, as the specification requires; their optional data after the
+ * fields is walked like any other content.
+ */
+public final class StreamValidator {
+
+    /**
+     * One way a stream fails to read into the target version.
+     *
+     * @param type  binary name of the class
+     * @param fatal true if ObjectInputStream throws, false if it reads the stream but loses or defaults data
+     */
+    public record Problem(String type, String detail, boolean fatal) {
+
+        @Override
+        public String toString() {
+            return (fatal ? "fails   " : "lossy   ") + type + "  (" + detail + ")";
+        }
+    }
+
+    private static final int STREAM_MAGIC = 0xACED;
+    private static final int STREAM_VERSION = 5;
+    private static final int BASE_HANDLE = 0x7E0000;
+
+    private static final int TC_NULL = 0x70;
+    private static final int TC_REFERENCE = 0x71;
+    private static final int TC_CLASSDESC = 0x72;
+    private static final int TC_OBJECT = 0x73;
+    private static final int TC_STRING = 0x74;
+    private static final int TC_ARRAY = 0x75;
+    private static final int TC_CLASS = 0x76;
+    private static final int TC_BLOCKDATA = 0x77;
+    private static final int TC_ENDBLOCKDATA = 0x78;
+    private static final int TC_RESET = 0x79;
+    private static final int TC_BLOCKDATALONG = 0x7A;
+    private static final int TC_EXCEPTION = 0x7B;
+    private static final int TC_LONGSTRING = 0x7C;
+    private static final int TC_PROXYCLASSDESC = 0x7D;
+    private static final int TC_ENUM = 0x7E;
+
+    private static final int SC_WRITE_METHOD = 0x01;
+    private static final int SC_SERIALIZABLE = 0x02;
+    private static final int SC_EXTERNALIZABLE = 0x04;
+    private static final int SC_BLOCK_DATA = 0x08;
+    private static final int SC_ENUM = 0x10;
+
+    /** A class descriptor as the stream gives it. */
+    private static final class Desc {
+        final String name;
+        final long uid;
+        int flags;
+        char[] types = new char[0];
+        String[] fields = new String[0];
+        String[] classNames = new String[0];
+        Desc superDesc;
+
+        Desc(String name, long uid) {
+            this.name = name;
+            this.uid = uid;
+        }
+
+        /**
+         * Everything the verdict on this descriptor depends on. The name and
+         * UID alone are not enough: every record has UID 0, and a declared
+         * UID often stays the same while the fields change.
+         */
+        String key() {
+            StringBuilder key = new StringBuilder(name).append('@').append(uid).append('/').append(flags);
+            for (int i = 0; i < fields.length; i++) {
+                key.append(' ').append(types[i]).append(fields[i]);
+                if (classNames[i] != null) {
+                    key.append(':').append(classNames[i]);
+                }
+            }
+            return key.toString();
+        }
+    }
+
+    private final ApiModel target;
+    private final Map<String, List<Problem>> verdicts = new HashMap<>();
+    private final Map<Integer, Object> handles = new HashMap<>();
+    private final Set<Problem> found = new LinkedHashSet<>();
+    private DataInputStream in;
+    private int next;
+    private long objects;
+
+    /**
+     * @param target the version the streams are to be read into
+     */
+    public StreamValidator(ApiModel target) {
+        this.target = target;
+    }
+
+    /**
+     * Walks one stream to its end and returns what stops it reading into
+     * the target version, or would lose data doing so, once per problem.
+     *
+     * @throws StreamCorruptedException if the bytes are not a serialization stream
+     */
+    public List<Problem> validate(InputStream stream) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+        found.clear();
+        reset();
+        if (in.readUnsignedShort() != STREAM_MAGIC || in.readUnsignedShort() != STREAM_VERSION) {
+            throw new StreamCorruptedException("not a serialization stream");
+        }
+        for (int tag = in.read(); tag >= 0; tag = in.read()) {
+            content(tag);
+        }
+        in = null;
+        return List.copyOf(found);
+    }
+
+    /** Objects, arrays and enum constants read so far, over every stream. */
+    public long objects() {
+        return objects;
+    }
+
+    /** Distinct class descriptors checked so far; a class written in two shapes counts twice. */
+    public int classes() {
+        return verdicts.size();
+    }
+
+    private void content(int tag) throws IOException {
+        switch (tag) {
+            case TC_OBJECT -> {
+                Desc desc = classDesc();
+                handle(null);
+                objects++;
+                classData(desc);
+            }
+            case TC_CLASS -> {
+                classDesc();
+                handle(null);
+            }
+            case TC_ARRAY -> {
+                Desc desc = classDesc();
+                handle(null);
+                objects++;
+                array(desc.name, in.readInt());
+            }
+            case TC_STRING -> {
+                handle(null);
+                skip(in.readUnsignedShort());
+            }
+            case TC_LONGSTRING -> {
+                handle(null);
+                skip(in.readLong());
+            }
+            case TC_ENUM -> {
+                Desc desc = classDesc();
+                handle(null);
+                objects++;
+                String constant = string(read());
+                check(desc.name + "#" + constant, () -> constant(desc.name, constant));
+            }
+            case TC_CLASSDESC, TC_PROXYCLASSDESC -> newClassDesc(tag);
+            case TC_REFERENCE -> in.readInt();
+            case TC_NULL -> {
+            }
+            case TC_EXCEPTION -> {
+                reset();
+                content(read());
+                reset();
+            }
+            case TC_RESET -> reset();
+            case TC_BLOCKDATA -> skip(in.readUnsignedByte());
+            case TC_BLOCKDATALONG -> skip(in.readInt());
+            default -> throw new StreamCorruptedException("unexpected tag 0x" + Integer.toHexString(tag));
+        }
+    }
+
+    /** A class descriptor where the grammar expects one: new, a back reference, or null. */
+    private Desc classDesc() throws IOException {
+        int tag = read();
+        return switch (tag) {
+            case TC_CLASSDESC, TC_PROXYCLASSDESC -> newClassDesc(tag);
+            case TC_NULL -> null;
+            case TC_REFERENCE -> handles.get(in.readInt()) instanceof Desc desc ? desc : null;
+            default -> throw new StreamCorruptedException("expected a class descriptor, found tag 0x" + Integer.toHexString(tag));
+        };
+    }
+
+    private Desc newClassDesc(int tag) throws IOException {
+        Desc desc;
+        if (tag == TC_PROXYCLASSDESC) {
+            desc = new Desc("proxy", 0);
+            handle(desc);
+            desc.flags = SC_SERIALIZABLE;
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String face = in.readUTF();
+                check(face, () -> exists(face));
+            }
+        } else {
+            desc = new Desc(in.readUTF(), in.readLong());
+            handle(desc);
+            desc.flags = in.readUnsignedByte();
+            int count = in.readUnsignedShort();
+            desc.types = new char[count];
+            desc.fields = new String[count];
+            desc.classNames = new String[count];
+            for (int i = 0; i < count; i++) {
+                desc.types[i] = (char) in.readUnsignedByte();
+                desc.fields[i] = in.readUTF();
+                if (desc.types[i] == 'L' || desc.types[i] == '[') {
+                    desc.classNames[i] = string(read());
+                }
+            }
+        }
+        annotation();
+        desc.superDesc = classDesc();
+        if (tag == TC_CLASSDESC) {
+            check(desc.key(), () -> descriptor(desc));
+        }
+        return desc;
+    }
+
+    /** A string where the grammar expects one, kept in case a later descriptor refers back to it. */
+    private String string(int tag) throws IOException {
+        switch (tag) {
+            case TC_STRING -> {
+                String s = in.readUTF();
+                handle(s);
+                return s;
+            }
+            case TC_LONGSTRING -> {
+                handle(null);
+                skip(in.readLong());
+                return "?";
+            }
+            case TC_REFERENCE -> {
+                return handles.get(in.readInt()) instanceof String s ? s : "?";
+            }
+            case TC_NULL -> {
+                return null;
+            }
+            default -> throw new StreamCorruptedException("expected a string, found tag 0x" + Integer.toHexString(tag));
+        }
+    }
+
+    /** The field values of each class from the top of the hierarchy down, and whatever writeObject added. */
+    private void classData(Desc desc) throws IOException {
+        List<Desc> chain = new ArrayList<>();
+        for (Desc d = desc; d != null; d = d.superDesc) {
+            chain.add(0, d);
+        }
+        for (Desc d : chain) {
+            if ((d.flags & SC_SERIALIZABLE) != 0) {
+                values(d);
+                if ((d.flags & SC_WRITE_METHOD) != 0) {
+                    annotation();
+                }
+            } else if ((d.flags & SC_EXTERNALIZABLE) != 0) {
+                if ((d.flags & SC_BLOCK_DATA) == 0) {
+                    throw new StreamCorruptedException(d.name + " was written with protocol version 1, whose external data has no length");
+                }
+                annotation();
+            }
+        }
+    }
+
+    private void values(Desc desc) throws IOException {
+        for (char type : desc.types) {
+            if (type == 'L' || type == '[') {
+                content(read());
+            } else {
+                skip(width(type));
+            }
+        }
+    }
+
+    private void array(String name, int length) throws IOException {
+        char element = name.charAt(1);
+        if (element == 'L' || element == '[') {
+            for (int i = 0; i < length; i++) {
+                content(read());
+            }
+        } else {
+            skip((long) length * width(element));
+        }
+    }
+
+    /** Contents up to the end of a block: class and object annotations, and external data. */
+    private void annotation() throws IOException {
+        for (int tag = read(); tag != TC_ENDBLOCKDATA; tag = read()) {
+            content(tag);
+        }
+    }
+
+    private interface Check {
+        List<Problem> run();
+    }
+
+    /** Records the problems of a class, checking it the first time any stream names it. */
+    private void check(String key, Check check) {
+        List<Problem> problems = verdicts.get(key);
+        if (problems == null) {
+            problems = check.run();
+            verdicts.put(key, problems);
+        }
+        found.addAll(problems);
+    }
+
+    /** A class descriptor against the target's class, as ObjectStreamClass.initNonProxy and readDesc compare them. */
+    private List<Problem> descriptor(Desc desc) {
+        if (desc.name.startsWith("[")) {
+            int l = desc.name.indexOf('L');
+            return l < 0 ? List.of() : exists(desc.name.substring(l + 1, desc.name.length() - 1));
+        }
+        String type = desc.name;
+        ClassFile c = target.get(type.replace('.', '/'));
+        if (c == null) {
+            return exists(type);
+        }
+        List<Problem> problems = new ArrayList<>();
+        boolean isEnum = (desc.flags & SC_ENUM) != 0;
+        if (isEnum != c.isEnum()) {
+            problems.add(new Problem(type, isEnum ? "no longer an enum, InvalidClassException" : "now an enum, InvalidClassException", true));
+            return problems;
+        }
+        if (isEnum) {
+            return problems;
+        }
+        Set<String> interfaces = target.interfaces(c);
+        boolean externalizable = interfaces.contains("java/io/Externalizable");
+        if (!interfaces.contains("java/io/Serializable")) {
+            problems.add(new Problem(type, "no longer Serializable, InvalidClassException", true));
+        } else if (externalizable != ((desc.flags & SC_EXTERNALIZABLE) != 0)) {
+            problems.add(new Problem(type, (externalizable ? "now" : "no longer") + " Externalizable, InvalidClassException", true));
+        }
+        if (!c.isRecord()) {
+            Long uid = SerialForm.uid(target, c);
+            if (uid != null && uid != desc.uid) {
+                problems.add(new Problem(type, "serialVersionUID " + desc.uid + "L in the stream, " + uid + "L"
+                        + (SerialForm.declaresUid(c) ? "" : " (computed)") + " in the target, InvalidClassException", true));
+            }
+        }
+        Map<String, String> local = SerialForm.fields(c);
+        if (local == null || externalizable) {
+            return problems;
+        }
+        Set<String> written = new LinkedHashSet<>();
+        for (int i = 0; i < desc.fields.length; i++) {
+            String name = desc.fields[i];
+            written.add(name);
+            String now = local.get(name);
+            char was = desc.types[i];
+            if (now == null) {
+                problems.add(new Problem(type, "field " + name + " is not in the target, its value is dropped", false));
+            } else if (was != 'L' && was != '[' || now.charAt(0) != 'L' && now.charAt(0) != '[') {
+                if (now.charAt(0) != was) {
+                    problems.add(new Problem(type, "field " + name + " " + Descriptors.type(desc.classNames[i] == null
+                            ? String.valueOf(was) : desc.classNames[i]) + " -> " + Descriptors.type(now)
+                            + ", InvalidClassException", true));
+                }
+            } else if (desc.classNames[i] != null && !desc.classNames[i].equals(now) && !desc.classNames[i].equals("?")) {
+                problems.add(new Problem(type, "field " + name + " " + Descriptors.type(desc.classNames[i]) + " -> "
+                        + Descriptors.type(now) + ", ClassCastException for values that are not both", false));
+            }
+        }
+        if (c.isRecord()) {
+            local.forEach((name, descriptor) -> {
+                if (!written.contains(name)) {
+                    problems.add(new Problem(type, "component " + Descriptors.type(descriptor) + " " + name
+                            + " is not in the stream, the canonical constructor gets its default", false));
+                }
+            });
+        }
+        return problems;
+    }
+
+    private List<Problem> constant(String type, String name) {
+        ClassFile c = target.get(type.replace('.', '/'));
+        Member field = c == null ? null : c.field(name, "L" + c.name() + ";");
+        return c != null && c.isEnum() && (field == null || !Access.is(field.access(), Access.ENUM))
+                ? List.of(new Problem(type, "enum constant " + name + " is gone, InvalidObjectException", true))
+                : List.of();
+    }
+
+    /** A class outside the target must at least be one of the JDK's. */
+    private List<Problem> exists(String type) {
+        return target.resolve(type.replace('.', '/')) == null
+                ? List.of(new Problem(type, "not in the target, ClassNotFoundException", true))
+                : List.of();
+    }
+
+    private int handle(Object kept) {
+        int handle = BASE_HANDLE + next++;
+        if (kept != null) {
+            handles.put(handle, kept);
+        }
+        return handle;
+    }
+
+    private void reset() {
+        handles.clear();
+        next = 0;
+    }
+
+    private int read() throws IOException {
+        int tag = in.read();
+        if (tag < 0) {
+            throw new EOFException("stream ends inside an object");
+        }
+        return tag;
+    }
+
+    private void skip(long n) throws IOException {
+        in.skipNBytes(n);
+    }
+
+    private static int width(char type) throws StreamCorruptedException {
+        return switch (type) {
+            case 'B', 'Z' -> 1;
+            case 'C', 'S' -> 2;
+            case 'I', 'F' -> 4;
+            case 'J', 'D' -> 8;
+            default -> throw new StreamCorruptedException("bad type code " + type);
+        };
+    }
+
+    @Override
+    public String toString() {
+        return objects + " objects of " + verdicts.size() + " classes checked against " + target;
+    }
+}
@@ -0,0 +1,475 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The switches of a compiled client over library enums and sealed types,
+ * and what each does once the later version adds, removes or reorders
+ * the constants or permitted subclasses under it.
+ *
+ * javac compiles such a switch in one of three ways, none of which the
+ * JVM checks against the library when the client links. A switch on an
+ * enum with constant labels alone indexes a {@code $SwitchMap$} array
+ * in a synthetic class, filled from each constant's ordinal when that
+ * class is initialised. A pattern switch calls
+ * {@code SwitchBootstraps.typeSwitch}, or {@code enumSwitch} on an enum,
+ * through invokedynamic with the labels as static arguments. Code that
+ * switches on {@code ordinal()} itself has the ordinals compiled in.
+ *
+ * A value no label matches goes to the default branch, which for a
+ * switch javac proved exhaustive throws MatchException
+ * (IncompatibleClassChangeError before Java 21) and otherwise carries on
+ * after the switch. So a constant or permitted subclass the client was
+ * not compiled against falls through an ordinary switch silently and
+ * throws from an exhaustive one; a reordering leaves the first two kinds
+ * alone and sends an ordinal switch down another constant's branch. A
+ * label whose constant is gone never matches, which is harmless unless
+ * the switch map entry lacks javac's guard, when initialising the map
+ * throws NoSuchFieldError; a class label that is gone throws
+ * NoClassDefFoundError when the call site is bootstrapped.
+ *
+ * Sites are collected by {@link ClientUsage} in its one pass over the
+ * client; switch maps are matched to the switches that read them once
+ * every class has been seen, since javac puts them in a class of their own.
+ */
+public final class SwitchSites {
+
+    /** How a switch was compiled. */
+    public enum Kind {
+        SWITCH_MAP, ENUM_SWITCH, TYPE_SWITCH, ORDINAL
+    }
+
+    /** What a change does to a switch site. */
+    public enum Outcome {
+        /** The value matches no label and carries on after the switch. */
+        FALLS_THROUGH,
+        /** The value takes the branch compiled for another constant. */
+        MISROUTED,
+        /** The switch throws. */
+        THROWS
+    }
+
+    /**
+     * One switch over a library type.
+     *
+     * @param client   internal name of the client class
+     * @param method   the method, as name and parameter types
+     * @param selector internal name of the type switched over
+     * @param labels   Type#NAME for a constant, the internal name for a type pattern, the number for an ordinal
+     * @param thrown   internal name of what the default branch throws, null if it falls through
+     */
+    public record Site(String client, String method, Kind kind, String selector, List<String> labels, String thrown) {
+    }
+
+    /**
+     * A site the later version breaks.
+     *
+     * @param value  the constant or class it now mishandles, as Type#NAME or internal name
+     * @param thrown internal name of the error, for {@link Outcome#THROWS}
+     */
+    public record Break(Site site, String value, Outcome outcome, String thrown) {
+
+        @Override
+        public String toString() {
+            String what = switch (outcome) {
+                case FALLS_THROUGH -> "falls through on ";
+                case MISROUTED -> "takes the wrong branch for ";
+                case THROWS -> "throws " + Descriptors.binaryName(thrown) + " on ";
+            };
+            return "switch in " + Descriptors.binaryName(site.client()) + "." + site.method() + " over "
+                    + Descriptors.binaryName(site.selector()) + " " + what + Descriptors.binaryName(value).replace('#', '.');
+        }
+    }
+
+    private static final int ICONST_0 = 0x03;
+    private static final int ICONST_5 = 0x08;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int IALOAD = 0x2E;
+    private static final int IASTORE = 0x4F;
+    private static final int TABLESWITCH = 0xAA;
+    private static final int LOOKUPSWITCH = 0xAB;
+    private static final int GETSTATIC = 0xB2;
+    private static final int INVOKEVIRTUAL = 0xB6;
+    private static final int INVOKEDYNAMIC = 0xBA;
+    private static final int NEW = 0xBB;
+
+    private static final String SWITCH_MAP = "$SwitchMap$";
+    private static final String SWITCH_BOOTSTRAPS = "java/lang/runtime/SwitchBootstraps";
+
+    /** One $SwitchMap$ array: the label javac gave each constant, and whether each store is guarded. */
+    private static final class SwitchMap {
+        String selector;
+        final Map<Integer, String> labels = new HashMap<>();
+        boolean guarded;
+    }
+
+    /** A switch over a switch map, before the map is known. */
+    private record Pending(String client, String method, String map, int[] keys, String thrown) {
+    }
+
+    private final Map<String, SwitchMap> maps = new HashMap<>();
+    private final List<Pending> pending = new ArrayList<>();
+    private final List<Site> sites = new ArrayList<>();
+    /** Sites whose switch map initialiser does not catch NoSuchFieldError, as javac's does. */
+    private final Set<Site> unguarded = new HashSet<>();
+
+    SwitchSites() {
+    }
+
+    /**
+     * Every switch through a switch map or a switch bootstrap, and every
+     * switch on an ordinal, whether or not the type switched over is the library's.
+     */
+    public List<Site> sites() {
+        return Collections.unmodifiableList(sites);
+    }
+
+    /**
+     * The sites the later version breaks, for every library enum and
+     * sealed type switched over: constants and permitted subclasses added,
+     * labelled constants and classes removed, ordinals moved. A type
+     * pattern on the selector itself is taken to catch whatever is added.
+     */
+    public List<Break> check(ApiModel before, ApiModel after) {
+        List<Break> broken = new ArrayList<>();
+        for (Site site : sites) {
+            if (site.kind() == Kind.ENUM_SWITCH || site.kind() == Kind.TYPE_SWITCH) {
+                for (String label : site.labels()) {
+                    if (label.indexOf('#') < 0 && before.get(label) != null && after.get(label) == null) {
+                        broken.add(new Break(site, label, Outcome.THROWS, "java/lang/NoClassDefFoundError"));
+                    }
+                }
+            }
+            for (String selector : selectors(site, before)) {
+                ClassFile old = before.get(selector);
+                ClassFile now = after.get(selector);
+                if (now == null) {
+                    continue;
+                }
+                if (old.isEnum() && now.isEnum()) {
+                    enumChanges(site, constants(old), constants(now), broken);
+                }
+                // javac seals an enum whose constants have bodies, permitting E$1, E$2 and so on
+                if (!old.isEnum() && site.kind() != Kind.ORDINAL && !site.labels().contains(selector)) {
+                    Set<String> had = permitted(before, old, new LinkedHashSet<>());
+                    for (String sub : permitted(after, now, new LinkedHashSet<>())) {
+                        if (!had.contains(sub) && site.labels().stream().noneMatch(l -> after.isSubtype(sub, l))) {
+                            broken.add(unmatched(site, sub));
+                        }
+                    }
+                }
+            }
+        }
+        return broken;
+    }
+
+    /**
+     * The library types the site switches over. A type switch's call site
+     * erases its selector to Object, so for an exhaustive one the selector
+     * is taken to be each sealed library type above a label whose
+     * permitted subclasses the labels all cover, which is what let javac
+     * prove it exhaustive.
+     */
+    private static List<String> selectors(Site site, ApiModel before) {
+        if (before.get(site.selector()) != null) {
+            return List.of(site.selector());
+        }
+        if (site.kind() != Kind.TYPE_SWITCH || site.thrown() == null) {
+            return List.of();
+        }
+        Set<String> candidates = new LinkedHashSet<>();
+        for (String label : site.labels()) {
+            ClassFile type = label.indexOf('#') < 0 ? before.get(label) : null;
+            if (type != null) {
+                candidates.addAll(before.superclassNames(type));
+                candidates.addAll(before.interfaces(type));
+            }
+        }
+        List<String> selectors = new ArrayList<>();
+        for (String candidate : candidates) {
+            ClassFile sealed = before.get(candidate);
+            if (sealed != null && sealed.isSealed() && permitted(before, sealed, new LinkedHashSet<>()).stream()
+                    .allMatch(sub -> site.labels().stream().anyMatch(l -> before.isSubtype(sub, l)))) {
+                selectors.add(candidate);
+            }
+        }
+        return selectors;
+    }
+
+    private void enumChanges(Site site, List<String> was, List<String> is, List<Break> broken) {
+        String prefix = site.selector() + "#";
+        if (site.kind() == Kind.ORDINAL) {
+            for (String constant : is) {
+                int from = was.indexOf(constant);
+                int to = is.indexOf(constant);
+                if (from != to && (site.labels().contains(Integer.toString(from)) || site.labels().contains(Integer.toString(to)))) {
+                    broken.add(new Break(site, prefix + constant, Outcome.MISROUTED, null));
+                }
+            }
+            return;
+        }
+        if (!site.labels().contains(site.selector())) {
+            for (String constant : is) {
+                if (!was.contains(constant)) {
+                    broken.add(unmatched(site, prefix + constant));
+                }
+            }
+        }
+        if (unguarded.contains(site)) {
+            for (String label : site.labels()) {
+                if (label.startsWith(prefix) && !is.contains(label.substring(prefix.length()))) {
+                    broken.add(new Break(site, label, Outcome.THROWS, "java/lang/NoSuchFieldError"));
+                }
+            }
+        }
+    }
+
+    private static Break unmatched(Site site, String value) {
+        return site.thrown() == null
+                ? new Break(site, value, Outcome.FALLS_THROUGH, null)
+                : new Break(site, value, Outcome.THROWS, site.thrown());
+    }
+
+    /** The enum's constants in ordinal order, which is the order javac writes their fields in. */
+    private static List<String> constants(ClassFile type) {
+        List<String> names = new ArrayList<>();
+        for (Member f : type.fields()) {
+            if (Access.is(f.access(), Access.ENUM)) {
+                names.add(f.name());
+            }
+        }
+        return names;
+    }
+
+    /** Every class a sealed type permits, directly or through sealed subtypes. */
+    private static Set<String> permitted(ApiModel model, ClassFile type, Set<String> found) {
+        for (String sub : type.permittedSubclasses()) {
+            if (found.add(sub)) {
+                ClassFile c = model.get(sub);
+                if (c != null && c.isSealed()) {
+                    permitted(model, c, found);
+                }
+            }
+        }
+        return found;
+    }
+
+    /** Records the switch maps the class initialises and the switches in each of its methods. */
+    void add(ClassFile file) {
+        ConstantPool pool = file.pool();
+        for (Member m : file.methods()) {
+            ClassFile.Code code = file.code(m);
+            if (code == null) {
+                continue;
+            }
+            if (m.name().equals("<clinit>")) {
+                switchMaps(code, pool, code.catchTypes().contains("java/lang/NoSuchFieldError"));
+            }
+            switches(file, m, code.instructions(), pool);
+        }
+    }
+
+    /** Resolves the switches read through switch maps, once every class has been added. */
+    void seal() {
+        for (Pending p : pending) {
+            SwitchMap map = maps.get(p.map());
+            if (map == null || map.selector == null) {
+                continue;
+            }
+            List<String> labels = new ArrayList<>();
+            for (int key : p.keys()) {
+                String label = map.labels.get(key);
+                if (label != null) {
+                    labels.add(label);
+                }
+            }
+            Site site = new Site(p.client(), p.method(), Kind.SWITCH_MAP, map.selector, List.copyOf(labels), p.thrown());
+            sites.add(site);
+            if (!map.guarded) {
+                unguarded.add(site);
+            }
+        }
+        pending.clear();
+    }
+
+    /**
+     * Reads the stores of a static initialiser that fills switch maps:
+     * {@code $SwitchMap$X[E.NAME.ordinal()] = label}.
+     */
+    private void switchMaps(ClassFile.Code code, ConstantPool pool, boolean guarded) {
+        byte[] bytes = code.instructions();
+        SwitchMap map = null;
+        String constant = null;
+        int label = -1;
+        for (int pc = 0; pc < bytes.length; pc += ClientUsage.length(bytes, pc)) {
+            int op = bytes[pc] & 0xFF;
+            if (op == GETSTATIC) {
+                int ref = ClientUsage.u2(bytes, pc + 1);
+                String name = pool.refName(ref);
+                String owner = pool.refOwner(ref);
+                if (name.startsWith(SWITCH_MAP)) {
+                    map = maps.computeIfAbsent(owner + "." + name, k -> new SwitchMap());
+                    map.guarded = guarded;
+                    constant = null;
+                } else if (map != null && pool.refDescriptor(ref).equals("L" + owner + ";")) {
+                    map.selector = owner;
+                    constant = owner + "#" + name;
+                }
+            } else if (op >= ICONST_0 && op <= ICONST_5) {
+                label = op - ICONST_0;
+            } else if (op == BIPUSH) {
+                label = bytes[pc + 1];
+            } else if (op == SIPUSH) {
+                label = (short) ClientUsage.u2(bytes, pc + 1);
+            } else if (op == IASTORE && map != null && constant != null) {
+                map.labels.put(label, constant);
+                constant = null;
+            }
+        }
+    }
+
+    /** Finds the switches of one method whose selector is a switch map entry, an ordinal or a switch bootstrap. */
+    private void switches(ClassFile file, Member method, byte[] code, ConstantPool pool) {
+        String where = Descriptors.member(method.name(), method.descriptor());
+        String map = null;
+        String ordinal = null;
+        Site bootstrap = null;
+        int previous = -1;
+        for (int pc = 0; pc < code.length; pc += ClientUsage.length(code, pc)) {
+            int op = code[pc] & 0xFF;
+            switch (op) {
+                case GETSTATIC -> {
+                    int ref = ClientUsage.u2(code, pc + 1);
+                    if (pool.refName(ref).startsWith(SWITCH_MAP)) {
+                        map = pool.refOwner(ref) + "." + pool.refName(ref);
+                    }
+                }
+                case INVOKEVIRTUAL -> {
+                    int ref = ClientUsage.u2(code, pc + 1);
+                    ordinal = pool.refName(ref).equals("ordinal") && pool.refDescriptor(ref).equals("()I")
+                            && !pool.refOwner(ref).equals("java/lang/Enum") ? pool.refOwner(ref) : null;
+                }
+                case INVOKEDYNAMIC -> bootstrap = bootstrap(file, where, ClientUsage.u2(code, pc + 1));
+                case TABLESWITCH, LOOKUPSWITCH -> {
+                    String thrown = thrown(code, pc + ClientUsage.s4(code, (pc + 4) & ~3), pool);
+                    if (previous == IALOAD && map != null) {
+                        pending.add(new Pending(file.name(), where, map, keys(code, pc), thrown));
+                    } else if (previous == INVOKEVIRTUAL && ordinal != null) {
+                        List<String> labels = new ArrayList<>();
+                        for (int key : keys(code, pc)) {
+                            labels.add(Integer.toString(key));
+                        }
+                        sites.add(new Site(file.name(), where, Kind.ORDINAL, ordinal, List.copyOf(labels), thrown));
+                    } else if (previous == INVOKEDYNAMIC && bootstrap != null) {
+                        sites.add(new Site(bootstrap.client(), where, bootstrap.kind(), bootstrap.selector(), bootstrap.labels(), thrown));
+                    }
+                    map = null;
+                }
+                default -> {
+                }
+            }
+            previous = op;
+        }
+    }
+
+    /** The switch the call site bootstraps, or null if it is some other call site or switches over a primitive. */
+    private static Site bootstrap(ClassFile file, String where, int site) {
+        ConstantPool pool = file.pool();
+        ClassFile.BootstrapMethod bsm = file.bootstrapMethods().get(pool.bootstrap(site));
+        int handle = pool.handleRef(bsm.method());
+        if (!pool.refOwner(handle).equals(SWITCH_BOOTSTRAPS)) {
+            return null;
+        }
+        Kind kind = switch (pool.refName(handle)) {
+            case "typeSwitch" -> Kind.TYPE_SWITCH;
+            case "enumSwitch" -> Kind.ENUM_SWITCH;
+            default -> null;
+        };
+        String descriptor = pool.refDescriptor(site);
+        if (kind == null || descriptor.charAt(1) != 'L') {
+            return null;
+        }
+        String selector = descriptor.substring(2, descriptor.indexOf(';'));
+        List<String> labels = new ArrayList<>();
+        for (int argument : bsm.arguments()) {
+            String label = switch (pool.tag(argument)) {
+                case ConstantPool.CLASS -> pool.className(argument);
+                case ConstantPool.STRING -> kind == Kind.ENUM_SWITCH ? selector + "#" + pool.constant(argument) : null;
+                case ConstantPool.DYNAMIC -> enumDesc(file, argument);
+                default -> null;
+            };
+            if (label != null) {
+                labels.add(label);
+            }
+        }
+        return new Site(file.name(), where, kind, selector, List.copyOf(labels), null);
+    }
+
+    /**
+     * The constant an {@code EnumDesc} label names, as javac writes it for
+     * a qualified enum constant in a type switch:
+     * {@code EnumDesc.of(ClassDesc.of("p.E"), "NAME")} through ConstantBootstraps.invoke.
+     */
+    private static String enumDesc(ClassFile file, int index) {
+        ConstantPool pool = file.pool();
+        int[] of = file.bootstrapMethods().get(pool.bootstrap(index)).arguments();
+        if (of.length != 3 || !pool.refOwner(pool.handleRef(of[0])).equals("java/lang/Enum$EnumDesc")
+                || pool.tag(of[1]) != ConstantPool.DYNAMIC || pool.tag(of[2]) != ConstantPool.STRING) {
+            return null;
+        }
+        int[] classDesc = file.bootstrapMethods().get(pool.bootstrap(of[1])).arguments();
+        if (classDesc.length != 2 || pool.tag(classDesc[1]) != ConstantPool.STRING) {
+            return null;
+        }
+        return pool.constant(classDesc[1]).toString().replace('.', '/') + "#" + pool.constant(of[2]);
+    }
+
+    /** The keys of a switch's cases, leaving out those that jump to the default. */
+    private static int[] keys(byte[] code, int pc) {
+        int at = (pc + 4) & ~3;
+        int fallback = ClientUsage.s4(code, at);
+        if ((code[pc] & 0xFF) == TABLESWITCH) {
+            int low = ClientUsage.s4(code, at + 4);
+            int high = ClientUsage.s4(code, at + 8);
+            int[] keys = new int[high - low + 1];
+            int n = 0;
+            for (int k = low; k <= high; k++) {
+                if (ClientUsage.s4(code, at + 12 + (k - low) * 4) != fallback) {
+                    keys[n++] = k;
+                }
+            }
+            return Arrays.copyOf(keys, n);
+        }
+        int[] keys = new int[ClientUsage.s4(code, at + 4)];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ClientUsage.s4(code, at + 8 + i * 8);
+        }
+        return keys;
+    }
+
+    /** What the default branch throws straight away, if it is an exhaustive switch's MatchException or ICCE. */
+    private static String thrown(byte[] code, int target, ConstantPool pool) {
+        if ((code[target] & 0xFF) != NEW) {
+            return null;
+        }
+        String type = pool.className(ClientUsage.u2(code, target + 1));
+        return type.equals("java/lang/MatchException") || type.equals("java/lang/IncompatibleClassChangeError") ? type : null;
+    }
+
+    @Override
+    public String toString() {
+        Map<Kind, Integer> counts = new TreeMap<>();
+        sites.forEach(s -> counts.merge(s.kind(), 1, Integer::sum));
+        return sites.size() + " switch sites " + counts;
+    }
+}
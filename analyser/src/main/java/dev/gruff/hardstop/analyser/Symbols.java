@@ -0,0 +1,44 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Member names and descriptors interned to small ints, shared by every class read.
+ *
+ * A method is identified to the JVM by its name and descriptor; packed
+ * into one long, the pair is a key that matching v1 members against v2
+ * can look up without building a string per lookup. The ids are only
+ * meaningful within one JVM and are never written anywhere. The table
+ * grows with the distinct names seen and is never cleared, which for
+ * member names and descriptors stays small even across many jars.
+ */
+final class Symbols {
+
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT = new AtomicInteger();
+
+    private Symbols() {
+    }
+
+    /** The id of the symbol, assigning the next free one the first time it is seen. */
+    static int intern(String symbol) {
+        Integer id = IDS.get(symbol);
+        return id != null ? id : IDS.computeIfAbsent(symbol, s -> NEXT.getAndIncrement());
+    }
+
+    /**
+     * Name and descriptor packed into one key, name in the high half. Never
+     * negative. Fields as well as methods are keyed this way, since the JVM
+     * resolves both by name and descriptor (JVMS 5.4.3.2, 5.4.3.3).
+     */
+    static long key(String name, String descriptor) {
+        return (long) intern(name) << 32 | intern(descriptor);
+    }
+
+    /** Number of symbols interned so far. */
+    static int size() {
+        return IDS.size();
+    }
+}
@@ -0,0 +1,92 @@
+package dev.gruff.hardstop.analyser;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Section A: classes that disappear, move, hide or leave their module's exports.
+ *
+ * A removed class is always reported as removed. When a class that only
+ * the new version has looks like its replacement, a second finding says
+ * whether it was renamed (same package, same members) or moved (same
+ * simple name, other package).
+ */
+final class TypeDetector implements Detector {
+
+    @Override
+    public char section() {
+        return 'A';
+    }
+
+    @Override
+    public void detect(Comparison comparison, Consumer<Finding> findings) {
+        for (Comparison.Pair pair : comparison.common()) {
+            if (pair.unchanged()) {
+                continue;
+            }
+            int was = pair.before().visibility();
+            int now = pair.after().visibility();
+            if (was == 3 && now < 3) {
+                findings.accept(Finding.of(Rule.CLASS_MADE_NON_PUBLIC, pair.before(), "public -> " + Access.describe(now)));
+            }
+        }
+    }
+
+    /**
+     * Removed classes, with their likely replacements from any package,
+     * and the module's name and exports.
+     */
+    @Override
+    public void detectLibrary(Comparison comparison, Consumer<Finding> findings) {
+        for (ClassFile old : comparison.removed()) {
+            findings.accept(Finding.of(Rule.CLASS_REMOVED, old, null));
+            ClassFile moved = null;
+            ClassFile renamed = null;
+            for (ClassFile now : comparison.added()) {
+                if (Descriptors.simpleName(now.name()).equals(Descriptors.simpleName(old.name()))
+                        && !now.packageName().equals(old.packageName())) {
+                    moved = now;
+                } else if (now.packageName().equals(old.packageName()) && now.kind().equals(old.kind())
+                        && !members(old).isEmpty() && members(now).equals(members(old))) {
+                    renamed = now;
+                }
+            }
+            if (moved != null) {
+                findings.accept(Finding.of(Rule.PACKAGE_CHANGED, old, "now " + moved.binaryName()));
+            } else if (renamed != null) {
+                findings.accept(Finding.of(Rule.CLASS_RENAMED, old, "now " + renamed.binaryName()));
+            }
+        }
+
+        ModuleInfo before = comparison.before().module();
+        ModuleInfo after = comparison.after().module();
+        if (before != null && after != null) {
+            if (!before.name().equals(after.name())) {
+                findings.accept(new Finding(Rule.MODULE_RENAMED, before.name(), null, "now " + after.name()));
+            }
+            for (String pkg : new TreeSet<>(before.exports().keySet())) {
+                if (before.exports(pkg) && !after.exports(pkg)) {
+                    findings.accept(new Finding(Rule.PACKAGE_NOT_EXPORTED, Descriptors.binaryName(pkg), null,
+                            "module " + after.name() + (after.exports().containsKey(pkg) ? " exports it to named modules only" : "")));
+                }
+            }
+        }
+    }
+
+    /** Non-private fields and methods other than constructors, by name and descriptor. */
+    private static Set<String> members(ClassFile type) {
+        Set<String> keys = new TreeSet<>();
+        for (Member m : type.methods()) {
+            if (m.isApi() && !m.isConstructor()) {
+                keys.add(m.key());
+            }
+        }
+        for (Member f : type.fields()) {
+            if (f.isApi()) {
+                keys.add(f.name() + ":" + f.descriptor());
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,83 @@
+package dev.gruff.hardstop.analyser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.tools.ToolProvider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * What the analyser tests share: v1, the scenarios and the v1 to v2
+ * findings, each read once for the whole run, and small libraries and
+ * clients compiled on the spot.
+ */
+final class Fixtures {
+
+    /** Read the first time a test asks for any of them. */
+    private static final class Read {
+        static final ApiModel V1 = ApiModel.read(Path.of(System.getProperty("hardstop.v1.jar")));
+        static final ApiModel SCENARIOS = ApiModel.read(Path.of(System.getProperty("hardstop.scenarios.jar")));
+        static final List<Finding> FINDINGS = new Classifier().classify(V1, ApiModel.read(Path.of(System.getProperty("hardstop.v2.jar"))));
+    }
+
+    private Fixtures() {
+    }
+
+    /** The v1 library. */
+    static ApiModel v1() {
+        return Read.V1;
+    }
+
+    /** The scenarios jar as a library. */
+    static ApiModel scenarios() {
+        return Read.SCENARIOS;
+    }
+
+    /** Everything the classifier finds from v1 to v2. */
+    static List<Finding> findings() {
+        return Read.FINDINGS;
+    }
+
+    /** Compiles one class against the class path into the directory. */
+    static void compile(Path dir, String classPath, String name, String source) throws IOException {
+        Files.createDirectories(dir);
+        Path file = dir.resolve(name + ".java");
+        Files.writeString(file, source);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int status = ToolProvider.getSystemJavaCompiler().run(null, out, out,
+                "-cp", classPath, "-d", dir.toString(), file.toString());
+        assertEquals(0, status, out.toString());
+    }
+
+    /** The named classes of the scenarios jar as a client. */
+    static ClientUsage scenarios(String... names) {
+        Set<String> wanted = new HashSet<>();
+        for (String name : names) {
+            wanted.add(name + ".class");
+        }
+        List<ClassFile> files = new ArrayList<>();
+        try (JarReader jar = JarReader.open(Path.of(System.getProperty("hardstop.scenarios.jar")))) {
+            for (JarReader.Entry entry : jar.entries()) {
+                if (wanted.contains(entry.name())) {
+                    files.add(jar.read(entry, in -> ClassReader.readDetached(in, ClassReader.Mode.FULL)));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ClientUsage.of(files);
+    }
+
+    /** The first v1 to v2 finding of the rule on the class with the given simple name. */
+    static Finding finding(Rule rule, String simpleName) {
+        return findings().stream().filter(f -> f.rule() == rule && f.type().endsWith("." + simpleName)).findFirst()
+                .orElseThrow(() -> new AssertionError(rule + " on " + simpleName));
+    }
+}
@@ -0,0 +1,52 @@
+package dev.gruff.hardstop.analyser;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static dev.gruff.hardstop.analyser.Fixtures.scenarios;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the annotation uses of a client against the annotation types of the new version.
+ */
+public class TestAnnotationIndex {
+
+    private static ApiModel v1;
+    private static ApiModel scenarios;
+
+    @BeforeAll
+    public static void read() {
+        v1 = Fixtures.v1();
+        scenarios = Fixtures.scenarios();
+    }
+
+    /**
+     * The annotation scenarios' uses are found by type, and each of the
+     * three declaration changes is told apart: an element added without a
+     * default, retention cut to CLASS, the type removed.
+     */
+    @Test
+    public void testAnnotationUsesAreIndexedAndCheckedByType() {
+        ApiModel v2 = ApiModel.read(Path.of(System.getProperty("hardstop.v2.jar")), v1);
+        ClientUsage client = scenarios("TestAnnotationEvolution$LocalAnnotatedClient", "AnnotatedClassWithDroppedAnnotation",
+                "TestAnnotationLostField");
+        AnnotationIndex index = client.annotations();
+        assertEquals(1, index.uses("dev.gruff.hardstop.testcases.apicheck.EvolvingAnnotation").size());
+        assertEquals(List.of(), index.uses("dev.gruff.hardstop.testcases.apicheck.RuntimeAnnotation"));
+        assertEquals(index.uses("dev/gruff/hardstop/testcases/apicheck/RetentionAnnotation"),
+                AnnotationIndex.of(scenarios.classes()).uses("dev.gruff.hardstop.testcases.apicheck.RetentionAnnotation"));
+
+        List<String> broken = index.check(v1, v2).stream().map(AnnotationIndex.Break::toString).toList();
+        assertEquals(List.of(
+                "@DroppedRuntimeAnnotation on AnnotatedClassWithDroppedAnnotation is gone: reflection drops it, "
+                        + "and naming the type throws NoClassDefFoundError",
+                "@EvolvingAnnotation on TestAnnotationEvolution$LocalAnnotatedClient has no value for value(): "
+                        + "IncompleteAnnotationException",
+                "@RetentionAnnotation on TestAnnotationEvolution$LocalAnnotatedClient is no longer visible to reflection "
+                        + "(retention CLASS)"), broken);
+        assertEquals(List.of(), index.check(v1, v1));
+    }
+}
@@ -0,0 +1,49 @@
+package dev.gruff.hardstop.analyser;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the Bloom filter of a client's references against its full index.
+ */
+public class TestBloomFilter {
+
+    private static ApiModel v1;
+    private static List<Finding> findings;
+
+    @BeforeAll
+    public static void read() {
+        v1 = Fixtures.v1();
+        findings = Fixtures.findings();
+    }
+
+    /**
+     * A client's Bloom filter never rules out a client the diff reaches, and
+     * rules out one that refers to nothing in the library.
+     */
+    @Test
+    public void testBloomFilterOnlyRejectsClientsTheDiffCannotReach() {
+        ApiModel v2 = ApiModel.read(Path.of(System.getProperty("hardstop.v2.jar")));
+        Footprint diff = Footprint.of(findings, v1, v2);
+        ClientUsage all = ClientUsage.read(Path.of(System.getProperty("hardstop.scenarios.jar")));
+        assertTrue(all.mightBeAffected(diff));
+        assertTrue(all.affectedBy(diff));
+        assertEquals(all.filter(findings, v1, v2), all.filter(diff));
+
+        for (Finding f : findings) {
+            Footprint one = Footprint.of(List.of(f), v1, v2);
+            if (all.affectedBy(one)) {
+                assertTrue(all.mightBeAffected(one), f + " rejected by the filter");
+            }
+        }
+        ClientUsage empty = ClientUsage.of(List.of());
+        assertFalse(empty.mightBeAffected(Footprint.of(findings.stream().filter(f -> f.member() == null).toList(), v1, v2)));
+    }
+}
@@ -0,0 +1,282 @@
+package dev.gruff.hardstop.analyser;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static dev.gruff.hardstop.analyser.Fixtures.compile;
+import static dev.gruff.hardstop.analyser.Fixtures.finding;
+import static dev.gruff.hardstop.analyser.Fixtures.scenarios;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Classifies the v1 to v2 changes statically and checks the result against spec.md and the scenario tests.
+ *
+ * For every spec row that names a scenario, some finding for that row
+ * must be on a class the scenario uses. The scenarios prove the failure
+ * at runtime; this proves the analyser sees the same change without
+ * running anything.
+ */
+public class TestClassifier {
+
+    /**
+     * Rows whose scenario does not make the change in v2, so there is nothing
+     * to find: SuperclassInserted extends BaseA in both versions.
+     */
+    private static final Set<Rule> NOT_IN_V2 = EnumSet.of(Rule.SUPERCLASS_INSERTED);
+
+    private static ApiModel v1;
+    private static ApiModel scenarios;
+    private static List<Finding> findings;
+
+    @BeforeAll
+    public static void read() {
+        v1 = Fixtures.v1();
+        scenarios = Fixtures.scenarios();
+        findings = Fixtures.findings();
+    }
+
+    /**
+     * Each row's scenario uses a class the row was found on.
+     */
+    @Test
+    public void testEveryRowIsFoundWhereItsScenarioLooks() {
+        List<String> missing = new ArrayList<>();
+        for (Rule rule : Rule.values()) {
+            for (String test : rule.tests()) {
+                if (test.startsWith("tests-jpms:")) {
+                    continue;
+                }
+                Set<String> used = referencedBy(test);
+                assertTrue(!used.isEmpty(), "no scenario " + test + " for " + rule);
+                boolean found = findings.stream()
+                        .filter(f -> f.rule() == rule)
+                        .anyMatch(f -> used.contains(f.type().replace('.', '/')));
+                if (found == NOT_IN_V2.contains(rule)) {
+                    missing.add(rule + (found ? " found on a class used by " : " not found on any class used by ") + test);
+                }
+            }
+        }
+        assertTrue(missing.isEmpty(), String.join("\n", missing));
+    }
+
+    /**
+     * The module rows compare the two JPMS jars, whose scenarios run as a module of their own.
+     */
+    @Test
+    public void testModuleRows() {
+        ApiModel before = ApiModel.read(Path.of(System.getProperty("hardstop.v1-jpms.jar")));
+        ApiModel after = ApiModel.read(Path.of(System.getProperty("hardstop.v2-jpms.jar")));
+        List<Finding> found = new Classifier().classify(before, after);
+        assertTrue(found.stream().anyMatch(f -> f.rule() == Rule.PACKAGE_NOT_EXPORTED && f.type().equals("dev.gruff.jpms")), found::toString);
+        assertTrue(found.stream().anyMatch(f -> f.rule() == Rule.OPENS_REMOVED && f.type().equals("dev.gruff.jpms.opens")), found::toString);
+        assertTrue(found.stream().noneMatch(f -> f.rule() == Rule.PACKAGE_NOT_EXPORTED && f.type().equals("dev.gruff.jpms.opens")), found::toString);
+    }
+
+    /**
+     * Every row of spec.md has a rule with the same phase, certainty, shielding and scenarios, and no rule is extra.
+     */
+    @Test
+    public void testRulesMatchSpec() throws IOException {
+        Set<Rule> unmatched = EnumSet.allOf(Rule.class);
+        char section = 0;
+        for (String line : Files.readAllLines(Path.of(System.getProperty("hardstop.spec")))) {
+            if (line.startsWith("## ") && line.length() > 4 && line.charAt(4) == '.') {
+                section = line.charAt(3);
+                continue;
+            }
+            if (!line.startsWith("|") || line.startsWith("|--") || line.startsWith("| Change")) {
+                continue;
+            }
+            String[] cells = line.split("\\|");
+            String change = cells[1].trim();
+            char in = section;
+            Rule rule = unmatched.stream().filter(r -> r.section() == in && r.change().equals(change)).findFirst()
+                    .orElseThrow(() -> new AssertionError("no rule for " + in + ": " + change));
+            unmatched.remove(rule);
+            assertEquals(cells[2].trim(), rule.phase().toString(), rule + " phase");
+            assertEquals(cells[3].trim(), rule.certainty().toString(), rule + " certainty");
+            assertEquals(cells[4].trim(), rule.shielding().toString(), rule + " shielding");
+            assertEquals(cells[5].replace("`", "").trim(), String.join(", ", rule.tests()), rule + " tests");
+        }
+        assertTrue(unmatched.isEmpty(), "rules not in spec.md: " + unmatched);
+    }
+
+    @Test
+    public void testNoFindingsForAnUnchangedLibrary() {
+        assertEquals(List.of(), new Classifier().classify(v1, v1));
+    }
+
+    @Test
+    public void testDescriptorChangesAreNotAlsoRemovals() {
+        assertTrue(findings.stream().noneMatch(f -> f.rule() == Rule.METHOD_REMOVED && f.type().endsWith(".ErasureDrift")));
+        assertTrue(findings.stream().noneMatch(f -> f.rule() == Rule.FIELD_REMOVED && f.type().endsWith(".FieldTypeChange")));
+        assertTrue(findings.stream().noneMatch(f -> f.rule() == Rule.FIELD_REMOVED && f.type().endsWith(".FieldMovedChild")));
+    }
+
+    @Test
+    public void testSuperclassChangesAreToldApart() {
+        assertRow(Rule.SUPERCLASS_REMOVED, "SuperclassRemoved");
+        assertRow(Rule.SUPERCLASS_REPLACED, "SuperclassReplaced");
+        assertRow(Rule.SUPERCLASS_INSERTED, "HierarchyCheckChangeOfParent");
+        assertRow(Rule.CLASS_RENAMED, "RenamedClass");
+        assertRow(Rule.CONFLICTING_DEFAULT_METHODS, "I2");
+    }
+
+    /**
+     * Reading v2 against v1 skips the classes whose jar entries match and finds exactly what a full read finds.
+     */
+    @Test
+    public void testUnchangedClassesAreNotParsedTwice() {
+        ApiModel v2 = ApiModel.read(Path.of(System.getProperty("hardstop.v2.jar")), v1);
+        assertTrue(v2.reused() > 0, "no class was taken from v1");
+        assertTrue(v2.reused() < v2.size(), "every class was taken from v1");
+        assertEquals(findings, new Classifier().classify(v1, v2));
+        assertEquals(v1.size(), ApiModel.read(Path.of(System.getProperty("hardstop.v1.jar")), v1).reused());
+    }
+
+    /**
+     * A class shared by both versions keeps its hierarchy entry only while
+     * its ancestors are unchanged: BaseB extends Object in both, SubC
+     * extends BaseA, which v2 changes.
+     */
+    @Test
+    public void testHierarchyEntriesCarryOverUntilAnAncestorChanges() {
+        ApiModel v2 = ApiModel.read(Path.of(System.getProperty("hardstop.v2.jar")), v1);
+        ClassFile baseB = v2.get("dev/gruff/hardstop/testcases/apicheck/BaseB");
+        ClassFile subC = v2.get("dev/gruff/hardstop/testcases/apicheck/SubC");
+        assertTrue(baseB == v1.get(baseB.name()) && subC == v1.get(subC.name()), "BaseB and SubC should be unchanged");
+        v1.superclasses(baseB);
+        v1.superclasses(subC);
+
+        assertEquals(v1.superclasses(baseB), v2.superclasses(baseB));
+        assertEquals(1, v2.hierarchy().carried());
+        assertSame(v2.get("dev/gruff/hardstop/testcases/apicheck/BaseA"), v2.superclasses(subC).get(0));
+        assertNotSame(v1.superclasses(subC).get(0), v2.superclasses(subC).get(0));
+        assertEquals(1, v2.hierarchy().carried());
+    }
+
+    /**
+     * Packages classified on several threads give the same findings, in the same order, as on one,
+     * and v1's one large package is shared among them in runs.
+     */
+    @Test
+    public void testParallelClassificationIsDeterministic() {
+        ApiModel v2 = ApiModel.read(Path.of(System.getProperty("hardstop.v2.jar")));
+        List<Comparison> packages = new Comparison(v1, v2).byPackage();
+        List<Comparison> runs = packages.stream().flatMap(p -> p.split(Classifier.RUN).stream()).toList();
+        assertTrue(runs.size() > packages.size());
+        assertTrue(runs.stream().allMatch(r -> r.common().size() <= Classifier.RUN));
+        ForkJoinPool one = new ForkJoinPool(1);
+        ForkJoinPool four = new ForkJoinPool(4);
+        try {
+            assertEquals(findings, new Classifier(one).classify(v1, v2));
+            assertEquals(findings, new Classifier(four).classify(v1, v2));
+        } finally {
+            one.shutdown();
+            four.shutdown();
+        }
+    }
+
+    /**
+     * With the scenarios as the client every always-fail row stays, and
+     * a depends row is dropped only where no scenario uses it; with a
+     * single scenario as the client, the depends rows on classes it does
+     * not touch go too. A client that only takes a method reference to
+     * the method made abstract still touches it.
+     */
+    @Test
+    public void testClientUsageKeepsTheDependsRowsTheClientTouches(@TempDir Path dir) throws IOException {
+        ApiModel v2 = ApiModel.read(Path.of(System.getProperty("hardstop.v2.jar")));
+        Path jar = Path.of(System.getProperty("hardstop.scenarios.jar"));
+        List<Finding> used = new Classifier().classify(v1, v2, ClientUsage.read(jar));
+        assertTrue(used.containsAll(findings.stream().filter(f -> f.rule().alwaysFails()).toList()));
+        Set<Rule> rules = EnumSet.noneOf(Rule.class);
+        used.forEach(f -> rules.add(f.rule()));
+        rules.addAll(NOT_IN_V2);
+        findings.forEach(f -> assertTrue(rules.contains(f.rule()), f + " dropped although its scenario uses it"));
+
+        List<Finding> kept = scenarios("TestMethodModifiers").filter(findings, v1, v2);
+        assertTrue(kept.stream().anyMatch(f -> f.rule() == Rule.METHOD_MADE_ABSTRACT), "method made abstract dropped");
+        assertTrue(kept.stream().noneMatch(f -> f.rule() == Rule.RECORD_COMPONENT_REMOVED), "record component kept");
+
+        compile(dir, System.getProperty("hardstop.v1.jar"), "Refs", """
+                import dev.gruff.hardstop.testcases.apicheck.MethodMadeAbstract;
+                class Refs {
+                    Runnable ref(MethodMadeAbstract m) {
+                        return m::callme;
+                    }
+                }
+                """);
+        ClientUsage refs = ClientUsage.read(dir);
+        assertTrue(refs.filter(findings, v1, v2).stream().anyMatch(f -> f.rule() == Rule.METHOD_MADE_ABSTRACT),
+                "method reference dropped");
+        assertTrue(refs.mightBeAffected(Footprint.of(List.of(finding(Rule.METHOD_MADE_ABSTRACT, "MethodMadeAbstract")), v1, v2)));
+    }
+
+    private static void assertRow(Rule rule, String simpleName) {
+        assertTrue(findings.stream().anyMatch(f -> f.rule() == rule && f.type().endsWith("." + simpleName)),
+                rule + " on " + simpleName);
+    }
+
+    /**
+     * Classes the scenario uses: those named in the constant pools of the
+     * scenario, its nested classes and the client classes it uses in turn,
+     * plus the v1 supertypes of all of them and the classes declared in the
+     * same source file, such as the package-private classes behind
+     * HierarchyChanges.
+     */
+    private static Set<String> referencedBy(String scenario) {
+        Set<String> used = new HashSet<>();
+        Deque<ClassFile> todo = new ArrayDeque<>();
+        for (ClassFile c : scenarios.classes()) {
+            if (c.name().equals(scenario) || c.name().startsWith(scenario + "$")) {
+                todo.add(c);
+            }
+        }
+        Set<String> seen = new HashSet<>();
+        while (!todo.isEmpty()) {
+            ClassFile c = todo.poll();
+            if (!seen.add(c.name())) {
+                continue;
+            }
+            for (String name : c.referencedClasses()) {
+                used.add(name);
+                ClassFile client = scenarios.get(name);
+                if (client != null) {
+                    todo.add(client);
+                }
+            }
+        }
+        for (String name : new ArrayList<>(used)) {
+            ClassFile library = v1.get(name);
+            if (library == null) {
+                continue;
+            }
+            used.addAll(v1.superclassNames(library));
+            used.addAll(v1.interfaces(library));
+            for (ClassFile sibling : v1.classes()) {
+                if (sibling.packageName().equals(library.packageName()) && library.sourceFile() != null
+                        && library.sourceFile().equals(sibling.sourceFile())) {
+                    used.add(sibling.name());
+                }
+            }
+        }
+        return used;
+    }
+}
@@ -0,0 +1,137 @@
+package dev.gruff.hardstop.analyser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the mapped jar reader against java.util.zip, entry by entry.
+ */
+public class TestJarReader {
+
+    @Test
+    public void testDeflatedJarsReadAsZipFileReadsThem() throws IOException {
+        assertSameAsZipFile(Path.of(System.getProperty("hardstop.v1.jar")));
+        assertSameAsZipFile(Path.of(System.getProperty("hardstop.scenarios.jar")));
+    }
+
+    @Test
+    public void testStoredEntriesAndComments(@TempDir Path dir) throws IOException {
+        Path jar = dir.resolve("stored.jar");
+        byte[] big = new byte[200_000];
+        for (int i = 0; i < big.length; i++) {
+            big[i] = (byte) (i * 31);
+        }
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+            out.setComment("a comment the reader has to scan back over");
+            put(out, "a/Stored.bin", "stored".getBytes(), ZipEntry.STORED);
+            put(out, "a/", new byte[0], ZipEntry.STORED);
+            put(out, "a/Big.bin", big, ZipEntry.DEFLATED);
+            put(out, "a/Empty.bin", new byte[0], ZipEntry.DEFLATED);
+        }
+        assertSameAsZipFile(jar);
+    }
+
+    @Test
+    public void testClassesReadFromPooledBuffersOutliveThem() throws IOException {
+        Path path = Path.of(System.getProperty("hardstop.v1.jar"));
+        List<ClassFile> detached = new ArrayList<>();
+        try (JarReader jar = JarReader.open(path); ZipFile zip = new ZipFile(path.toFile())) {
+            for (JarReader.Entry entry : jar.entries()) {
+                if (entry.name().endsWith(".class")) {
+                    detached.add(jar.read(entry, ClassReader::readDetached));
+                }
+            }
+            for (ClassFile file : detached) {
+                try (InputStream in = zip.getInputStream(zip.getEntry(file.name() + ".class"))) {
+                    assertEquals(ClassReader.read(in.readAllBytes()).referencedClasses(), file.referencedClasses(), file.name());
+                }
+            }
+        }
+    }
+
+    /**
+     * A stored entry whose bytes were damaged, and a deflated one whose
+     * central directory CRC was, are refused with a ZipException.
+     */
+    @Test
+    public void testEntriesNotMatchingTheirCrcAreRefused(@TempDir Path dir) throws IOException {
+        Path jar = dir.resolve("corrupt.jar");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+            put(out, "Stored.bin", "stored".getBytes(), ZipEntry.STORED);
+            put(out, "Deflated.bin", "deflated".repeat(100).getBytes(), ZipEntry.DEFLATED);
+        }
+        byte[] bytes = Files.readAllBytes(jar);
+        bytes[indexOf(bytes, "stored".getBytes(), 0)] ^= 1;
+        byte[] centralHeader = {'P', 'K', 1, 2};
+        int deflated = indexOf(bytes, centralHeader, indexOf(bytes, centralHeader, 0) + 1);
+        bytes[deflated + 16] ^= 1;
+        Files.write(jar, bytes);
+
+        try (JarReader reader = JarReader.open(jar)) {
+            for (JarReader.Entry entry : reader.entries()) {
+                ZipException e = assertThrows(ZipException.class, () -> reader.bytes(entry), entry.name());
+                assertTrue(e.getMessage().startsWith("invalid entry CRC for " + entry.name()), e.getMessage());
+            }
+        }
+    }
+
+    private static void assertSameAsZipFile(Path path) throws IOException {
+        try (JarReader jar = JarReader.open(path); ZipFile zip = new ZipFile(path.toFile())) {
+            List<? extends ZipEntry> expected = Collections.list(zip.entries());
+            assertEquals(expected.size(), jar.entries().size(), path.toString());
+            for (int i = 0; i < expected.size(); i++) {
+                ZipEntry want = expected.get(i);
+                JarReader.Entry got = jar.entries().get(i);
+                assertEquals(want.getName(), got.name());
+                assertEquals(want.getCrc(), Integer.toUnsignedLong(got.crc()), got.name());
+                assertEquals(want.getSize(), got.size(), got.name());
+                try (InputStream in = zip.getInputStream(want)) {
+                    assertArrayEquals(in.readAllBytes(), jar.bytes(got), got.name());
+                }
+            }
+        }
+    }
+
+    private static int indexOf(byte[] bytes, byte[] part, int from) {
+        for (int i = from; i <= bytes.length - part.length; i++) {
+            if (Arrays.equals(bytes, i, i + part.length, part, 0, part.length)) {
+                return i;
+            }
+        }
+        throw new AssertionError("not found");
+    }
+
+    private static void put(ZipOutputStream out, String name, byte[] bytes, int method) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(method);
+        if (method == ZipEntry.STORED) {
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            entry.setSize(bytes.length);
+            entry.setCompressedSize(bytes.length);
+            entry.setCrc(crc.getValue());
+        }
+        out.putNextEntry(entry);
+        out.write(bytes);
+        out.closeEntry();
+    }
+}
@@ -0,0 +1,86 @@
+package dev.gruff.hardstop.analyser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static dev.gruff.hardstop.analyser.Fixtures.compile;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Links the scenarios against v1 and v2 on a class path, without running them.
+ */
+public class TestPreflight {
+
+    @Test
+    public void testPreflightLinksEveryReferenceOfTheScenarios() throws Exception {
+        Path client = Path.of(System.getProperty("hardstop.scenarios.jar"));
+        List<Path> junit = new ArrayList<>();
+        for (Class<?> c : List.of(org.junit.jupiter.api.Assertions.class, org.opentest4j.AssertionFailedError.class)) {
+            junit.add(Path.of(c.getProtectionDomain().getCodeSource().getLocation().toURI()));
+        }
+        List<Path> classpath = new ArrayList<>(junit);
+        classpath.add(0, Path.of(System.getProperty("hardstop.v1.jar")));
+        Preflight preflight = Preflight.of(client, classpath);
+        assertEquals(List.of(), preflight.link(ForkJoinPool.commonPool()));
+
+        classpath.set(0, Path.of(System.getProperty("hardstop.v2.jar")));
+        List<String> failures = Preflight.of(client, classpath).link(ForkJoinPool.commonPool()).stream()
+                .map(Object::toString).toList();
+        for (String expected : List.of(
+                "java.lang.NoSuchMethodError: dev.gruff.hardstop.testcases.apicheck.RecordGainsField.<init>(String, int) in TestRecordGainsField.test()",
+                "java.lang.NoSuchFieldError: dev.gruff.hardstop.testcases.apicheck.FieldRemoved.removedField in TestFieldRemoved.testFieldRemoved()",
+                "java.lang.InstantiationError: dev.gruff.hardstop.testcases.apicheck.MethodMadeAbstract in TestMethodModifiers.testMethodMadeAbstract()",
+                "java.lang.IncompatibleClassChangeError: dev.gruff.hardstop.testcases.apicheck.InstanceToStatic.callme() in "
+                        + "TestMethodModifiers.testInstanceToStatic() (expected non-static method callme)")) {
+            assertTrue(failures.contains(expected), expected);
+        }
+        assertTrue(failures.stream().anyMatch(f -> f.startsWith("java.lang.IllegalAccessError: "
+                + "dev.gruff.hardstop.testcases.apicheck.PublicFieldBean.age in TestRecordMigration")), "PublicFieldBean.age");
+        assertTrue(failures.contains("java.lang.IncompatibleClassChangeError: loading dev.gruff.hardstop.testcases.apicheck.SubSealed "
+                + "(class dev.gruff.hardstop.testcases.apicheck.SubSealed cannot inherit from sealed class "
+                + "dev.gruff.hardstop.testcases.apicheck.SealedEvolution)"), "SubSealed");
+    }
+
+    /**
+     * A subclass in another package calls its superclass's protected
+     * constructor, which new could not, and that links; a constructor
+     * made package-private under it does not.
+     */
+    @Test
+    public void testSuperCallsLinkToProtectedConstructors(@TempDir Path dir) throws IOException {
+        Path lib = dir.resolve("lib");
+        compile(lib, "", "A", "package p; public abstract class A { protected A() {} }");
+        compile(lib, "", "P", "package p; public class P { protected P(int i) {} }");
+        compile(lib, "", "R", "package p; public class R { protected R() {} }");
+        Path client = dir.resolve("client");
+        compile(client, lib.toString(), "C", """
+                package q;
+                class C extends p.A {
+                    private C(int i) {
+                    }
+                    C() {
+                        this(0);
+                    }
+                }
+                """);
+        compile(client, lib.toString(), "D", "package q; class D extends p.P { D() { super(1); } }");
+        compile(client, lib.toString(), "E", "package q; class E extends p.R {}");
+        assertEquals(List.of(), Preflight.of(client, List.of(lib)).link(ForkJoinPool.commonPool()));
+
+        Path changed = dir.resolve("changed");
+        compile(changed, "", "A", "package p; public abstract class A { protected A() {} }");
+        compile(changed, "", "P", "package p; public class P { protected P(int i) {} }");
+        compile(changed, "", "R", "package p; public class R { R() {} }");
+        List<String> failures = Preflight.of(client, List.of(changed)).link(ForkJoinPool.commonPool()).stream()
+                .map(Object::toString).toList();
+        assertEquals(1, failures.size(), failures.toString());
+        assertTrue(failures.get(0).startsWith("java.lang.IllegalAccessError: p.R.<init>() in q.E.<init>()"), failures.get(0));
+    }
+}
@@ -0,0 +1,81 @@
+package dev.gruff.hardstop.analyser;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.List;
+
+import static dev.gruff.hardstop.analyser.Fixtures.compile;
+import static dev.gruff.hardstop.analyser.Fixtures.scenarios;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the record sites of a client against the records of the new version.
+ */
+public class TestRecordSites {
+
+    private static ApiModel v1;
+    private static ApiModel scenarios;
+
+    @BeforeAll
+    public static void read() {
+        v1 = Fixtures.v1();
+        scenarios = Fixtures.scenarios();
+    }
+
+    /**
+     * Every record constructor call, accessor call and field access the
+     * record scenarios compile against v1 and v2 breaks is found in one
+     * pass, with what now stands in for it. A bean setter has nothing
+     * standing in for it.
+     */
+    @Test
+    public void testRecordCallSitesAreMappedToTheirReplacements(@TempDir Path dir) throws IOException {
+        ApiModel v2 = ApiModel.read(Path.of(System.getProperty("hardstop.v2.jar")), v1);
+        List<String> broken = scenarios("TestRecordMigration", "TestRecordGainsField", "TestRecordEvolution")
+                .records().check(v1, v2).stream().map(RecordSites.Break::toString).toList();
+        assertTrue(broken.contains("UserBean.getName() in TestRecordMigration.testBeanToRecord() throws "
+                + "java.lang.NoSuchMethodError, now name()"), broken.toString());
+        assertTrue(broken.contains("PublicFieldBean.age in TestRecordMigration.testPublicFieldToRecordComponent() throws "
+                + "java.lang.IllegalAccessError, now age()"), broken.toString());
+        assertTrue(broken.contains("new RecordGainsField(String, int) in TestRecordGainsField.test() throws "
+                + "java.lang.NoSuchMethodError, now new RecordGainsField(String, int, char)"), broken.toString());
+        assertTrue(broken.contains("RecordComponentRemoved.age() in TestRecordEvolution.testRecordComponentRemoved() throws "
+                + "java.lang.NoSuchMethodError"), broken.toString());
+        assertTrue(broken.stream().noneMatch(b -> b.contains("new UserBean") || b.contains(".name()")), broken.toString());
+        assertEquals("name", RecordSites.property("getName"));
+        assertEquals("URL", RecordSites.property("getURL"));
+        assertEquals("valid", RecordSites.property("isValid"));
+
+        compile(dir.resolve("before"), "", "Bean", """
+                public class Bean {
+                    private String name;
+                    public String getName() { return name; }
+                    public void setName(String name) { this.name = name; }
+                }
+                """);
+        compile(dir.resolve("after"), "", "Bean", "public record Bean(String name) {}");
+        compile(dir.resolve("client"), dir.resolve("before").toString(), "Client", """
+                class Client {
+                    String rename(Bean bean) {
+                        bean.setName("x");
+                        return bean.getName();
+                    }
+                }
+                """);
+        List<String> bean = ClientUsage.read(dir.resolve("client")).records()
+                .check(ApiModel.read(dir.resolve("before")), ApiModel.read(dir.resolve("after")))
+                .stream().map(RecordSites.Break::toString).toList();
+        assertEquals(List.of("Bean.setName(String) in Client.rename(Bean) throws java.lang.NoSuchMethodError",
+                "Bean.getName() in Client.rename(Bean) throws java.lang.NoSuchMethodError, now name()"), bean);
+        assertTrue(RecordSites.isSetter("setTags", "([Ljava/lang/String;)V"));
+        assertFalse(RecordSites.isSetter("setTags", "(II)V"));
+        assertFalse(RecordSites.isSetter("settle", "(I)V"));
+    }
+}
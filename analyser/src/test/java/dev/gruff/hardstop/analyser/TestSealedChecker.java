@@ -0,0 +1,60 @@
+package dev.gruff.hardstop.analyser;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks sealed hierarchies across the jars of a class path.
+ */
+public class TestSealedChecker {
+
+    private static ApiModel v1;
+    private static ApiModel scenarios;
+
+    @BeforeAll
+    public static void read() {
+        v1 = Fixtures.v1();
+        scenarios = Fixtures.scenarios();
+    }
+
+    /**
+     * The scenarios' SubSealed loads against v1 but not once the library
+     * jar beside it is replaced by v2, which seals SealedEvolution; the
+     * refresh rereads that jar alone.
+     */
+    @Test
+    public void testSealedSubtypesAreCheckedAcrossJarsAndRefreshed() throws IOException {
+        Path dir = Files.createTempDirectory("hardstop");
+        Path lib = dir.resolve("lib.jar");
+        try {
+            Files.copy(Path.of(System.getProperty("hardstop.v1.jar")), lib);
+            SealedChecker checker = new SealedChecker(List.of(Path.of(System.getProperty("hardstop.scenarios.jar")), lib));
+            assertEquals(List.of(), checker.violations());
+            assertFalse(checker.refresh());
+            assertEquals(2, checker.reads());
+
+            Files.copy(Path.of(System.getProperty("hardstop.v2.jar")), lib, StandardCopyOption.REPLACE_EXISTING);
+            Files.setLastModifiedTime(lib, FileTime.fromMillis(Files.getLastModifiedTime(lib).toMillis() + 1000));
+            assertTrue(checker.refresh());
+            assertEquals(3, checker.reads());
+            List<SealedChecker.Violation> violations = checker.violations();
+            assertEquals(List.of("dev.gruff.hardstop.testcases.apicheck.SubSealed (tests-1.0.0-SNAPSHOT-tests.jar) extends but is not "
+                    + "permitted by dev.gruff.hardstop.testcases.apicheck.SealedEvolution (lib.jar): "
+                    + "IncompatibleClassChangeError when it is loaded"), violations.stream().map(Object::toString).toList());
+        } finally {
+            Files.deleteIfExists(lib);
+            Files.delete(dir);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package dev.gruff.hardstop.analyser;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ObjectStreamClass;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the serialVersionUIDs worked out from class files against those the JVM computes.
+ */
+public class TestSerialForm {
+
+    private static ApiModel v1;
+    private static ApiModel scenarios;
+
+    @BeforeAll
+    public static void read() {
+        v1 = Fixtures.v1();
+        scenarios = Fixtures.scenarios();
+    }
+
+    /**
+     * The serialVersionUID worked out from the class file is the one ObjectStreamClass computes for the loaded class.
+     */
+    @Test
+    public void testDefaultSerialVersionUidsMatchTheJvm() throws Exception {
+        List<String> wrong = new ArrayList<>();
+        int computed = 0;
+        Path v1Jar = Path.of(System.getProperty("hardstop.v1.jar"));
+        Path tests = Path.of(System.getProperty("hardstop.scenarios.jar"));
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{v1Jar.toUri().toURL(), tests.toUri().toURL()},
+                getClass().getClassLoader())) {
+            for (ApiModel model : List.of(v1, scenarios)) {
+                for (ClassFile c : model.classes()) {
+                    computed += checkUid(model, c, Class.forName(c.binaryName(), false, loader), wrong);
+                }
+            }
+        }
+        // the JDK has far more serializable classes, plenty of them with nothing declared
+        try (Stream<Path> jdk = Files.walk(Path.of(URI.create("jrt:/java.base/java/util")))) {
+            for (Path file : (Iterable<Path>) jdk.filter(p -> p.toString().endsWith(".class"))::iterator) {
+                ClassFile c = ClassReader.read(Files.readAllBytes(file));
+                computed += checkUid(ApiModel.of("jdk", List.of(c)), c, Class.forName(c.binaryName(), false, null), wrong);
+            }
+        }
+        assertTrue(wrong.isEmpty(), wrong.toString());
+        assertTrue(computed > 20, computed + " serializable classes without a declared serialVersionUID");
+
+        ApiModel v2 = ApiModel.read(Path.of(System.getProperty("hardstop.v2.jar")), v1);
+        List<ClassFile> carried = v1.classes().stream().filter(c -> v2.get(c.name()) == c).toList();
+        carried.forEach(c -> SerialForm.uid(v1, c));
+        int cached = SerialForm.cached(v2);
+        for (ClassFile c : carried) {
+            assertEquals(SerialForm.uid(v1, c), SerialForm.uid(v2, c));
+        }
+        assertFalse(carried.isEmpty());
+        assertEquals(cached, SerialForm.cached(v2), "classes carried over are hashed once");
+    }
+
+    /** Checks the class's serialVersionUID, and returns 1 if it had to be computed. */
+    private static int checkUid(ApiModel model, ClassFile c, Class<?> type, List<String> wrong) {
+        ObjectStreamClass stream = ObjectStreamClass.lookup(type);
+        if (stream == null || type.isEnum() || type.isRecord() || type.isHidden()) {
+            return 0;
+        }
+        if (stream.getSerialVersionUID() != SerialForm.uid(model, c)) {
+            wrong.add(c.name());
+        }
+        return SerialForm.declaresUid(c) ? 0 : 1;
+    }
+}
@@ -0,0 +1,53 @@
+package dev.gruff.hardstop.analyser;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static dev.gruff.hardstop.analyser.Fixtures.finding;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the shielding worked out for each finding against normative rule 3.
+ */
+public class TestShieldingEvaluator {
+
+    private static ApiModel v1;
+    private static List<Finding> findings;
+
+    @BeforeAll
+    public static void read() {
+        v1 = Fixtures.v1();
+        findings = Fixtures.findings();
+    }
+
+    /**
+     * Rule 3 decides each finding's shielding: a method moved out of the
+     * type callers name is not shielded, a method made abstract shields
+     * callers but not subclasses, an interface added with nothing to
+     * implement is absorbed. Types unchanged all the way up are not
+     * evaluated at all.
+     */
+    @Test
+    public void testShieldingFollowsNormativeRuleThree() {
+        ApiModel v2 = ApiModel.read(Path.of(System.getProperty("hardstop.v2.jar")), v1);
+        ShieldingEvaluator evaluator = new ShieldingEvaluator(v1, v2);
+        assertEquals(Rule.Shielding.NONE, evaluator.evaluate(finding(Rule.METHOD_MOVED_TO_SUPERCLASS, "MethodMoves$Parent")));
+        assertEquals(Rule.Shielding.PARTIAL, evaluator.evaluate(finding(Rule.METHOD_MADE_ABSTRACT, "MethodMadeAbstract")));
+        assertEquals(Rule.Shielding.FULL, evaluator.evaluate(finding(Rule.ABSTRACT_CLASS_ADDS_INTERFACE, "AbstractClassAddsInterface")));
+        assertEquals(Rule.Shielding.FULL, evaluator.evaluate(finding(Rule.FIELD_MOVED_TO_SUPERCLASS, "FieldMovedChild")));
+        for (Finding f : findings) {
+            if (f.rule().shielding() == Rule.Shielding.NONE) {
+                assertEquals(Rule.Shielding.NONE, evaluator.evaluate(f), f.toString());
+            }
+        }
+
+        String baseB = "dev/gruff/hardstop/testcases/apicheck/BaseB";
+        int evaluated = evaluator.evaluated();
+        assertEquals(ShieldingEvaluator.Verdict.HOLDS, evaluator.verdict(v1.get(baseB), v2.get(baseB)));
+        assertEquals(evaluated, evaluator.evaluated());
+        assertEquals(1, evaluator.unchanged());
+    }
+}
@@ -0,0 +1,57 @@
+package dev.gruff.hardstop.analyser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static dev.gruff.hardstop.analyser.Fixtures.compile;
+import static dev.gruff.hardstop.analyser.Fixtures.finding;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Checks that generic signatures are parsed and compared by the types they name.
+ */
+public class TestSignatures {
+
+    /**
+     * Signatures are compared by the types they name, each parsed once:
+     * renaming a method's type variable is no change, a type argument is,
+     * and so is a method losing its signature to a raw type.
+     */
+    @Test
+    public void testSignaturesCompareTypesNotSpelling(@TempDir Path dir) throws IOException {
+        String generic = "<T:Ljava/lang/Object;>(TT;Ljava/util/Map$Entry<TT;+Ljava/lang/Number;>;)Ljava/util/List<TT;>;";
+        Signatures signatures = new Signatures();
+        Signatures.Parsed t = signatures.parse(generic);
+        Signatures.Parsed u = signatures.parse("<U:Ljava/lang/Object;>(TU;Ljava/util/Map$Entry<TU;+Ljava/lang/Number;>;)Ljava/util/List<TU;>;");
+        assertSame(t, signatures.parse(generic));
+        assertEquals(t.result().key(), u.result().key());
+        assertEquals(t.parameters().get(1).key(), u.parameters().get(1).key());
+        assertEquals("Map$Entry<T, ? extends Number>", t.parameters().get(1).text());
+        assertEquals("Outer<K>.Inner<?>", signatures.parse("Lp/Outer<TK;>.Inner<*>;").result().text());
+        assertNotEquals(signatures.parse("Ljava/util/List<Ljava/lang/String;>;").result().key(),
+                signatures.parse("Ljava/util/List<Ljava/lang/Integer;>;").result().key());
+        assertEquals("List<String> -> List<Integer>", finding(Rule.HEAP_POLLUTION, "HeapPollution").detail());
+
+        compile(dir.resolve("before"), "", "Names", """
+                public class Names {
+                    public java.util.List<String> names() { return null; }
+                }
+                """);
+        compile(dir.resolve("after"), "", "Names", """
+                public class Names {
+                    @SuppressWarnings("rawtypes")
+                    public java.util.List names() { return null; }
+                }
+                """);
+        List<Finding> raw = new Classifier().classify(ApiModel.read(dir.resolve("before")), ApiModel.read(dir.resolve("after")));
+        assertEquals("HEAP_POLLUTION Names#names() List<String> -> List", raw.stream()
+                .map(f -> f.rule() + " " + f.type() + "#" + f.member() + " " + f.detail()).findFirst().orElse(null));
+    }
+}
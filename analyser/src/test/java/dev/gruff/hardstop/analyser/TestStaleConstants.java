@@ -0,0 +1,99 @@
+package dev.gruff.hardstop.analyser;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static dev.gruff.hardstop.analyser.Fixtures.compile;
+import static dev.gruff.hardstop.analyser.Fixtures.finding;
+import static dev.gruff.hardstop.analyser.Fixtures.scenarios;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the old values of changed constants are found in client constant pools.
+ */
+public class TestStaleConstants {
+
+    private static ApiModel v1;
+
+    @BeforeAll
+    public static void read() {
+        v1 = Fixtures.v1();
+    }
+
+    /**
+     * A changed constant reaches exactly the client classes whose constant pools hold its old value.
+     */
+    @Test
+    public void testStaleConstantCopiesAreFoundInClientPools() {
+        ApiModel v2 = ApiModel.read(Path.of(System.getProperty("hardstop.v2.jar")));
+        ClientUsage all = ClientUsage.read(Path.of(System.getProperty("hardstop.scenarios.jar")));
+        ClientUsage.StaleCopy copy = all.staleCopies(v1, v2).stream()
+                .filter(c -> c.field().endsWith(".FieldAccessChecks#helloStaticFinal")).findFirst().orElseThrow();
+        assertEquals("helloV1SF", copy.value());
+        assertEquals("helloV2SF", copy.now());
+        assertTrue(copy.classes().contains("TestStaticFieldValue"), copy.classes().toString());
+
+        ClientUsage unrelated = scenarios("TestMethodModifiers");
+        assertTrue(unrelated.staleCopies(v1, v2).isEmpty());
+        Finding constant = finding(Rule.CONSTANT_VALUE_CHANGED, "FieldAccessChecks");
+        assertFalse(unrelated.uses(constant, v1, v2));
+        assertTrue(scenarios("TestStaticFieldValue").uses(constant, v1, v2));
+    }
+
+    /**
+     * A long, float or double javac loads with lconst, fconst or dconst
+     * leaves no copy in the pool to find, and no reference to its class,
+     * so it reaches every client; -0.0 is loaded with ldc2_w and is found.
+     */
+    @Test
+    public void testConstantsLoadedByInstructionReachByType(@TempDir Path dir) throws IOException {
+        compile(dir.resolve("before"), "", "K", """
+                package p;
+                public class K {
+                    public static final long L = 1L;
+                    public static final float F = 2f;
+                    public static final double D = -0.0d;
+                    public static final long BIG = 5L;
+                }
+                """);
+        compile(dir.resolve("after"), "", "K", """
+                package p;
+                public class K {
+                    public static final long L = 2L;
+                    public static final float F = 3f;
+                    public static final double D = 0.0d;
+                    public static final long BIG = 6L;
+                }
+                """);
+        compile(dir.resolve("client"), dir.resolve("before").toString(), "Client", """
+                class Client {
+                    long l() { return p.K.L; }
+                    float f() { return p.K.F; }
+                    double d() { return p.K.D; }
+                    long big() { return p.K.BIG; }
+                }
+                """);
+        ApiModel before = ApiModel.read(dir.resolve("before"));
+        ApiModel after = ApiModel.read(dir.resolve("after"));
+        ClientUsage client = ClientUsage.read(dir.resolve("client"));
+        assertEquals(List.of("p.K#BIG", "p.K#D"), client.staleCopies(before, after).stream()
+                .map(ClientUsage.StaleCopy::field).sorted().toList());
+
+        List<Finding> changed = new Classifier().classify(before, after).stream()
+                .filter(f -> f.rule() == Rule.CONSTANT_VALUE_CHANGED).toList();
+        assertEquals(4, changed.size(), changed.toString());
+        assertEquals(changed, client.filter(changed, before, after));
+        Footprint diff = Footprint.of(changed, before, after);
+        assertEquals(changed, client.filter(diff));
+        assertTrue(client.mightBeAffected(diff));
+        assertFalse(ClientUsage.isPooled(0L) || ClientUsage.isPooled(1f) || ClientUsage.isPooled(0d));
+        assertTrue(ClientUsage.isPooled(-0f) && ClientUsage.isPooled(-0d) && ClientUsage.isPooled(3L));
+    }
+}
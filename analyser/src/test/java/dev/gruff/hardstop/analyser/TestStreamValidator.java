@@ -0,0 +1,110 @@
+package dev.gruff.hardstop.analyser;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks serialization streams written by v1 against v2 without deserializing them.
+ */
+public class TestStreamValidator {
+
+    private static ApiModel v1;
+
+    @BeforeAll
+    public static void read() {
+        v1 = Fixtures.v1();
+    }
+
+    /**
+     * A stream v1 wrote is checked against v2 without deserializing it:
+     * SerialClass changed its serialVersionUID, and RecordGainsField,
+     * written here by hand as v1 is not Serializable, gained a component.
+     * A stream of the v2 shape checked first does not hide that. Against
+     * v1 itself the same streams are clean.
+     */
+    @Test
+    public void testStreamsWrittenByV1AreCheckedAgainstV2() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{Path.of(System.getProperty("hardstop.v1.jar")).toUri().toURL()},
+                getClass().getClassLoader());
+             ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            Object serial = loader.loadClass("dev.gruff.hardstop.testcases.apicheck.SerialClass").getConstructor().newInstance();
+            out.writeObject(new ArrayList<>(List.of(serial, "text", TimeUnit.SECONDS, new int[]{1, 2}, serial)));
+            out.reset();
+            out.writeObject(new Object[]{serial, Map.of("k", TimeUnit.DAYS)});
+        }
+        byte[] record = recordGainsField(false);
+
+        StreamValidator v2 = new StreamValidator(ApiModel.read(Path.of(System.getProperty("hardstop.v2.jar")), v1));
+        List<StreamValidator.Problem> problems = v2.validate(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(1, problems.size(), problems.toString());
+        assertTrue(problems.get(0).fatal());
+        assertTrue(problems.get(0).detail().startsWith("serialVersionUID 1L in the stream, 2L"), problems.toString());
+        assertEquals(8, v2.objects());
+
+        assertTrue(v2.validate(new ByteArrayInputStream(recordGainsField(true))).stream()
+                .noneMatch(p -> p.detail().startsWith("component char c ")));
+        problems = v2.validate(new ByteArrayInputStream(record));
+        assertTrue(problems.stream().anyMatch(p -> !p.fatal() && p.detail().startsWith("component char c ")), problems.toString());
+        assertTrue(problems.stream().allMatch(p -> p.type().endsWith(".RecordGainsField")), problems.toString());
+
+        StreamValidator same = new StreamValidator(v1);
+        assertEquals(List.of(), same.validate(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(List.of(), same.validate(new ByteArrayInputStream(record)).stream()
+                .filter(p -> !p.detail().startsWith("no longer Serializable")).toList());
+    }
+
+    /**
+     * A stream holding one RecordGainsField as v1 would write it, or as v2
+     * would with its char c. Both carry serialVersionUID 0L, as every
+     * record does, so only the fields tell them apart.
+     */
+    private static byte[] recordGainsField(boolean c) throws IOException {
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(record);
+        out.writeShort(0xACED);
+        out.writeShort(5);
+        out.writeByte(0x73);
+        out.writeByte(0x72);
+        out.writeUTF("dev.gruff.hardstop.testcases.apicheck.RecordGainsField");
+        out.writeLong(0L);
+        out.writeByte(0x02);
+        out.writeShort(c ? 3 : 2);
+        out.writeByte('I');
+        out.writeUTF("b");
+        if (c) {
+            out.writeByte('C');
+            out.writeUTF("c");
+        }
+        out.writeByte('L');
+        out.writeUTF("a");
+        out.writeByte(0x74);
+        out.writeUTF("Ljava/lang/String;");
+        out.writeByte(0x78);
+        out.writeByte(0x70);
+        out.writeInt(1);
+        if (c) {
+            out.writeChar('z');
+        }
+        out.writeByte(0x74);
+        out.writeUTF("x");
+        out.flush();
+        return record.toByteArray();
+    }
+}
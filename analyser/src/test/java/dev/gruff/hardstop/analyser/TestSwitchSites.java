@@ -0,0 +1,220 @@
+package dev.gruff.hardstop.analyser;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static dev.gruff.hardstop.analyser.Fixtures.compile;
+import static dev.gruff.hardstop.analyser.Fixtures.scenarios;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks the switches of a client against the enum constants and permitted subclasses of the new version.
+ */
+public class TestSwitchSites {
+
+    private static ApiModel v1;
+
+    @BeforeAll
+    public static void read() {
+        v1 = Fixtures.v1();
+    }
+
+    /**
+     * The enum switch TestSwitchEvolution was compiled with has no case for the constant v2 adds, and no default that throws.
+     */
+    @Test
+    public void testSwitchSitesReportNewConstantsFallingThrough() {
+        ApiModel v2 = ApiModel.read(Path.of(System.getProperty("hardstop.v2.jar")));
+        String type = "dev/gruff/hardstop/testcases/apicheck/ExhaustiveSwitch";
+        SwitchSites switches = scenarios("TestSwitchEvolution", "TestSwitchEvolution$1").switches();
+        assertEquals(1, switches.sites().size(), switches.sites().toString());
+        SwitchSites.Site site = switches.sites().get(0);
+        assertEquals(SwitchSites.Kind.SWITCH_MAP, site.kind());
+        assertEquals(type, site.selector());
+        assertEquals(List.of(type + "#A", type + "#B"), site.labels());
+        assertNull(site.thrown());
+
+        List<SwitchSites.Break> broken = switches.check(v1, v2);
+        assertEquals(1, broken.size(), broken.toString());
+        assertEquals(type + "#C", broken.get(0).value());
+        assertEquals(SwitchSites.Outcome.FALLS_THROUGH, broken.get(0).outcome());
+        assertTrue(switches.check(v1, v1).isEmpty());
+    }
+
+    /**
+     * javac seals an enum whose constants have bodies and permits a class
+     * for each, which must not be reported on top of the new constant.
+     */
+    @Test
+    public void testEnumConstantBodiesAreNotPermittedSubclasses(@TempDir Path dir) throws IOException {
+        List<String> broken = breaks(dir, "E", "package lib; public enum E { A {}, B {} }", "package lib; public enum E { A {}, B {}, C {} }", """
+                class Client {
+                    int f(lib.E e) {
+                        switch (e) {
+                            case A: return 1;
+                            case B: return 2;
+                        }
+                        return 0;
+                    }
+                }
+                """);
+        assertEquals(List.of("switch in Client.f(E) over lib.E falls through on lib.E.C"), broken);
+    }
+
+    /**
+     * A switch on ordinal() has the ordinals compiled in, so swapping two
+     * constants sends each down the other's branch; a constant that keeps
+     * its place is left alone.
+     */
+    @Test
+    public void testReorderedConstantsMisrouteAnOrdinalSwitch(@TempDir Path dir) throws IOException {
+        List<String> broken = breaks(dir, "E", "package lib; public enum E { A, B, C }", "package lib; public enum E { B, A, C }", """
+                class Client {
+                    int f(lib.E e) {
+                        switch (e.ordinal()) {
+                            case 0: return 1;
+                            case 1: return 2;
+                            case 2: return 3;
+                        }
+                        return 0;
+                    }
+                }
+                """);
+        assertEquals(List.of("switch in Client.f(E) over lib.E takes the wrong branch for lib.E.B",
+                "switch in Client.f(E) over lib.E takes the wrong branch for lib.E.A"), broken);
+    }
+
+    /**
+     * A switch map javac writes catches the NoSuchFieldError of a removed
+     * constant, so the label never matches and nothing breaks; a map
+     * filled without that guard throws when it is initialised.
+     */
+    @Test
+    public void testRemovedConstantsThrowOnlyFromUnguardedSwitchMaps(@TempDir Path dir) throws IOException {
+        String before = "package lib; public enum E { A, B }";
+        String after = "package lib; public enum E { A }";
+        List<String> guarded = breaks(dir.resolve("guarded"), "E", before, after, """
+                class Client {
+                    int f(lib.E e) {
+                        switch (e) {
+                            case A: return 1;
+                            case B: return 2;
+                        }
+                        return 0;
+                    }
+                }
+                """);
+        assertEquals(List.of(), guarded);
+
+        List<String> broken = breaks(dir.resolve("unguarded"), "E", before, after, """
+                class Client {
+                    int f(lib.E e) {
+                        switch (Map.$SwitchMap$lib$E[e.ordinal()]) {
+                            case 1: return 1;
+                            case 2: return 2;
+                        }
+                        return 0;
+                    }
+                }
+
+                class Map {
+                    static final int[] $SwitchMap$lib$E = new int[lib.E.values().length];
+
+                    static {
+                        $SwitchMap$lib$E[lib.E.A.ordinal()] = 1;
+                        $SwitchMap$lib$E[lib.E.B.ordinal()] = 2;
+                    }
+                }
+                """);
+        assertEquals(List.of("switch in Client.f(E) over lib.E throws java.lang.NoSuchFieldError on lib.E.B"), broken);
+    }
+
+    /**
+     * An exhaustive switch's default branch throws, MatchException from
+     * Java 21 and IncompatibleClassChangeError before, so a constant the
+     * client was not compiled against throws rather than falling through.
+     */
+    @Test
+    public void testNewConstantsThrowFromAnExhaustiveSwitch(@TempDir Path dir) throws IOException {
+        List<String> broken = breaks(dir, "E", "package lib; public enum E { A, B }", "package lib; public enum E { A, B, C }", """
+                class Client {
+                    int f(lib.E e) {
+                        return switch (e) {
+                            case A -> 1;
+                            case B -> 2;
+                        };
+                    }
+                }
+                """);
+        String thrown = Runtime.version().feature() >= 21 ? "java.lang.MatchException" : "java.lang.IncompatibleClassChangeError";
+        assertEquals(List.of("switch in Client.f(E) over lib.E throws " + thrown + " on lib.E.C"), broken);
+    }
+
+    /**
+     * The switches javac 21 compiles through SwitchBootstraps: enumSwitch
+     * for an enum switch with a null label, and typeSwitch for a pattern
+     * switch over a sealed type, whose new permitted subclass throws and
+     * whose removed label class cannot be loaded.
+     */
+    @Test
+    public void testSwitchBootstrapsSeeNewConstantsAndSubclasses(@TempDir Path dir) throws IOException {
+        assumeTrue(Runtime.version().feature() >= 21, "switch bootstraps need Java 21");
+        List<String> enums = breaks(dir.resolve("enum"), "E", "package lib; public enum E { A, B }",
+                "package lib; public enum E { A, B, C }", """
+                class Client {
+                    int f(lib.E e) {
+                        return switch (e) {
+                            case null -> 0;
+                            case A -> 1;
+                            case B -> 2;
+                        };
+                    }
+                }
+                """);
+        assertEquals(List.of("switch in Client.f(E) over lib.E throws java.lang.MatchException on lib.E.C"), enums);
+
+        List<String> types = breaks(dir.resolve("sealed"), "S", """
+                package lib;
+                public sealed interface S {
+                    record X() implements S {}
+                    record Y() implements S {}
+                }
+                """, """
+                package lib;
+                public sealed interface S {
+                    record X() implements S {}
+                    record Z() implements S {}
+                }
+                """, """
+                class Client {
+                    int f(lib.S s) {
+                        return switch (s) {
+                            case lib.S.X x -> 1;
+                            case lib.S.Y y -> 2;
+                        };
+                    }
+                }
+                """);
+        // the call site erases the selector to Object; the labels lead back to lib.S
+        assertEquals(List.of("switch in Client.f(S) over java.lang.Object throws java.lang.NoClassDefFoundError on lib.S$Y",
+                "switch in Client.f(S) over java.lang.Object throws java.lang.MatchException on lib.S$Z"), types);
+    }
+
+    /** Compiles two versions of the library class and a client against the first, and checks the client's switches. */
+    private static List<String> breaks(Path dir, String name, String before, String after, String client) throws IOException {
+        compile(dir.resolve("before"), "", name, before);
+        compile(dir.resolve("after"), "", name, after);
+        compile(dir.resolve("client"), dir.resolve("before").toString(), "Client", client);
+        return ClientUsage.read(dir.resolve("client")).switches()
+                .check(ApiModel.read(dir.resolve("before")), ApiModel.read(dir.resolve("after")))
+                .stream().map(SwitchSites.Break::toString).toList();
+    }
+}
@@ -0,0 +1,179 @@
+package dev.gruff.hardstop.harness;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.security.cert.Certificate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The class files of one jar or class directory, read once and shared.
+ *
+ * Every classloader the harness creates for the same jar defines its
+ * classes from the same byte arrays, so running a scenario against a
+ * library a hundred times reads and inflates that library once. Archives
+ * are cached by path and invalidated when the file's size or modification
+ * time changes, so a rebuilt jar is picked up on the next use.
+ */
+public final class ClassArchive {
+
+    private static final Map<Path, ClassArchive> CACHE = new ConcurrentHashMap<>();
+
+    private final Path path;
+    private final boolean jar;
+    private final long stamp;
+    private final Map<String, byte[]> classes;
+    private final Set<String> resources;
+    private final ProtectionDomain domain;
+
+    private ClassArchive(Path path, boolean jar, long stamp, Map<String, byte[]> classes, Set<String> resources) {
+        this.path = path;
+        this.jar = jar;
+        this.stamp = stamp;
+        this.classes = classes;
+        this.resources = resources;
+        this.domain = new ProtectionDomain(new CodeSource(toUrl(path), (Certificate[]) null), null);
+    }
+
+    /**
+     * Returns the cached archive for the path, reading it if it is new or has changed on disk.
+     */
+    public static ClassArchive open(Path path) {
+        Path key = path.toAbsolutePath().normalize();
+        long stamp = stamp(key);
+        return CACHE.compute(key, (p, cached) -> cached != null && cached.stamp == stamp ? cached : read(p, stamp));
+    }
+
+    /**
+     * Drops the cached archive for the path, so a process that sees many short-lived jars does not keep them all.
+     */
+    static void evict(Path path) {
+        CACHE.remove(path.toAbsolutePath().normalize());
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    /** Binary names of all classes in the archive. */
+    public Set<String> classNames() {
+        return Collections.unmodifiableSet(classes.keySet());
+    }
+
+    public int size() {
+        return classes.size();
+    }
+
+    /** Class file bytes for a binary name, or null. Callers must not modify the array. */
+    byte[] bytes(String className) {
+        return classes.get(className);
+    }
+
+    ProtectionDomain domain() {
+        return domain;
+    }
+
+    /** URL of a non-class resource in the archive, or null. */
+    URL resource(String name) {
+        if (!resources.contains(name)) {
+            return null;
+        }
+        try {
+            return jar ? new URL("jar:" + path.toUri() + "!/" + name) : path.resolve(name).toUri().toURL();
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+    private static ClassArchive read(Path path, long stamp) {
+        Map<String, byte[]> classes = new HashMap<>();
+        Set<String> resources = new HashSet<>();
+        try {
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> files = Files.walk(path)) {
+                    for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                        String name = path.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+                        add(name, Files.readAllBytes(file), classes, resources);
+                    }
+                }
+                return new ClassArchive(path, false, stamp, classes, resources);
+            }
+            try (ZipFile zip = new ZipFile(path.toFile())) {
+                for (ZipEntry entry : Collections.list(zip.entries())) {
+                    if (entry.isDirectory()) {
+                        continue;
+                    }
+                    if (!entry.getName().endsWith(".class")) {
+                        resources.add(entry.getName());
+                        continue;
+                    }
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        add(entry.getName(), in.readAllBytes(), classes, resources);
+                    }
+                }
+            }
+            return new ClassArchive(path, true, stamp, classes, resources);
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot read " + path, e);
+        }
+    }
+
+    private static void add(String name, byte[] bytes, Map<String, byte[]> classes, Set<String> resources) {
+        if (name.endsWith(".class") && !name.equals("module-info.class")) {
+            classes.put(name.substring(0, name.length() - ".class".length()).replace('/', '.'), bytes);
+        } else {
+            resources.add(name);
+        }
+    }
+
+    private static long stamp(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (attributes.isDirectory()) {
+                // newest file and file count, so added, removed and recompiled classes all show
+                try (Stream<Path> files = Files.walk(path)) {
+                    long[] newestAndCount = new long[2];
+                    files.forEach(f -> {
+                        newestAndCount[0] = Math.max(newestAndCount[0], modified(f));
+                        newestAndCount[1]++;
+                    });
+                    return newestAndCount[0] * 31 + newestAndCount[1];
+                }
+            }
+            return attributes.lastModifiedTime().toMillis() * 31 + attributes.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot read " + path, e);
+        }
+    }
+
+    private static long modified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static URL toUrl(Path path) {
+        try {
+            return path.toUri().toURL();
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("bad path " + path, e);
+        }
+    }
+}
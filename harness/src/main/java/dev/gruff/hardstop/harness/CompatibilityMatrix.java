@@ -0,0 +1,102 @@
+package dev.gruff.hardstop.harness;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Runs every client build against every library release.
+ *
+ * The v1/v2 pair is just the 2x1 case of this: the clients are compiled
+ * scenario sets (such as tests/target/test-classes), the libraries are
+ * release jars. Each archive is read once and shared by all the cells it
+ * takes part in, the scenario list of each client is discovered once, and
+ * the cells are run on a fixed-size pool. Cells are handed to the listener
+ * as soon as they finish, in completion order, on the calling thread.
+ */
+public class CompatibilityMatrix {
+
+    private final List<Path> libraries;
+    private final List<Path> clients;
+    private final int parallelism;
+
+    public CompatibilityMatrix(List<Path> libraries, List<Path> clients, int parallelism) {
+        if (libraries.isEmpty() || clients.isEmpty()) {
+            throw new IllegalArgumentException("need at least one library and one client");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        this.libraries = List.copyOf(libraries);
+        this.clients = List.copyOf(clients);
+        this.parallelism = parallelism;
+    }
+
+    public int cells() {
+        return libraries.size() * clients.size();
+    }
+
+    /**
+     * Runs all cells, streaming each to the listener as it completes.
+     *
+     * @return all cells, in completion order
+     */
+    public List<MatrixCell> run(Consumer<MatrixCell> listener) throws InterruptedException {
+        List<ClassArchive> libraryArchives = libraries.stream().map(ClassArchive::open).toList();
+        List<ClassArchive> clientArchives = clients.stream().map(ClassArchive::open).toList();
+        List<List<String>> clientScenarios = clientArchives.stream().map(DualVersionRunner::scenarios).toList();
+
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, task -> new Thread(() -> {
+            try {
+                task.run();
+            } finally {
+                DualVersionRunner.closeSession();
+            }
+        }, "hardstop-matrix"));
+        try {
+            CompletionService<MatrixCell> completion = new ExecutorCompletionService<>(pool);
+            for (int c = 0; c < clientArchives.size(); c++) {
+                for (ClassArchive library : libraryArchives) {
+                    ClassArchive client = clientArchives.get(c);
+                    List<String> scenarios = clientScenarios.get(c);
+                    completion.submit(() -> runCell(client, library, scenarios));
+                }
+            }
+            List<MatrixCell> cells = new ArrayList<>(cells());
+            for (int i = 0; i < cells(); i++) {
+                MatrixCell cell = completion.take().get();
+                cells.add(cell);
+                listener.accept(cell);
+            }
+            return cells;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("matrix cell failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * One cell: each scenario in a loader of its own over the shared archives.
+     */
+    private static MatrixCell runCell(ClassArchive client, ClassArchive library, List<String> scenarios) {
+        long start = System.nanoTime();
+        String label = label(library.path());
+        List<ScenarioRun> runs = new ArrayList<>(scenarios.size());
+        for (String scenario : scenarios) {
+            runs.add(ScenarioScheduler.runOne(label, List.of(client, library), scenario));
+        }
+        return new MatrixCell(library.path(), client.path(), runs, System.nanoTime() - start);
+    }
+
+    private static String label(Path path) {
+        String name = path.getFileName().toString();
+        return name.endsWith(".jar") ? name.substring(0, name.length() - ".jar".length()) : name;
+    }
+}
@@ -0,0 +1,90 @@
+package dev.gruff.hardstop.harness;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Sends one request to a running {@link HarnessDaemon} and prints the answer.
+ *
+ * <pre>
+ * java -cp harness.jar dev.gruff.hardstop.harness.DaemonClient \
+ *     (--socket /tmp/hardstop.sock | --port 7070) RUN v2/target/v2-2.0.0.jar [TestEnum*]
+ * </pre>
+ *
+ * The exit code is 1 if any test failed or the daemon answered with an error.
+ */
+public class DaemonClient {
+
+    /**
+     * Sends the request and passes every line of the answer to the consumer, up to and including the final OK or ERROR line.
+     *
+     * @return the final line
+     */
+    public static String send(SocketAddress address, String request, Consumer<String> lines) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(address instanceof UnixDomainSocketAddress
+                ? StandardProtocolFamily.UNIX : StandardProtocolFamily.INET)) {
+            channel.connect(address);
+            PrintWriter out = new PrintWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), false);
+            BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            out.println(request);
+            out.flush();
+            String line;
+            while ((line = in.readLine()) != null) {
+                lines.accept(line);
+                if (line.equals("OK") || line.startsWith("OK ") || line.startsWith("ERROR")) {
+                    return line;
+                }
+            }
+            throw new IOException("daemon closed the connection before answering " + request);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String socket = null;
+        int port = -1;
+        List<String> request = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-s", "--socket" -> socket = value(args, ++i);
+                case "-p", "--port" -> port = Integer.parseInt(value(args, ++i));
+                default -> request.add(args[i]);
+            }
+        }
+        if (request.isEmpty() || (socket == null && port < 0)) {
+            usage();
+        }
+        boolean[] failed = new boolean[1];
+        String last = send(HarnessDaemon.address(socket, port), String.join(" ", request), line -> {
+            System.out.println(line);
+            failed[0] |= line.startsWith(Outcome.Status.FAILED.name());
+        });
+        if (failed[0] || last.startsWith("ERROR")) {
+            System.exit(1);
+        }
+    }
+
+    /** The value following an option, or usage and exit if it is the last argument. */
+    private static String value(String[] args, int i) {
+        if (i >= args.length) {
+            System.err.println("missing value for " + args[i - 1]);
+            usage();
+        }
+        return args[i];
+    }
+
+    private static void usage() {
+        System.err.println("usage: DaemonClient (--socket <path> | --port <port>) PING | SCENARIOS | RUN <jar> [<scenario>...] | SHUTDOWN");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,122 @@
+package dev.gruff.hardstop.harness;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DynamicContainer;
+import org.junit.jupiter.api.DynamicNode;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolutionException;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.opentest4j.TestAbortedException;
+
+import java.lang.management.ManagementFactory;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * JUnit 5 extension that runs the scenario classes against v1 and v2 in one fork.
+ *
+ * Put it on a suite class next to the scenarios (its name must not start with Test)
+ * and take a {@link DualVersionRunner} as a parameter of a test factory:
+ *
+ * <pre>
+ * &#64;ExtendWith(DualVersionExtension.class)
+ * public class DualVersionSuite {
+ *     &#64;TestFactory
+ *     Stream&lt;DynamicNode&gt; scenarios(DualVersionRunner runner) {
+ *         return DualVersionExtension.nodes(runner);
+ *     }
+ * }
+ * </pre>
+ *
+ * The compiled scenarios are found through the hardstop.scenarios system property,
+ * or the suite's own code source when that is not set, and the jars through the
+ * hardstop.v1.jar / hardstop.v2.jar system properties. The timing report is printed
+ * once all versions have run. {@link DualVersionSuite} is the ready-made suite.
+ */
+public class DualVersionExtension implements BeforeAllCallback, AfterAllCallback, ParameterResolver {
+
+    /** System property naming the directory or jar holding the compiled scenarios */
+    public static final String SCENARIOS_PROPERTY = "hardstop.scenarios";
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(DualVersionExtension.class);
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        long bootstrap = ManagementFactory.getRuntimeMXBean().getUptime();
+        String scenarios = System.getProperty(SCENARIOS_PROPERTY);
+        Path classes = scenarios == null || scenarios.isBlank()
+                ? codeSource(context.getRequiredTestClass())
+                : Path.of(scenarios);
+        ExtensionContext.Store store = context.getStore(NAMESPACE);
+        store.put("bootstrap", bootstrap);
+        store.put(DualVersionRunner.class, DualVersionRunner.fromSystemProperties(classes));
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        ExtensionContext.Store store = context.getStore(NAMESPACE);
+        DualVersionRunner runner = store.get(DualVersionRunner.class, DualVersionRunner.class);
+        Long bootstrap = store.get("bootstrap", Long.class);
+        if (runner != null && bootstrap != null && !runner.runs().isEmpty()) {
+            System.out.println(new TimingReport(bootstrap, runner.runs()));
+        }
+        if (runner != null) {
+            runner.scheduler().close();
+        }
+    }
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameter, ExtensionContext context) {
+        return parameter.getParameter().getType() == DualVersionRunner.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameter, ExtensionContext context) {
+        DualVersionRunner runner = context.getStore(NAMESPACE).get(DualVersionRunner.class, DualVersionRunner.class);
+        if (runner == null) {
+            throw new ParameterResolutionException("DualVersionExtension was not initialised for " + context.getDisplayName());
+        }
+        return runner;
+    }
+
+    /**
+     * One container per version, one per scenario class inside it, and one dynamic test per
+     * outcome. Each version is only run when its container executes.
+     */
+    public static Stream<DynamicNode> nodes(DualVersionRunner runner) {
+        return runner.versions().stream()
+                .map(label -> DynamicContainer.dynamicContainer(label,
+                        Stream.of(label).flatMap(l -> scenarios(runner.run(l)))));
+    }
+
+    private static Stream<DynamicNode> scenarios(VersionRun run) {
+        return run.scenarios().stream()
+                .map(s -> DynamicContainer.dynamicContainer(s.scenario(),
+                        s.outcomes().stream().map(DualVersionExtension::replay)));
+    }
+
+    private static DynamicNode replay(Outcome outcome) {
+        return DynamicTest.dynamicTest(outcome.test(), () -> {
+            switch (outcome.status()) {
+                case FAILED -> throw outcome.cause();
+                case ABORTED -> throw outcome.cause() != null ? outcome.cause() : new TestAbortedException();
+                case SKIPPED -> Assumptions.abort(outcome.reason());
+                case PASSED -> {
+                }
+            }
+        });
+    }
+
+    private static Path codeSource(Class<?> type) {
+        try {
+            return Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("cannot locate classes of " + type, e);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package dev.gruff.hardstop.harness;
+
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.TestSource;
+import org.junit.platform.engine.discovery.ClassSelector;
+import org.junit.platform.engine.discovery.DiscoverySelectors;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.launcher.Launcher;
+import org.junit.platform.launcher.LauncherDiscoveryRequest;
+import org.junit.platform.launcher.LauncherSession;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs every scenario class once per library version, all inside the current JVM.
+ *
+ * This replaces the old layout of one surefire execution per version
+ * (each excluding the other jar from its classpath). Each version gets an
+ * {@link IsolatedClassLoader} containing the compiled scenarios and that
+ * version's jar, so Version.isV1() and every apicheck class resolve
+ * against the right jar while JUnit itself is loaded and warmed up once.
+ * Within a version the scenarios are spread over a {@link ScenarioScheduler},
+ * each in a classloader of its own.
+ */
+public class DualVersionRunner {
+
+    /** System property prefix used to pass the library jars, e.g. hardstop.v1.jar */
+    public static final String PROPERTY_PREFIX = "hardstop.";
+
+    private static final ThreadLocal<LauncherSession> SESSION = new ThreadLocal<>();
+
+    private final Path testClasses;
+    private final Map<String, Path> versions;
+    private final List<String> scenarios;
+    private final ScenarioScheduler scheduler;
+    private final List<VersionRun> runs = Collections.synchronizedList(new ArrayList<>());
+
+    public DualVersionRunner(Path testClasses, Map<String, Path> versions, ScenarioScheduler scheduler) {
+        this.testClasses = testClasses;
+        this.versions = new LinkedHashMap<>(versions);
+        this.scenarios = discover(testClasses);
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Builds a runner for v1 and v2 using the hardstop.v1.jar and hardstop.v2.jar system properties.
+     */
+    public static DualVersionRunner fromSystemProperties(Path testClasses) {
+        Map<String, Path> versions = new LinkedHashMap<>();
+        for (String label : List.of("v1", "v2")) {
+            String jar = System.getProperty(PROPERTY_PREFIX + label + ".jar");
+            if (jar == null || jar.isBlank()) {
+                throw new IllegalStateException("system property " + PROPERTY_PREFIX + label + ".jar is not set");
+            }
+            versions.put(label, Path.of(jar));
+        }
+        return new DualVersionRunner(testClasses, versions, ScenarioScheduler.fromSystemProperties());
+    }
+
+    public List<String> versions() {
+        return List.copyOf(versions.keySet());
+    }
+
+    public List<String> scenarios() {
+        return scenarios;
+    }
+
+    public ScenarioScheduler scheduler() {
+        return scheduler;
+    }
+
+    /** Runs completed so far, in execution order. */
+    public List<VersionRun> runs() {
+        synchronized (runs) {
+            return List.copyOf(runs);
+        }
+    }
+
+    /**
+     * Runs all scenarios against the given version, each in a fresh classloader.
+     */
+    public VersionRun run(String label) {
+        Path jar = versions.get(label);
+        if (jar == null) {
+            throw new IllegalArgumentException("unknown version " + label);
+        }
+        long start = System.nanoTime();
+        List<ScenarioRun> scenarioRuns = scheduler.run(label, List.of(testClasses, jar), scenarios);
+        VersionRun run = new VersionRun(label, scenarioRuns, System.nanoTime() - start);
+        runs.add(run);
+        return run;
+    }
+
+    /**
+     * Runs the named scenario classes inside the given loader.
+     *
+     * Each thread keeps one launcher session for all the runs it makes,
+     * so the test engines are found and initialised once per worker
+     * rather than once per scenario.
+     */
+    static List<Outcome> execute(ClassLoader loader, List<String> classNames) {
+        List<ClassSelector> selectors = new ArrayList<>();
+        List<Outcome> outcomes = Collections.synchronizedList(new ArrayList<>());
+        for (String name : classNames) {
+            try {
+                selectors.add(DiscoverySelectors.selectClass(Class.forName(name, false, loader)));
+            } catch (ClassNotFoundException | LinkageError e) {
+                outcomes.add(new Outcome(name, name, Outcome.Status.FAILED, e, null));
+            }
+        }
+        if (selectors.isEmpty()) {
+            return outcomes;
+        }
+        LauncherDiscoveryRequest request = LauncherDiscoveryRequestBuilder.request()
+                .selectors(selectors)
+                .build();
+
+        // the tests run with their own loader as context loader
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        Launcher launcher = launcher();
+        thread.setContextClassLoader(loader);
+        try {
+            launcher.execute(request, new Collector(outcomes));
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+        return List.copyOf(outcomes);
+    }
+
+    /**
+     * Loads and initialises the launcher and the test engines now rather than on the first run.
+     */
+    static void warmUp() {
+        open().close();
+    }
+
+    /**
+     * The current thread's launcher, from a session opened on its first run.
+     *
+     * JUnit does not document a Launcher as safe to call from several
+     * threads at once, so the workers of a scheduler or matrix do not
+     * share one; their thread factories close each worker's session as
+     * the worker ends, through {@link #closeSession()}.
+     */
+    private static Launcher launcher() {
+        LauncherSession session = SESSION.get();
+        if (session == null) {
+            session = open();
+            SESSION.set(session);
+        }
+        return session.getLauncher();
+    }
+
+    /**
+     * Closes the current thread's launcher session, if it has one.
+     */
+    static void closeSession() {
+        LauncherSession session = SESSION.get();
+        if (session != null) {
+            SESSION.remove();
+            session.close();
+        }
+    }
+
+    private static LauncherSession open() {
+        // engines are found through the context loader, so it must be the harness loader here
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        thread.setContextClassLoader(DualVersionRunner.class.getClassLoader());
+        try {
+            return LauncherFactory.openSession();
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+
+    /**
+     * Finds the top level Test* classes in a compiled test directory or jar.
+     */
+    static List<String> discover(Path testClasses) {
+        return scenarios(ClassArchive.open(testClasses));
+    }
+
+    /**
+     * The top level classes of an archive whose simple name starts with Test, sorted.
+     */
+    static List<String> scenarios(ClassArchive archive) {
+        return archive.classNames().stream()
+                .filter(name -> {
+                    String simple = name.substring(name.lastIndexOf('.') + 1);
+                    return simple.startsWith("Test") && simple.indexOf('$') < 0;
+                })
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * Turns launcher events into outcomes. Containers are only recorded when they break,
+     * e.g. a scenario class whose static initialiser throws a linkage error.
+     */
+    private static final class Collector implements TestExecutionListener {
+
+        private final List<Outcome> outcomes;
+
+        Collector(List<Outcome> outcomes) {
+            this.outcomes = outcomes;
+        }
+
+        @Override
+        public void executionSkipped(TestIdentifier id, String reason) {
+            if (id.isTest()) {
+                outcomes.add(new Outcome(scenario(id), id.getDisplayName(), Outcome.Status.SKIPPED, null, reason));
+            }
+        }
+
+        @Override
+        public void executionFinished(TestIdentifier id, TestExecutionResult result) {
+            boolean brokenClass = id.isContainer()
+                    && id.getSource().filter(ClassSource.class::isInstance).isPresent()
+                    && result.getStatus() != TestExecutionResult.Status.SUCCESSFUL;
+            if (!id.isTest() && !brokenClass) {
+                return;
+            }
+            Outcome.Status status = switch (result.getStatus()) {
+                case SUCCESSFUL -> Outcome.Status.PASSED;
+                case ABORTED -> Outcome.Status.ABORTED;
+                case FAILED -> Outcome.Status.FAILED;
+            };
+            outcomes.add(new Outcome(scenario(id), id.getDisplayName(), status, result.getThrowable().orElse(null), null));
+        }
+
+        private static String scenario(TestIdentifier id) {
+            TestSource source = id.getSource().orElse(null);
+            if (source instanceof MethodSource method) {
+                return method.getClassName();
+            }
+            if (source instanceof ClassSource type) {
+                return type.getClassName();
+            }
+            return id.getDisplayName();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package dev.gruff.hardstop.harness;
+
+import org.junit.jupiter.api.DynamicNode;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.stream.Stream;
+
+/**
+ * Runs every Test* scenario against V1 and then V2 inside this one JVM.
+ * Each version gets its own classloader holding the compiled tests plus that version's jar,
+ * so the tests stay compiled against V1 while Version.isV1() answers per loader.
+ *
+ * Surefire finds this class by scanning the harness jar (dependenciesToScan), so the
+ * compiled scenarios do not need to be on the fork's classpath at all; they are passed
+ * in through the hardstop.scenarios system property.
+ */
+@ExtendWith(DualVersionExtension.class)
+public class DualVersionSuite {
+
+    @TestFactory
+    Stream<DynamicNode> scenarios(DualVersionRunner runner) {
+        return DualVersionExtension.nodes(runner);
+    }
+}
@@ -0,0 +1,303 @@
+package dev.gruff.hardstop.harness;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * Long-lived process that runs the scenarios of one compiled client against any library jar on request.
+ *
+ * Starting a Maven build, a surefire fork and a JUnit launcher costs
+ * seconds; running the scenarios themselves costs milliseconds. The daemon
+ * pays the first part once: the client classes stay parsed in their
+ * {@link ClassArchive}, the scenario list and each worker's launcher
+ * session are kept, and the JIT stays warm across requests. Every request
+ * still gets fresh classloaders, one per scenario, so no request can see
+ * another's linkage errors.
+ *
+ * Requests are single lines over a Unix domain socket or a loopback TCP port,
+ * answered with one line per result and a closing OK or ERROR line:
+ *
+ * <pre>
+ * PING                        OK &lt;client&gt; &lt;n&gt; scenarios
+ * SCENARIOS                   one name per line, OK &lt;n&gt;
+ * RUN &lt;jar&gt; [&lt;scenario&gt;...]   &lt;STATUS&gt; &lt;scenario&gt; &lt;test&gt; [&lt;cause&gt;] per outcome,
+ *                             OK &lt;passed&gt; passed &lt;failed&gt; failed &lt;aborted&gt; aborted &lt;skipped&gt; skipped in &lt;ms&gt; ms
+ * SHUTDOWN                    OK, then the daemon exits
+ * </pre>
+ *
+ * Scenarios are binary or simple class names and may use * as a wildcard;
+ * none means all of them. {@link DaemonClient} sends requests from the command line.
+ */
+public class HarnessDaemon implements Closeable {
+
+    private final Path client;
+    private final List<String> scenarios;
+    private final ScenarioScheduler scheduler;
+    private final SocketAddress address;
+    private final ServerSocketChannel server;
+    private final ExecutorService connections = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "hardstop-daemon-connection");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Binds the socket and primes the caches; call {@link #serve()} to start answering requests.
+     *
+     * @param client  compiled scenario classes, a directory or a jar
+     * @param address a {@link UnixDomainSocketAddress} or a loopback address, port 0 picks a free port
+     */
+    public HarnessDaemon(Path client, SocketAddress address, ScenarioScheduler scheduler) throws IOException {
+        this.client = client;
+        this.scenarios = DualVersionRunner.discover(client);
+        this.scheduler = scheduler;
+        if (address instanceof UnixDomainSocketAddress unix) {
+            // a socket file left behind by a daemon that was killed
+            Files.deleteIfExists(unix.getPath());
+            this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            this.server = ServerSocketChannel.open();
+        }
+        server.bind(address);
+        this.address = server.getLocalAddress();
+        DualVersionRunner.warmUp();
+    }
+
+    /**
+     * A Unix domain socket when a path is given, otherwise the loopback interface.
+     */
+    public static SocketAddress address(String socket, int port) {
+        if (socket != null) {
+            return UnixDomainSocketAddress.of(socket);
+        }
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    }
+
+    /** The bound address, with the actual port when port 0 was asked for. */
+    public SocketAddress address() {
+        return address;
+    }
+
+    public List<String> scenarios() {
+        return scenarios;
+    }
+
+    /**
+     * Accepts connections until SHUTDOWN is received or the daemon is closed.
+     * Each connection may send any number of requests, one at a time.
+     */
+    public void serve() {
+        try {
+            while (server.isOpen()) {
+                SocketChannel channel = server.accept();
+                connections.execute(() -> handle(channel));
+            }
+        } catch (ClosedChannelException e) {
+            // closed by SHUTDOWN
+        } catch (IOException e) {
+            throw new UncheckedIOException("daemon socket failed", e);
+        }
+    }
+
+    /**
+     * Runs the selected scenarios against the jar, each in a fresh loader.
+     * The jar is read for this request only; the client classes stay cached.
+     */
+    public List<ScenarioRun> run(Path jar, List<String> patterns) {
+        List<String> selected = select(scenarios, patterns);
+        try {
+            return scheduler.runArchives(label(jar), List.of(ClassArchive.open(client), ClassArchive.open(jar)), selected);
+        } finally {
+            if (!jar.toAbsolutePath().normalize().equals(client.toAbsolutePath().normalize())) {
+                ClassArchive.evict(jar);
+            }
+        }
+    }
+
+    /**
+     * The scenarios matching any of the patterns, by binary or simple name with * as a wildcard, in their original order.
+     */
+    static List<String> select(List<String> scenarios, List<String> patterns) {
+        if (patterns.isEmpty()) {
+            return scenarios;
+        }
+        List<Pattern> compiled = patterns.stream()
+                .map(p -> Pattern.compile(Arrays.stream(p.split("\\*", -1)).map(Pattern::quote).reduce((a, b) -> a + ".*" + b).orElse("")))
+                .toList();
+        List<String> selected = new ArrayList<>();
+        for (String scenario : scenarios) {
+            String simple = scenario.substring(scenario.lastIndexOf('.') + 1);
+            if (compiled.stream().anyMatch(p -> p.matcher(scenario).matches() || p.matcher(simple).matches())) {
+                selected.add(scenario);
+            }
+        }
+        return selected;
+    }
+
+    private void handle(SocketChannel channel) {
+        try (channel;
+             BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), false)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                boolean more = answer(line.trim().split("\\s+"), out);
+                out.flush();
+                if (!more) {
+                    close();
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // client went away
+        }
+    }
+
+    /** Writes the response to one request; false once the daemon should stop. */
+    private boolean answer(String[] request, PrintWriter out) {
+        try {
+            switch (request[0].toUpperCase()) {
+                case "PING" -> out.println("OK " + client + " " + scenarios.size() + " scenarios");
+                case "SCENARIOS" -> {
+                    scenarios.forEach(out::println);
+                    out.println("OK " + scenarios.size());
+                }
+                case "RUN" -> {
+                    if (request.length < 2) {
+                        out.println("ERROR usage: RUN <jar> [<scenario>...]");
+                        break;
+                    }
+                    Path jar = Path.of(request[1]);
+                    if (!Files.exists(jar)) {
+                        out.println("ERROR no such jar " + jar);
+                        break;
+                    }
+                    long start = System.nanoTime();
+                    List<ScenarioRun> runs = run(jar, List.of(request).subList(2, request.length));
+                    VersionRun run = new VersionRun(label(jar), runs, System.nanoTime() - start);
+                    run.outcomes().forEach(o -> out.println(format(o)));
+                    out.println("OK " + run.count(Outcome.Status.PASSED) + " passed "
+                            + run.count(Outcome.Status.FAILED) + " failed "
+                            + run.count(Outcome.Status.ABORTED) + " aborted "
+                            + run.count(Outcome.Status.SKIPPED) + " skipped in " + run.millis() + " ms");
+                }
+                case "SHUTDOWN" -> {
+                    out.println("OK");
+                    return false;
+                }
+                default -> out.println("ERROR unknown request " + request[0]);
+            }
+        } catch (RuntimeException e) {
+            out.println("ERROR " + oneLine(String.valueOf(e)));
+        }
+        return true;
+    }
+
+    private static String format(Outcome outcome) {
+        StringBuilder sb = new StringBuilder()
+                .append(outcome.status()).append(' ')
+                .append(outcome.scenario()).append(' ')
+                .append(outcome.test().replace(' ', '_'));
+        if (outcome.failed() && outcome.cause() != null) {
+            sb.append(' ').append(oneLine(String.valueOf(outcome.cause())));
+        } else if (outcome.reason() != null) {
+            sb.append(' ').append(oneLine(outcome.reason()));
+        }
+        return sb.toString();
+    }
+
+    private static String oneLine(String text) {
+        return text.replace('\r', ' ').replace('\n', ' ');
+    }
+
+    private static String label(Path jar) {
+        return jar.getFileName().toString();
+    }
+
+    @Override
+    public void close() {
+        try {
+            server.close();
+            if (address instanceof UnixDomainSocketAddress unix) {
+                Files.deleteIfExists(unix.getPath());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            connections.shutdown();
+            scheduler.close();
+        }
+    }
+
+    /**
+     * <pre>
+     * java -cp harness.jar:junit... dev.gruff.hardstop.harness.HarnessDaemon \
+     *     -c tests/target/test-classes (--socket /tmp/hardstop.sock | --port 7070) [-j 4]
+     * </pre>
+     */
+    public static void main(String[] args) throws IOException {
+        Path client = null;
+        String socket = null;
+        int port = 0;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-c", "--client" -> client = Path.of(value(args, ++i));
+                case "-s", "--socket" -> socket = value(args, ++i);
+                case "-p", "--port" -> port = Integer.parseInt(value(args, ++i));
+                case "-j", "--parallelism" -> parallelism = Integer.parseInt(value(args, ++i));
+                default -> {
+                    System.err.println("unknown argument " + args[i]);
+                    usage();
+                    return;
+                }
+            }
+        }
+        if (client == null) {
+            usage();
+            return;
+        }
+        try (HarnessDaemon daemon = new HarnessDaemon(client, address(socket, port), new ScenarioScheduler(parallelism))) {
+            System.out.println("hardstop daemon on " + daemon.address() + " serving " + daemon.scenarios().size() + " scenarios from " + client);
+            daemon.serve();
+        }
+    }
+
+    /** The value following an option, or usage and exit if it is the last argument. */
+    private static String value(String[] args, int i) {
+        if (i >= args.length) {
+            System.err.println("missing value for " + args[i - 1]);
+            usage();
+        }
+        return args[i];
+    }
+
+    private static void usage() {
+        System.err.println("usage: HarnessDaemon -c <client classes or jar> [--socket <path> | --port <port>] [-j <workers>]");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,129 @@
+package dev.gruff.hardstop.harness;
+
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Classloader holding one copy of the compiled scenario classes plus one library version.
+ *
+ * The parent only sees the platform classes and the JUnit API, so
+ * everything else (the tests, Version, the apicheck classes) is loaded
+ * and linked here. Two of these side by side give two independent
+ * worlds, exactly as if each had been started in its own JVM.
+ *
+ * Classes are defined from {@link ClassArchive}s, so creating a loader
+ * per scenario or per matrix cell costs no I/O once an archive is cached.
+ */
+public class IsolatedClassLoader extends ClassLoader {
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    /**
+     * Packages that must be shared with the harness so the engine
+     * recognises the annotations and assertion failures of the loaded tests.
+     */
+    private static final List<String> SHARED = List.of(
+            "org.junit.",
+            "org.opentest4j.",
+            "org.apiguardian.");
+
+    private static final ClassLoader SHARED_API = new SharedApiLoader(IsolatedClassLoader.class.getClassLoader());
+
+    private final String label;
+    private final List<ClassArchive> archives;
+
+    /**
+     * @param label    version label, becomes part of the loader name
+     * @param archives searched in order, so scenarios first then the library
+     */
+    public IsolatedClassLoader(String label, List<ClassArchive> archives) {
+        super("hardstop-" + label, SHARED_API);
+        this.label = label;
+        this.archives = List.copyOf(archives);
+    }
+
+    /**
+     * Loader over jars or class directories, read through the {@link ClassArchive} cache.
+     */
+    public static IsolatedClassLoader ofPaths(String label, List<Path> paths) {
+        return new IsolatedClassLoader(label, paths.stream().map(ClassArchive::open).toList());
+    }
+
+    public String label() {
+        return label;
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        for (ClassArchive archive : archives) {
+            byte[] bytes = archive.bytes(name);
+            if (bytes != null) {
+                return defineClass(name, bytes, 0, bytes.length, archive.domain());
+            }
+        }
+        throw new ClassNotFoundException(name);
+    }
+
+    @Override
+    protected URL findResource(String name) {
+        for (ClassArchive archive : archives) {
+            URL url = archive.resource(name);
+            if (url != null) {
+                return url;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected Enumeration<URL> findResources(String name) {
+        List<URL> urls = new ArrayList<>();
+        for (ClassArchive archive : archives) {
+            URL url = archive.resource(name);
+            if (url != null) {
+                urls.add(url);
+            }
+        }
+        return Collections.enumeration(urls);
+    }
+
+    static boolean isShared(String className) {
+        for (String prefix : SHARED) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parent of every isolated loader: the platform classes plus the shared JUnit API, nothing else.
+     */
+    private static final class SharedApiLoader extends ClassLoader {
+
+        static {
+            registerAsParallelCapable();
+        }
+
+        private final ClassLoader harness;
+
+        SharedApiLoader(ClassLoader harness) {
+            super("hardstop-shared", ClassLoader.getPlatformClassLoader());
+            this.harness = harness;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            if (isShared(name)) {
+                return harness.loadClass(name);
+            }
+            throw new ClassNotFoundException(name);
+        }
+    }
+}
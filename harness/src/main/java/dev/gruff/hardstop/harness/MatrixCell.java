@@ -0,0 +1,39 @@
+package dev.gruff.hardstop.harness;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Result of one client build run against one library release.
+ *
+ * @param library   the library jar (or class directory)
+ * @param client    the compiled client scenarios (jar or class directory)
+ * @param scenarios one run per scenario class of the client
+ * @param nanos     wall-clock time of the cell
+ */
+public record MatrixCell(Path library, Path client, List<ScenarioRun> scenarios, long nanos) {
+
+    public long count(Outcome.Status status) {
+        return scenarios.stream()
+                .flatMap(s -> s.outcomes().stream())
+                .filter(o -> o.status() == status)
+                .count();
+    }
+
+    public boolean compatible() {
+        return count(Outcome.Status.FAILED) == 0;
+    }
+
+    @Override
+    public String toString() {
+        return name(client) + " x " + name(library) + ": "
+                + count(Outcome.Status.PASSED) + " passed, "
+                + count(Outcome.Status.FAILED) + " failed, "
+                + count(Outcome.Status.SKIPPED) + " skipped in "
+                + nanos / 1_000_000 + " ms";
+    }
+
+    private static String name(Path path) {
+        return path.getFileName() == null ? path.toString() : path.getFileName().toString();
+    }
+}
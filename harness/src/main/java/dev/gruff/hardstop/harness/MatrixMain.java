@@ -0,0 +1,76 @@
+package dev.gruff.hardstop.harness;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command line entry point for {@link CompatibilityMatrix}.
+ *
+ * <pre>
+ * java -cp harness.jar:junit... dev.gruff.hardstop.harness.MatrixMain \
+ *     -l v1-1.0.0.jar -l v2-2.0.0.jar -c tests/target/test-classes [-j 4] [-v]
+ * </pre>
+ *
+ * One line is printed per cell as it completes; -v also lists the failing tests.
+ * The exit code is 1 if any cell had a failure.
+ */
+public class MatrixMain {
+
+    public static void main(String[] args) throws InterruptedException {
+        List<Path> libraries = new ArrayList<>();
+        List<Path> clients = new ArrayList<>();
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        boolean verbose = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-l", "--library" -> libraries.add(Path.of(value(args, ++i)));
+                case "-c", "--client" -> clients.add(Path.of(value(args, ++i)));
+                case "-j", "--parallelism" -> parallelism = Integer.parseInt(value(args, ++i));
+                case "-v", "--verbose" -> verbose = true;
+                default -> {
+                    System.err.println("unknown argument " + args[i]);
+                    usage();
+                    return;
+                }
+            }
+        }
+        if (libraries.isEmpty() || clients.isEmpty()) {
+            usage();
+            return;
+        }
+
+        CompatibilityMatrix matrix = new CompatibilityMatrix(libraries, clients, parallelism);
+        System.out.println("running " + matrix.cells() + " cells on " + parallelism + " workers");
+        long start = System.nanoTime();
+        boolean showFailures = verbose;
+        List<MatrixCell> cells = matrix.run(cell -> {
+            System.out.println(cell);
+            if (showFailures) {
+                cell.scenarios().stream()
+                        .flatMap(s -> s.outcomes().stream())
+                        .filter(Outcome::failed)
+                        .forEach(o -> System.out.println("    " + o.scenario() + "." + o.test() + ": " + o.cause()));
+            }
+        });
+        long failed = cells.stream().filter(c -> !c.compatible()).count();
+        System.out.println(cells.size() + " cells, " + failed + " with failures, in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    /** The value following an option, or usage and exit if it is the last argument. */
+    private static String value(String[] args, int i) {
+        if (i >= args.length) {
+            System.err.println("missing value for " + args[i - 1]);
+            usage();
+        }
+        return args[i];
+    }
+
+    private static void usage() {
+        System.err.println("usage: MatrixMain -l <library jar>... -c <client classes or jar>... [-j <workers>] [-v]");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,21 @@
+package dev.gruff.hardstop.harness;
+
+/**
+ * Result of one test method of one scenario class against one library version.
+ *
+ * @param scenario binary name of the scenario class, e.g. TestFieldChanges
+ * @param test     display name of the test method, or the class name for container failures
+ * @param status   how the test finished
+ * @param cause    the failure as thrown inside the isolated classloader, null unless failed or aborted
+ * @param reason   skip reason, null unless skipped
+ */
+public record Outcome(String scenario, String test, Status status, Throwable cause, String reason) {
+
+    public enum Status {
+        PASSED, FAILED, ABORTED, SKIPPED
+    }
+
+    public boolean failed() {
+        return status == Status.FAILED;
+    }
+}
@@ -0,0 +1,22 @@
+package dev.gruff.hardstop.harness;
+
+import java.util.List;
+
+/**
+ * Outcomes of one scenario class against one library version, run in its own classloader.
+ *
+ * @param version  version label, e.g. v1
+ * @param scenario binary name of the scenario class
+ * @param outcomes one entry per executed, skipped or broken test
+ * @param nanos    wall-clock time including classloader creation and teardown
+ */
+public record ScenarioRun(String version, String scenario, List<Outcome> outcomes, long nanos) {
+
+    public long millis() {
+        return nanos / 1_000_000;
+    }
+
+    public boolean failed() {
+        return outcomes.stream().anyMatch(Outcome::failed);
+    }
+}
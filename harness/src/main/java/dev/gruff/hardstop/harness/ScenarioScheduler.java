@@ -0,0 +1,107 @@
+package dev.gruff.hardstop.harness;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Runs scenario classes in parallel, each in a throwaway classloader.
+ *
+ * A scenario that provokes a linkage error leaves its classes in an
+ * erroneous state for the lifetime of their loader. Giving every scenario
+ * its own {@link IsolatedClassLoader} means no scenario can see the damage
+ * done by another, which in turn makes it safe to run them concurrently on
+ * a work-stealing pool. Scenarios are submitted slowest-first when timings
+ * from an earlier run are available, so one long scenario does not end up
+ * running alone at the tail.
+ */
+public class ScenarioScheduler implements AutoCloseable {
+
+    /** System property overriding the number of worker threads */
+    public static final String PARALLELISM_PROPERTY = "hardstop.parallelism";
+
+    private final ForkJoinPool pool;
+    private final Map<String, Long> lastNanos = new ConcurrentHashMap<>();
+
+    public ScenarioScheduler(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism, Worker::new, null, false);
+    }
+
+    /**
+     * Uses hardstop.parallelism when set, otherwise one worker per core.
+     */
+    public static ScenarioScheduler fromSystemProperties() {
+        return new ScenarioScheduler(Integer.getInteger(PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public int parallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Runs each scenario against the given classpath in a loader of its own.
+     *
+     * @param version   label used for the loaders and results
+     * @param classpath compiled scenarios followed by the library jar(s)
+     * @param scenarios binary names of the scenario classes
+     * @return one run per scenario, in the order given
+     */
+    public List<ScenarioRun> run(String version, List<Path> classpath, List<String> scenarios) {
+        return runArchives(version, classpath.stream().map(ClassArchive::open).toList(), scenarios);
+    }
+
+    /**
+     * As {@link #run(String, List, List)} but over archives that are already open.
+     */
+    public List<ScenarioRun> runArchives(String version, List<ClassArchive> classpath, List<String> scenarios) {
+        List<String> submission = new ArrayList<>(scenarios);
+        submission.sort(Comparator.comparingLong((String s) -> lastNanos.getOrDefault(s, 0L)).reversed());
+
+        Map<String, ForkJoinTask<ScenarioRun>> tasks = new HashMap<>();
+        for (String scenario : submission) {
+            tasks.put(scenario, pool.submit(() -> runOne(version, classpath, scenario)));
+        }
+        List<ScenarioRun> runs = new ArrayList<>(scenarios.size());
+        for (String scenario : scenarios) {
+            ScenarioRun run = tasks.get(scenario).join();
+            lastNanos.put(scenario, run.nanos());
+            runs.add(run);
+        }
+        return runs;
+    }
+
+    static ScenarioRun runOne(String version, List<ClassArchive> classpath, String scenario) {
+        long start = System.nanoTime();
+        List<Outcome> outcomes = DualVersionRunner.execute(new IsolatedClassLoader(version, classpath), List.of(scenario));
+        return new ScenarioRun(version, scenario, outcomes, System.nanoTime() - start);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /** A pool thread that closes its launcher session when it ends, on shutdown or after idling. */
+    private static final class Worker extends ForkJoinWorkerThread {
+
+        Worker(ForkJoinPool pool) {
+            super(pool);
+        }
+
+        @Override
+        protected void onTermination(Throwable exception) {
+            try {
+                DualVersionRunner.closeSession();
+            } finally {
+                super.onTermination(exception);
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package dev.gruff.hardstop.harness;
+
+import org.junit.platform.launcher.LauncherSession;
+import org.junit.platform.launcher.LauncherSessionListener;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Reports how long the fork took to start and whether its AppCDS archive was used.
+ *
+ * Only active when the JVM was started with -XX:SharedArchiveFile. The time
+ * from JVM start to the first launcher session is compared with the same
+ * time from the run that created the archive, which is kept next to the
+ * archive in a .startup file together with the jars on the classpath and
+ * module path and the JVM it was created for. If any of those differ the
+ * archive is stale and the JVM has silently run without it. A stale archive
+ * is deleted, so that -XX:+AutoCreateSharedArchive writes a fresh one at the
+ * end of the next run.
+ *
+ * Registered through META-INF/services, so it runs in any fork that has the
+ * harness jar on its class or module path.
+ */
+public class StartupReport implements LauncherSessionListener {
+
+    private static final String ARCHIVE_OPTION = "-XX:SharedArchiveFile=";
+    private static final AtomicBoolean REPORTED = new AtomicBoolean();
+
+    @Override
+    public void launcherSessionOpened(LauncherSession session) {
+        // surefire's session opens first; the harness later opens one per worker thread, which are not startup
+        if (!REPORTED.compareAndSet(false, true)) {
+            return;
+        }
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        Path archive = archive(runtime);
+        if (archive != null) {
+            System.out.println(report(archive, runtime.getUptime(), runtime.getStartTime()));
+        }
+    }
+
+    static Path archive(RuntimeMXBean runtime) {
+        Path archive = null;
+        for (String argument : runtime.getInputArguments()) {
+            if (argument.startsWith(ARCHIVE_OPTION)) {
+                archive = Path.of(argument.substring(ARCHIVE_OPTION.length()));
+            }
+        }
+        return archive;
+    }
+
+    /**
+     * Compares this start with the recorded baseline and updates the .startup file when the archive is new or stale.
+     */
+    static String report(Path archive, long startupMillis, long jvmStartMillis) {
+        Path sidecar = archive.resolveSibling(archive.getFileName() + ".startup");
+        Properties current = new Properties();
+        // surefire replaces java.class.path with the test classpath; the JVM archived the real one
+        String classpath = System.getProperty("surefire.real.class.path", System.getProperty("java.class.path", ""));
+        current.setProperty("classpath", stamped(classpath));
+        current.setProperty("modulepath", stamped(System.getProperty("jdk.module.path", "")));
+        current.setProperty("jvm", System.getProperty("java.vm.version", ""));
+        current.setProperty("startup", Long.toString(startupMillis));
+
+        Properties recorded = load(sidecar);
+        boolean existed = modifiedBefore(archive, jvmStartMillis);
+        String prefix = "[hardstop] startup " + startupMillis + " ms, AppCDS " + archive.getFileName() + ": ";
+        if (existed && recorded != null && sameTarget(recorded, current)) {
+            long baseline = Long.parseLong(recorded.getProperty("startup", "0"));
+            return prefix + "reused, " + baseline + " ms without it, saved " + (baseline - startupMillis) + " ms";
+        }
+        if (existed) {
+            // the JVM only rewrites an archive from another JDK; one over changed jars is just ignored
+            delete(archive);
+            delete(sidecar);
+            return prefix + "stale, not used and deleted so the next run writes a new one";
+        }
+        store(sidecar, current);
+        return prefix + "none yet, written at exit";
+    }
+
+    /**
+     * The JVM checks the size and modification time of every archived jar, so a rebuilt jar makes the archive stale.
+     */
+    private static String stamped(String path) {
+        StringBuilder sb = new StringBuilder();
+        for (String entry : path.split(File.pathSeparator)) {
+            if (entry.isEmpty()) {
+                continue;
+            }
+            try {
+                Path file = Path.of(entry);
+                if (Files.isDirectory(file)) {
+                    // a module path directory stands for the jars in it
+                    try (Stream<Path> jars = Files.list(file)) {
+                        for (Path jar : (Iterable<Path>) jars.filter(Files::isRegularFile).sorted()::iterator) {
+                            stamp(sb, jar);
+                        }
+                    }
+                }
+                stamp(sb, file);
+            } catch (IOException | InvalidPathException e) {
+                sb.append(entry).append("@?").append(File.pathSeparatorChar);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void stamp(StringBuilder sb, Path file) throws IOException {
+        sb.append(file);
+        if (Files.isRegularFile(file)) {
+            sb.append('@').append(Files.getLastModifiedTime(file).toMillis()).append('/').append(Files.size(file));
+        }
+        sb.append(File.pathSeparatorChar);
+    }
+
+    private static boolean sameTarget(Properties recorded, Properties current) {
+        for (String key : new String[]{"classpath", "modulepath", "jvm"}) {
+            if (!Objects.equals(recorded.getProperty(key), current.getProperty(key))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean modifiedBefore(Path file, long millis) {
+        try {
+            return Files.isRegularFile(file) && Files.getLastModifiedTime(file).toMillis() < millis;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot delete " + file, e);
+        }
+    }
+
+    private static Properties load(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            return null;
+        }
+        return properties;
+    }
+
+    private static void store(Path file, Properties properties) {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            properties.store(out, "startup without a usable AppCDS archive");
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot write " + file, e);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package dev.gruff.hardstop.harness;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the wall-clock of a single-JVM run with the old one-surefire-execution-per-version layout.
+ *
+ * The split layout pays the JVM start, surefire boot and JUnit discovery
+ * once per version and always runs cold. The bootstrap cost is measured
+ * here as the JVM uptime when the suite started; the cold, serial cost of
+ * each version is taken as the slower of its own summed scenario times and
+ * those of the first (cold) version. Build with -Psplit-executions to
+ * measure the old layout directly.
+ *
+ * The report also lists every scenario with its time per version, slowest
+ * first, so that one scenario dragging out the parallel run stands out.
+ */
+public final class TimingReport {
+
+    private final long bootstrapMillis;
+    private final List<VersionRun> runs;
+
+    public TimingReport(long bootstrapMillis, List<VersionRun> runs) {
+        this.bootstrapMillis = bootstrapMillis;
+        this.runs = List.copyOf(runs);
+    }
+
+    public long singleJvmMillis() {
+        long total = bootstrapMillis;
+        for (VersionRun run : runs) {
+            total += run.millis();
+        }
+        return total;
+    }
+
+    public long estimatedSplitMillis() {
+        if (runs.isEmpty()) {
+            return 0;
+        }
+        long cold = runs.get(0).serialMillis();
+        long total = 0;
+        for (VersionRun run : runs) {
+            total += bootstrapMillis + Math.max(cold, run.serialMillis());
+        }
+        return total;
+    }
+
+    public long savedMillis() {
+        return estimatedSplitMillis() - singleJvmMillis();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[hardstop] bootstrap (JVM start + discovery): ").append(bootstrapMillis).append(" ms\n");
+        for (VersionRun run : runs) {
+            sb.append("[hardstop] ").append(run.label()).append(": ")
+                    .append(run.count(Outcome.Status.PASSED)).append(" passed, ")
+                    .append(run.count(Outcome.Status.FAILED)).append(" failed, ")
+                    .append(run.count(Outcome.Status.ABORTED)).append(" aborted, ")
+                    .append(run.count(Outcome.Status.SKIPPED)).append(" skipped in ")
+                    .append(run.millis()).append(" ms (").append(run.serialMillis()).append(" ms serial)\n");
+        }
+        appendScenarios(sb);
+        sb.append("[hardstop] single JVM: ").append(singleJvmMillis()).append(" ms, ")
+                .append("one execution per version (estimated): ").append(estimatedSplitMillis()).append(" ms, ")
+                .append("saved: ").append(savedMillis()).append(" ms");
+        return sb.toString();
+    }
+
+    private void appendScenarios(StringBuilder sb) {
+        Map<String, Map<String, Long>> byScenario = new LinkedHashMap<>();
+        for (VersionRun run : runs) {
+            for (ScenarioRun scenario : run.scenarios()) {
+                byScenario.computeIfAbsent(scenario.scenario(), k -> new LinkedHashMap<>())
+                        .put(run.label(), scenario.millis());
+            }
+        }
+        int width = byScenario.keySet().stream().mapToInt(String::length).max().orElse(0);
+        byScenario.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Map<String, Long>> e) -> slowest(e.getValue())).reversed())
+                .forEach(e -> {
+                    sb.append("[hardstop]   ").append(String.format("%-" + width + "s", e.getKey()));
+                    e.getValue().forEach((label, millis) -> sb.append(String.format("  %s %5d ms", label, millis)));
+                    sb.append('\n');
+                });
+    }
+
+    private static long slowest(Map<String, Long> times) {
+        return times.values().stream().mapToLong(Long::longValue).max().orElse(0);
+    }
+}
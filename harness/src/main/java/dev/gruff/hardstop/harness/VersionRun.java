@@ -0,0 +1,30 @@
+package dev.gruff.hardstop.harness;
+
+import java.util.List;
+
+/**
+ * All outcomes of running the scenario classes against one library version.
+ *
+ * @param label     version label, e.g. v1
+ * @param scenarios one run per scenario class, in discovery order
+ * @param nanos     wall-clock time of the whole version
+ */
+public record VersionRun(String label, List<ScenarioRun> scenarios, long nanos) {
+
+    public List<Outcome> outcomes() {
+        return scenarios.stream().flatMap(s -> s.outcomes().stream()).toList();
+    }
+
+    public long count(Outcome.Status status) {
+        return outcomes().stream().filter(o -> o.status() == status).count();
+    }
+
+    public long millis() {
+        return nanos / 1_000_000;
+    }
+
+    /** Sum of the scenario times, i.e. what a serial run would have taken. */
+    public long serialMillis() {
+        return scenarios.stream().mapToLong(ScenarioRun::nanos).sum() / 1_000_000;
+    }
+}
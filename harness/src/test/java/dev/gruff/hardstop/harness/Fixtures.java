@@ -0,0 +1,82 @@
+package dev.gruff.hardstop.harness;
+
+import org.junit.jupiter.api.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A two-release library and a one-scenario client, compiled into a
+ * temporary directory: lib-1 has Lib.answer(), lib-2 renamed it, so the
+ * client's TestLib passes against the first and fails with
+ * NoSuchMethodError against the second.
+ */
+final class Fixtures {
+
+    final Path v1;
+    final Path v2;
+    final Path client;
+
+    private Fixtures(Path dir) {
+        this.v1 = dir.resolve("lib-1");
+        this.v2 = dir.resolve("lib-2");
+        this.client = dir.resolve("client");
+    }
+
+    static Fixtures compile(Path dir) {
+        Fixtures fixtures = new Fixtures(dir);
+        compile(dir.resolve("src-1"), fixtures.v1, null, Map.of("lib/Lib.java",
+                "package lib; public class Lib { public static int answer() { return 42; } }"));
+        compile(dir.resolve("src-2"), fixtures.v2, null, Map.of("lib/Lib.java",
+                "package lib; public class Lib { public static int reply() { return 42; } }"));
+        compile(dir.resolve("src-client"), fixtures.client, fixtures.v1, Map.of("TestLib.java", """
+                import org.junit.jupiter.api.Test;
+                import static org.junit.jupiter.api.Assertions.assertEquals;
+                public class TestLib {
+                    @Test
+                    public void testAnswer() {
+                        assertEquals(42, lib.Lib.answer());
+                    }
+                }
+                """));
+        return fixtures;
+    }
+
+    private static void compile(Path src, Path out, Path library, Map<String, String> sources) {
+        try {
+            List<String> args = new ArrayList<>(List.of("-d", out.toString(), "-cp",
+                    codeSource(Test.class) + (library == null ? "" : File.pathSeparator + library)));
+            for (Map.Entry<String, String> source : sources.entrySet()) {
+                Path file = src.resolve(source.getKey());
+                Files.createDirectories(file.getParent());
+                Files.writeString(file, source.getValue());
+                args.add(file.toString());
+            }
+            JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+            ByteArrayOutputStream messages = new ByteArrayOutputStream();
+            if (javac.run(null, messages, messages, args.toArray(String[]::new)) != 0) {
+                throw new IllegalStateException("cannot compile " + sources.keySet() + ": " + messages);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Path codeSource(Class<?> type) {
+        try {
+            return Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package dev.gruff.hardstop.harness;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs one client against two library releases.
+ */
+public class TestCompatibilityMatrix {
+
+    @Test
+    public void testOneClientAgainstTwoReleases(@TempDir Path dir) throws InterruptedException {
+        Fixtures fixtures = Fixtures.compile(dir);
+        CompatibilityMatrix matrix = new CompatibilityMatrix(List.of(fixtures.v1, fixtures.v2), List.of(fixtures.client), 2);
+        assertEquals(2, matrix.cells());
+
+        List<MatrixCell> streamed = new ArrayList<>();
+        List<MatrixCell> cells = new ArrayList<>(matrix.run(streamed::add));
+        assertEquals(cells, streamed);
+        cells.sort(Comparator.comparing(MatrixCell::library));
+
+        MatrixCell first = cells.get(0);
+        assertEquals(fixtures.v1.toAbsolutePath().normalize(), first.library());
+        assertTrue(first.compatible());
+        assertEquals(1, first.count(Outcome.Status.PASSED));
+
+        MatrixCell second = cells.get(1);
+        assertFalse(second.compatible());
+        Outcome failure = second.scenarios().get(0).outcomes().get(0);
+        assertEquals("TestLib", failure.scenario());
+        assertInstanceOf(NoSuchMethodError.class, failure.cause());
+    }
+
+    @Test
+    public void testEmptyAxesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new CompatibilityMatrix(List.of(), List.of(Path.of("client")), 1));
+        assertThrows(IllegalArgumentException.class, () -> new CompatibilityMatrix(List.of(Path.of("lib.jar")), List.of(Path.of("client")), 0));
+    }
+}
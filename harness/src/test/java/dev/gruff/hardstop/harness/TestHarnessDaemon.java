@@ -0,0 +1,56 @@
+package dev.gruff.hardstop.harness;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round trip through a daemon on a free loopback port.
+ */
+public class TestHarnessDaemon {
+
+    @Test
+    public void testRequestsAreAnsweredUntilShutdown(@TempDir Path dir) throws Exception {
+        Fixtures fixtures = Fixtures.compile(dir);
+        HarnessDaemon daemon = new HarnessDaemon(fixtures.client, HarnessDaemon.address(null, 0), new ScenarioScheduler(2));
+        assertNotEquals(0, ((InetSocketAddress) daemon.address()).getPort());
+        Thread serving = new Thread(daemon::serve, "daemon-under-test");
+        serving.start();
+        try {
+            assertEquals("OK " + fixtures.client + " 1 scenarios", send(daemon, "PING").get(0));
+            assertEquals(List.of("TestLib", "OK 1"), send(daemon, "SCENARIOS"));
+
+            List<String> passed = send(daemon, "RUN " + fixtures.v1 + " TestL*");
+            assertEquals("PASSED TestLib testAnswer()", passed.get(0));
+            assertTrue(passed.get(1).startsWith("OK 1 passed 0 failed 0 aborted 0 skipped in "), passed.get(1));
+
+            List<String> failed = send(daemon, "RUN " + fixtures.v2);
+            assertTrue(failed.get(0).startsWith("FAILED TestLib testAnswer() java.lang.NoSuchMethodError: "), failed.get(0));
+            assertTrue(failed.get(1).startsWith("OK 0 passed 1 failed "), failed.get(1));
+
+            assertEquals(List.of("ERROR no such jar " + dir.resolve("missing.jar")), send(daemon, "RUN " + dir.resolve("missing.jar")));
+            assertEquals(List.of("ERROR unknown request FROB"), send(daemon, "FROB"));
+            assertEquals(List.of("OK"), send(daemon, "SHUTDOWN"));
+            serving.join(10_000);
+            assertFalse(serving.isAlive());
+        } finally {
+            daemon.close();
+        }
+    }
+
+    private static List<String> send(HarnessDaemon daemon, String request) throws IOException {
+        List<String> lines = new ArrayList<>();
+        DaemonClient.send(daemon.address(), request, lines::add);
+        return lines;
+    }
+}
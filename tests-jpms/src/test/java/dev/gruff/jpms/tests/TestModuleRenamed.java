@@ -1 +0,0 @@
-// Test removed because it requires dynamic module graph modification which is difficult with static module-info.java
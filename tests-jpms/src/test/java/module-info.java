@@ -1,3 +1,4 @@
+// TestModuleRenamed was removed because it requires dynamic module graph modification which is difficult with static module-info.java
 module dev.gruff.jpms.tests {
     requires dev.gruff.jpms;
     requires org.junit.jupiter.api;
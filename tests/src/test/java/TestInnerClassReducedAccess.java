@@ -33,8 +33,20 @@ public class TestInnerClassReducedAccess {
                 fail("error expected");
             }
             catch(java.lang.IllegalAccessError e) {
-                assertEquals("failed to access class dev.gruff.hardstop.testcases.apicheck.InnerClassReducedAccess$Inner from class TestInnerClassReducedAccess (dev.gruff.hardstop.testcases.apicheck.InnerClassReducedAccess$Inner and TestInnerClassReducedAccess are in unnamed module of loader 'app')",e.getMessage());
+                assertEquals("failed to access class dev.gruff.hardstop.testcases.apicheck.InnerClassReducedAccess$Inner from class TestInnerClassReducedAccess (dev.gruff.hardstop.testcases.apicheck.InnerClassReducedAccess$Inner and TestInnerClassReducedAccess are in unnamed module of "+loader()+")",e.getMessage());
                 }
         }
     }
+
+    /**
+     * The JVM names the defining loader in the message: 'app' when run straight from
+     * the classpath, or the name and identity hash of the per-version harness loader.
+     */
+    private static String loader() {
+        ClassLoader l = TestInnerClassReducedAccess.class.getClassLoader();
+        if (l == ClassLoader.getSystemClassLoader()) {
+            return "loader 'app'";
+        }
+        return "loader '" + l.getName() + "' @" + Integer.toHexString(System.identityHashCode(l));
+    }
 }